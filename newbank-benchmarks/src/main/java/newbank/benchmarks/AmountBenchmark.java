@@ -0,0 +1,50 @@
+package newbank.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+import newbank.server.commands.DepositCommand;
+import newbank.server.commands.RequestTokens;
+
+/**
+ * The parsing of a request's amount by {@link
+ * newbank.server.commands.responsibilities.SetsAmount#invalidAmount()}: plain amounts are parsed in
+ * place, the others go through <code>BigDecimal</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AmountBenchmark {
+  @Param({"10", "1000.25", "1e3", "-5", "10.001", "abc"})
+  String amount;
+
+  private DepositCommand command;
+
+  @Setup
+  public void setUp() {
+    RequestTokens tokens = new RequestTokens();
+    tokens.tokenize("DEPOSIT Main " + amount);
+    command = new DepositCommand(NewBank.getBank(), tokens, new CustomerID());
+  }
+
+  @Benchmark
+  public String invalidAmount() {
+    return command.invalidAmount();
+  }
+}
@@ -0,0 +1,43 @@
+package newbank.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks selected on the command line at 1, 4 and as many threads as there are
+ * processors, then print all of the results together.
+ *
+ * <p>Takes the usual JMH options, e.g. <code>java -jar benchmarks.jar NewBankBenchmark -prof gc
+ * </code>. Giving the number of threads with <code>-t</code> runs that number only.
+ */
+public class BenchmarkMain {
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions options = new CommandLineOptions(args);
+    if (options.shouldHelp() || options.shouldList() || options.getThreads().hasValue()) {
+      Main.main(args);
+      return;
+    }
+
+    int processors = Runtime.getRuntime().availableProcessors();
+    List<RunResult> results = new ArrayList<>();
+    for (int threads : new TreeSet<>(Arrays.asList(1, 4, processors))) {
+      Options run = new OptionsBuilder().parent(options).threads(threads).build();
+      results.addAll(new Runner(run).run());
+    }
+
+    System.out.println();
+    System.out.println("All threads:");
+    ResultFormatFactory.getInstance(ResultFormatType.TEXT, System.out).writeOut(results);
+  }
+}
@@ -0,0 +1,89 @@
+package newbank.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import newbank.server.ClientSession;
+import newbank.server.NewBank;
+
+/**
+ * A request going through the whole command layer, as a session executes it: tokenizing, finding
+ * the command, checking its responsibilities, executing it and recording its statistics.
+ *
+ * <p>Each thread has its own session, logged in as its own customer. The payments all go to the
+ * same customer, and the requests which cannot succeed more than once measure their failure path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBenchmark {
+  private static final int CUSTOMERS = 1000;
+
+  @State(Scope.Benchmark)
+  public static class Bank {
+    final AtomicInteger sessions = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws Exception {
+      Population.ensureCustomers(CUSTOMERS);
+    }
+
+    @Setup(Level.Iteration)
+    public void forgetTransactions() {
+      Population.forgetTransactions(CUSTOMERS);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Session {
+    @Param({
+      "DEPOSIT Savings 1",
+      "MOVE Main Savings 1",
+      "PAY Bench0 1",
+      "SHOWMYACCOUNTS",
+      "DEFAULT Main",
+      "NEWACCOUNT Spare",
+      "REQUESTLOAN 100 30",
+      "OFFERLOAN 100 50 30",
+      "GRANTLOAN 1",
+      "LOGIN Bench0 Bench123",
+      "REGISTER Bench0 Bench123",
+      "STATS",
+      "HELP",
+      "PAY HELP",
+      "UNKNOWN"
+    })
+    String request;
+
+    ClientSession session;
+
+    @Setup
+    public void setUp(final Bank bank) {
+      // customer 0 receives the payments
+      int customer = 1 + bank.sessions.getAndIncrement() % (CUSTOMERS - 1);
+      session = new ClientSession(NewBank.getBank());
+      session.processRequest(
+          String.format("LOGIN %s %s", Population.username(customer), Population.PASSWORD));
+    }
+  }
+
+  @Benchmark
+  public String execute(final Session session) {
+    return session.session.processRequest(session.request);
+  }
+}
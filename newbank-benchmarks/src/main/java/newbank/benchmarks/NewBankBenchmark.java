@@ -0,0 +1,96 @@
+package newbank.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import newbank.server.Account;
+import newbank.server.BalanceMode;
+import newbank.server.Customer;
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+
+/**
+ * The bank's operations on random customers, amongst a given number of them. With few customers
+ * and many threads, the operations contend on the same customers. The amounts are a penny, which
+ * the opening balances cover for billions of operations.
+ *
+ * <p>The accounts keep their balances in each {@link BalanceMode}. Each trial runs in its own fork,
+ * so that the accounts are opened in the trial's mode.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class NewBankBenchmark {
+  @State(Scope.Benchmark)
+  public static class Bank {
+    @Param({"1000", "100000", "1000000"})
+    int customers;
+
+    @Param({"LOCKED", "ATOMIC"})
+    BalanceMode balanceMode;
+
+    final NewBank bank = NewBank.getBank();
+    CustomerID[] ids;
+    String[] usernames;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+      Account.setBalanceMode(balanceMode);
+      ids = Population.ensureCustomers(customers);
+      usernames = new String[customers];
+      for (int i = 0; i < customers; i++) {
+        usernames[i] = Population.username(i);
+      }
+    }
+
+    @Setup(Level.Iteration)
+    public void forgetTransactions() {
+      Population.forgetTransactions(customers);
+    }
+
+    int randomCustomer() {
+      return ThreadLocalRandom.current().nextInt(customers);
+    }
+  }
+
+  @Benchmark
+  public void payCustomer(final Bank bank) throws Exception {
+    int from = bank.randomCustomer();
+    int to = bank.randomCustomer();
+    if (from == to) {
+      to = (to + 1) % bank.customers;
+    }
+    bank.bank.payCustomer(bank.ids[from], bank.usernames[to], 1);
+  }
+
+  @Benchmark
+  public void moveMoney(final Bank bank) throws Exception {
+    bank.bank.moveMoney(bank.ids[bank.randomCustomer()], "Main", "Savings", 1);
+  }
+
+  @Benchmark
+  public void depositMoney(final Bank bank) throws Exception {
+    bank.bank.depositMoney(bank.ids[bank.randomCustomer()], "Savings", 1);
+  }
+
+  @Benchmark
+  public Optional<Customer> getCustomer(final Bank bank) {
+    return bank.bank.getCustomer(bank.usernames[bank.randomCustomer()]);
+  }
+}
@@ -0,0 +1,69 @@
+package newbank.benchmarks;
+
+import java.math.BigDecimal;
+
+import newbank.server.Account;
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+import newbank.server.TransactionHistory;
+import newbank.utils.MinorUnits;
+
+/**
+ * The customers the benchmarks work on, added to the bank's single instance.
+ *
+ * <p>Customer <code>Bench&lt;i&gt;</code> has a default "Main" account holding {@link
+ * #OPENING_BALANCE} and an empty "Savings" account, so that moving and paying small amounts never
+ * runs out of money. Their transaction histories are forgotten before each iteration, so that they
+ * do not grow for as long as the benchmarks run.
+ */
+final class Population {
+  static final String PASSWORD = "Bench123";
+  static final long OPENING_BALANCE = MinorUnits.of(BigDecimal.valueOf(1_000_000_000L));
+
+  private Population() {}
+
+  static String username(final int index) {
+    return "Bench" + index;
+  }
+
+  /**
+   * Add the customers missing from the bank, in case the benchmarks run in the same JVM.
+   *
+   * @param size The number of customers
+   * @return the identifiers of the customers, by index
+   */
+  static CustomerID[] ensureCustomers(final int size) throws Exception {
+    NewBank bank = NewBank.getBank();
+    CustomerID[] customers = new CustomerID[size];
+    for (int i = 0; i < size; i++) {
+      String username = username(i);
+      customers[i] = new CustomerID(username);
+      if (bank.getCustomer(username).isPresent()) {
+        continue;
+      }
+
+      bank.addCustomer(username, PASSWORD);
+      bank.newAccount(customers[i], "Main", true);
+      bank.newAccount(customers[i], "Savings", false);
+      bank.depositMoney(customers[i], "Main", OPENING_BALANCE);
+    }
+    return customers;
+  }
+
+  /**
+   * Forget the transactions of the customers' accounts made so far.
+   *
+   * @param size The number of customers
+   */
+  static void forgetTransactions(final int size) {
+    NewBank bank = NewBank.getBank();
+    for (int i = 0; i < size; i++) {
+      for (String accountName : new String[] {"Main", "Savings"}) {
+        bank.getCustomer(username(i))
+            .flatMap(customer -> customer.getAccount(accountName))
+            .map(Account::getHistory)
+            .ifPresent(TransactionHistory::forget);
+      }
+    }
+  }
+}
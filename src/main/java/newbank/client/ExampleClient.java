@@ -1,8 +1,10 @@
 package newbank.client;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Reader;
 import java.net.Socket;
@@ -23,6 +25,15 @@ import newbank.utils.Display;
 import static newbank.utils.Config.DEFAULT_IP;
 import static newbank.utils.Config.DEFAULT_PORT;
 
+/**
+ * A console client, sending the commands read from its input to the server and displaying the
+ * responses.
+ *
+ * <p>By default each command waits for its response before the next one is read, but for the
+ * requests of a batch which are sent together on END. In pipelined mode, the commands are sent
+ * without waiting for the responses, as many at a time as the input holds, so that a script piped
+ * into the client takes a single round trip.
+ */
 public class ExampleClient extends Thread {
 
   private final Socket server;
@@ -33,6 +44,8 @@ public class ExampleClient extends Thread {
   private final Lock lock = new ReentrantLock();
   private final Condition gotServerResponse = lock.newCondition();
   private boolean gotReply = false;
+  private boolean pipelined = false;
+  private boolean batching = false;
 
   /**
    * @param ip an ip address, or the loopback address
@@ -44,7 +57,8 @@ public class ExampleClient extends Thread {
       throws IOException, IllegalThreadStateException, ConfigurationException {
     server = getSocket(ip, port);
     userInput = new BufferedReader(reader);
-    bankServerOut = new PrintWriter(server.getOutputStream(), true);
+    bankServerOut =
+        new PrintWriter(new BufferedWriter(new OutputStreamWriter(server.getOutputStream())));
 
     bankServerResponseThread =
         new Thread() {
@@ -53,26 +67,28 @@ public class ExampleClient extends Thread {
 
           public void run() {
             while (true) {
-              String response = null;
               try {
-                response = bankServerIn.readLine();
-                gotReply = true;
+                String response = bankServerIn.readLine();
 
-                if (response == null) {
-                  break; // socket broken, end thread
+                if (response != null) {
+                  processResponse(response);
                 }
 
-                processResponse(response);
-
+                // the flag is only accessed with the lock held, so no signal can be missed
                 lock.lock();
-                gotServerResponse.signal();
+                try {
+                  gotReply = true;
+                  gotServerResponse.signal();
+                } finally {
+                  lock.unlock();
+                }
+
+                if (response == null) {
+                  break; // socket broken, end thread
+                }
               } catch (IOException e) {
                 e.printStackTrace();
                 return;
-              } finally {
-                if (response != null) {
-                  lock.unlock();
-                }
               }
             }
           }
@@ -103,6 +119,11 @@ public class ExampleClient extends Thread {
     this.display = display;
   }
 
+  /** @param pipelined Whether to send the commands without waiting for their responses */
+  public void setPipelined(boolean pipelined) {
+    this.pipelined = pipelined;
+  }
+
   /**
    * Tries to open a socket, but does some error-diagnosis if that fails
    *
@@ -137,27 +158,53 @@ public class ExampleClient extends Thread {
           break; // close client
         }
 
-        while (gotReply == false) {
-          lock.lock();
-          try {
+        if (pipelined) {
+          // flush once the commands available so far are all written
+          if (!userInput.ready()) {
+            bankServerOut.flush();
+          }
+          continue;
+        }
+        if (!awaitsReply(command)) {
+          continue;
+        }
+
+        bankServerOut.flush();
+        lock.lock();
+        try {
+          while (!gotReply) {
             gotServerResponse.await();
-          } catch (InterruptedException e) {
-            e.printStackTrace();
-            return;
-          } finally {
-            lock.unlock();
           }
+          gotReply = false;
+        } catch (InterruptedException e) {
+          e.printStackTrace();
+          return;
+        } finally {
+          lock.unlock();
         }
 
-        gotReply = false;
         displayHints();
         displayPrompt();
       }
+      bankServerOut.flush();
     } catch (IOException e) {
       e.printStackTrace();
     }
   }
 
+  // the requests of a batch get no response of their own, END answers them all
+  private boolean awaitsReply(final String command) {
+    String[] tokens = command.trim().split("\\s+");
+    if (batching) {
+      batching = !tokens[0].equalsIgnoreCase("END");
+    } else {
+      batching =
+          tokens[0].equalsIgnoreCase("BATCH")
+              && !(tokens.length > 1 && tokens[1].equalsIgnoreCase("HELP"));
+    }
+    return !batching;
+  }
+
   protected void displayPrompt() {
     display.write("$ ");
   }
@@ -221,7 +268,10 @@ public class ExampleClient extends Thread {
       // activate JANSI support
       AnsiConsole.systemInstall();
 
-      new ExampleClient(DEFAULT_IP, DEFAULT_PORT, new InputStreamReader(System.in)).start();
+      ExampleClient client =
+          new ExampleClient(DEFAULT_IP, DEFAULT_PORT, new InputStreamReader(System.in));
+      client.setPipelined(args.length > 0 && args[0].equalsIgnoreCase("pipelined"));
+      client.start();
     } catch (Exception e) {
       e.printStackTrace();
     }
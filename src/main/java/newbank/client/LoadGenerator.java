@@ -0,0 +1,307 @@
+package newbank.client;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import newbank.server.NewBank;
+import newbank.server.NewBankServer;
+import newbank.server.NioNewBankServer;
+import newbank.server.ServerMode;
+import newbank.utils.LatencyHistogram;
+
+/**
+ * Drive a server at a fixed rate of requests, whatever its response times, and report the latencies
+ * the clients see.
+ *
+ * <p>Each connection is logged in as its own customer, seeded with money, and sends its share of
+ * the requests on a fixed schedule, without waiting for the responses, which are read on another
+ * thread. A request's latency is measured from the time it was due to be sent rather than from the
+ * time it was sent: a server which stalls delays the requests scheduled meanwhile, and that delay
+ * counts in their latency instead of being omitted. Both latencies are reported.
+ *
+ * <p>Usage: <code>LoadGenerator [rate] [connections] [seconds] [mode] [mix]</code>, where the mix
+ * weighs the requests sent, e.g. {@value #DEFAULT_MIX}. The server is started on a free port, in
+ * sequencer mode with <code>-Dnewbank.sequencer=true</code>.
+ */
+public class LoadGenerator {
+  public static final String DEFAULT_MIX =
+      "PAY=30,MOVE=20,DEPOSIT=25,SHOWMYACCOUNTS=20,REQUESTLOAN=5";
+  private static final String SEED_AMOUNT = "1000000";
+
+  private final int rate;
+  private final int connections;
+  private final int seconds;
+  private final String[] kinds;
+  // the cumulated weights of the kinds
+  private final int[] weights;
+
+  private final LatencyHistogram corrected = new LatencyHistogram();
+  private final LatencyHistogram uncorrected = new LatencyHistogram();
+  private final AtomicLongArray sent;
+  private final AtomicLongArray failed;
+
+  /**
+   * @param rate The number of requests per second to send, over all connections
+   * @param connections The number of connections
+   * @param seconds How long to send requests for
+   * @param mix The weight of each kind of request, e.g. "PAY=3,DEPOSIT=1"
+   * @throws IllegalArgumentException if the mix names an unsupported request.
+   */
+  public LoadGenerator(int rate, int connections, int seconds, String mix) {
+    this.rate = rate;
+    this.connections = connections;
+    this.seconds = seconds;
+
+    String[] entries = mix.split(",");
+    kinds = new String[entries.length];
+    weights = new int[entries.length];
+    int total = 0;
+    for (int i = 0; i < entries.length; i++) {
+      String[] entry = entries[i].split("=");
+      kinds[i] = entry[0].trim().toUpperCase();
+      request(kinds[i], "Load0", 0);
+      total += Integer.parseInt(entry[1].trim());
+      weights[i] = total;
+    }
+    sent = new AtomicLongArray(kinds.length);
+    failed = new AtomicLongArray(kinds.length);
+  }
+
+  private static String username(int connection) {
+    return "Load" + connection;
+  }
+
+  // the request of a kind, made by the customer of a connection
+  private String request(String kind, String recipient, long sequence) {
+    switch (kind) {
+      case "PAY":
+        return "PAY " + recipient + " 0.01";
+      case "MOVE":
+        // back and forth, so that neither account runs out of money
+        return sequence % 2 == 0 ? "MOVE Main Savings 0.01" : "MOVE Savings Main 0.01";
+      case "DEPOSIT":
+        return "DEPOSIT Main 0.01";
+      case "SHOWMYACCOUNTS":
+        return "SHOWMYACCOUNTS";
+      case "REQUESTLOAN":
+        return "REQUESTLOAN 100 30";
+      default:
+        throw new IllegalArgumentException("Unsupported request in the mix: " + kind);
+    }
+  }
+
+  private int pickKind() {
+    int weight = ThreadLocalRandom.current().nextInt(weights[weights.length - 1]);
+    int kind = 0;
+    while (weights[kind] <= weight) {
+      kind++;
+    }
+    return kind;
+  }
+
+  /** A request sent, waiting for its response. */
+  private static final class Pending {
+    final int kind;
+    final long due;
+    final long sent;
+
+    Pending(int kind, long due, long sent) {
+      this.kind = kind;
+      this.due = due;
+      this.sent = sent;
+    }
+  }
+
+  /**
+   * Register, seed and log in a customer per connection, then send the requests and wait for all of
+   * their responses.
+   *
+   * @param port The port of the server, on the local host
+   */
+  public void run(int port) throws IOException, InterruptedException {
+    List<Socket> sockets = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    try {
+      List<PrintWriter> outs = new ArrayList<>();
+      List<BufferedReader> ins = new ArrayList<>();
+      for (int i = 0; i < connections; i++) {
+        Socket socket = new Socket("localhost", port);
+        // each request is a small packet of its own, which must not wait for the previous ack
+        socket.setTcpNoDelay(true);
+        sockets.add(socket);
+        outs.add(
+            new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))));
+        ins.add(new BufferedReader(new InputStreamReader(socket.getInputStream())));
+        seed(i, outs.get(i), ins.get(i));
+      }
+
+      long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+      long interval = TimeUnit.SECONDS.toNanos(connections) / rate;
+      for (int i = 0; i < connections; i++) {
+        Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+        PrintWriter out = outs.get(i);
+        BufferedReader in = ins.get(i);
+        // spread the connections' schedules over the interval
+        long first = start + interval * i / connections;
+        // the number of requests sent, once they all are
+        AtomicLong count = new AtomicLong(-1);
+
+        Thread receiver = new Thread(() -> receive(in, pending, count), "receiver-" + i);
+        Thread sender =
+            new Thread(
+                () -> count.set(send(out, pending, first, interval, start)),
+                "sender-" + i);
+        threads.add(sender);
+        threads.add(receiver);
+        receiver.start();
+        sender.start();
+      }
+
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      report(System.nanoTime() - start);
+    } finally {
+      for (Socket socket : sockets) {
+        socket.close();
+      }
+    }
+  }
+
+  private void seed(int connection, PrintWriter out, BufferedReader in) throws IOException {
+    String username = username(connection);
+    String password = username + "Pw1";
+    String[] setup = {
+      String.format("REGISTER %s %s", username, password),
+      String.format("LOGIN %s %s", username, password),
+      "NEWACCOUNT Main",
+      "NEWACCOUNT Savings",
+      "DEPOSIT Main " + SEED_AMOUNT,
+      "DEPOSIT Savings " + SEED_AMOUNT
+    };
+    for (String request : setup) {
+      out.println(request);
+      out.flush();
+      String response = in.readLine();
+      if (response == null || response.startsWith("FAIL")) {
+        throw new IOException(String.format("Cannot seed [%s]: %s", username, response));
+      }
+    }
+  }
+
+  // send the requests of a connection at their due times, and return how many were sent
+  private long send(PrintWriter out, Queue<Pending> pending, long first, long interval, long start) {
+    long end = start + TimeUnit.SECONDS.toNanos(seconds);
+    long sequence = 0;
+    for (long due = first; due < end; due += interval, sequence++) {
+      long now;
+      while ((now = System.nanoTime()) < due) {
+        LockSupport.parkNanos(due - now);
+      }
+
+      int kind = pickKind();
+      int recipient = ThreadLocalRandom.current().nextInt(connections);
+      pending.add(new Pending(kind, due, now));
+      out.println(request(kinds[kind], username(recipient), sequence));
+      out.flush();
+      sent.incrementAndGet(kind);
+    }
+    return sequence;
+  }
+
+  // read the responses of a connection, in the order of the requests, until the sender is done
+  private void receive(BufferedReader in, Queue<Pending> pending, AtomicLong count) {
+    long received = 0;
+    try {
+      while (true) {
+        Pending request = pending.poll();
+        if (request == null) {
+          if (received == count.get()) {
+            return;
+          }
+          LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+          continue;
+        }
+
+        String response = in.readLine();
+        if (response == null) {
+          return;
+        }
+        long now = System.nanoTime();
+        corrected.record(now - request.due);
+        uncorrected.record(now - request.sent);
+        if (response.startsWith("FAIL")) {
+          failed.incrementAndGet(request.kind);
+        }
+        received++;
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  private void report(long nanos) {
+    long total = corrected.getCount();
+    System.out.println(
+        String.format(
+            "target=%d/s connections=%d achieved=%.1f/s responses=%d",
+            rate, connections, total / (nanos / 1e9), total));
+    System.out.println(format("corrected", corrected));
+    System.out.println(format("uncorrected", uncorrected));
+    for (int i = 0; i < kinds.length; i++) {
+      System.out.println(
+          String.format("  %-15s sent=%d failed=%d", kinds[i], sent.get(i), failed.get(i)));
+    }
+  }
+
+  private static String format(String name, LatencyHistogram latencies) {
+    return String.format(
+        "%-12s p50=%dus p90=%dus p99=%dus p999=%dus max=%dus",
+        name,
+        toMicros(latencies.getValueAtPercentile(50)),
+        toMicros(latencies.getValueAtPercentile(90)),
+        toMicros(latencies.getValueAtPercentile(99)),
+        toMicros(latencies.getValueAtPercentile(99.9)),
+        toMicros(latencies.getMax()));
+  }
+
+  private static long toMicros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int rate = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+    int connections = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+    int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    ServerMode mode = args.length > 3 ? ServerMode.parse(args[3]) : ServerMode.THREAD;
+    String mix = args.length > 4 ? args[4] : DEFAULT_MIX;
+
+    if (Boolean.getBoolean("newbank.sequencer")) {
+      NewBank.getBank().startSequencer();
+    }
+
+    Thread server = mode.createServer(0);
+    server.setDaemon(true);
+    server.start();
+    int port =
+        server instanceof NewBankServer
+            ? ((NewBankServer) server).getPort()
+            : ((NioNewBankServer) server).getPort();
+
+    new LoadGenerator(rate, connections, seconds, mix).run(port);
+  }
+}
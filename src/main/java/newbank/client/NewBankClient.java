@@ -0,0 +1,346 @@
+package newbank.client;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import newbank.utils.Config;
+
+/**
+ * A programmatic client of the bank, for services making many concurrent calls.
+ *
+ * <p>The client holds a small pool of connections, all logged in as the same customer. Each call
+ * sends its request on the next connection in turn and returns at once, with a future completed
+ * by the response. The requests of a connection are pipelined: they are written as they come,
+ * flushed together, and their responses, which come back in the same order, complete the futures
+ * in that order. A connection which fails completes its pending futures exceptionally.
+ *
+ * <p>The server must not run in verbose mode, which adds lines to the responses.
+ */
+public class NewBankClient implements Closeable {
+  /** A response of the bank. */
+  public static final class Response {
+    private final String line;
+
+    Response(final String line) {
+      this.line = line;
+    }
+
+    /** @return false if the request failed, true otherwise */
+    public boolean isSuccess() {
+      return !line.startsWith("FAIL");
+    }
+
+    /** @return the response line, as sent by the server */
+    public String getLine() {
+      return line;
+    }
+
+    /** @return the lines of a multi-line response, without its status */
+    public List<String> getLines() {
+      String body = line.replaceFirst("^(SUCCESS|FAIL):\\s*", "");
+      List<String> lines = new ArrayList<>();
+      for (String part : body.split(Config.MULTILINE_INFO_SEPARATOR)) {
+        if (!part.isEmpty()) {
+          lines.add(part);
+        }
+      }
+      return lines;
+    }
+
+    @Override
+    public String toString() {
+      return line;
+    }
+  }
+
+  private final List<Connection> connections;
+  private final AtomicInteger next = new AtomicInteger();
+  private volatile boolean loggedIn;
+
+  /**
+   * Connect to a server.
+   *
+   * @param host The server's host
+   * @param port The server's port
+   * @param connections The number of connections to open
+   * @throws IOException if a connection cannot be opened.
+   */
+  public NewBankClient(final String host, final int port, final int connections)
+      throws IOException {
+    List<Connection> opened = new ArrayList<>();
+    try {
+      for (int i = 0; i < connections; i++) {
+        opened.add(new Connection(new Socket(host, port), i));
+      }
+    } catch (IOException e) {
+      for (Connection connection : opened) {
+        connection.close();
+      }
+      throw e;
+    }
+    this.connections = Collections.unmodifiableList(opened);
+  }
+
+  /**
+   * Log every connection in.
+   *
+   * @return the response of the first connection, or the first failure
+   */
+  public CompletableFuture<Response> login(final String username, final String password) {
+    return onEveryConnection(String.format("LOGIN %s %s", username, password))
+        .thenApply(
+            response -> {
+              loggedIn = response.isSuccess();
+              return response;
+            });
+  }
+
+  /** Log every connection out. */
+  public CompletableFuture<Response> logout() {
+    loggedIn = false;
+    return onEveryConnection("LOGOUT");
+  }
+
+  public CompletableFuture<Response> register(final String username, final String password) {
+    return send(String.format("REGISTER %s %s", username, password));
+  }
+
+  public CompletableFuture<Response> newAccount(final String accountName, final boolean isDefault) {
+    return send(String.format("NEWACCOUNT %s%s", accountName, isDefault ? " DEFAULT" : ""));
+  }
+
+  public CompletableFuture<Response> setDefaultAccount(final String accountName) {
+    return send("DEFAULT " + accountName);
+  }
+
+  public CompletableFuture<Response> showAccounts() {
+    return send("SHOWMYACCOUNTS");
+  }
+
+  /** Request the latest transactions of an account, at most the supplied count. */
+  public CompletableFuture<Response> statement(final String accountName, final int count) {
+    return send(String.format("STATEMENT %s %d", accountName, count));
+  }
+
+  public CompletableFuture<Response> deposit(final String accountName, final BigDecimal amount) {
+    return send(String.format("DEPOSIT %s %s", accountName, amount.toPlainString()));
+  }
+
+  public CompletableFuture<Response> move(
+      final String accountNameFrom, final String accountNameTo, final BigDecimal amount) {
+    return send(
+        String.format("MOVE %s %s %s", accountNameFrom, accountNameTo, amount.toPlainString()));
+  }
+
+  public CompletableFuture<Response> pay(final String recipientName, final BigDecimal amount) {
+    return send(String.format("PAY %s %s", recipientName, amount.toPlainString()));
+  }
+
+  public CompletableFuture<Response> requestLoan(final BigDecimal amount, final int days) {
+    return send(String.format("REQUESTLOAN %s %d", amount.toPlainString(), days));
+  }
+
+  public CompletableFuture<Response> requestLoan(
+      final BigDecimal amount, final int days, final BigDecimal maxInterestRate) {
+    return send(
+        String.format(
+            "REQUESTLOAN %s %d %s", amount.toPlainString(), days, maxInterestRate.toPlainString()));
+  }
+
+  public CompletableFuture<Response> offerLoan(
+      final BigDecimal amount, final BigDecimal interestRate, final int maxDays) {
+    return send(
+        String.format(
+            "OFFERLOAN %s %s %d", amount.toPlainString(), interestRate.toPlainString(), maxDays));
+  }
+
+  public CompletableFuture<Response> grantLoan(final String requestID) {
+    return send("GRANTLOAN " + requestID);
+  }
+
+  /**
+   * Send deposits, moves and payments as a single batch, answered by a single response.
+   *
+   * @param atomic Whether to apply either all of the requests or none of them
+   * @param requests The requests, e.g. "PAY John 10"
+   * @throws IllegalStateException if the client is not logged in: the server would answer each
+   *     request of the batch on its own.
+   */
+  public CompletableFuture<Response> batch(final boolean atomic, final List<String> requests) {
+    if (!loggedIn) {
+      throw new IllegalStateException("A batch needs a logged in client");
+    }
+
+    StringBuilder lines = new StringBuilder(atomic ? "BATCH ATOMIC" : "BATCH");
+    for (String request : requests) {
+      lines.append('\n').append(request);
+    }
+    lines.append("\nEND");
+    return send(lines.toString());
+  }
+
+  /**
+   * Send a request on the next connection.
+   *
+   * @param request A single request line
+   */
+  public CompletableFuture<Response> send(final String request) {
+    int index = Math.floorMod(next.getAndIncrement(), connections.size());
+    return connections.get(index).send(request);
+  }
+
+  // send the same request on every connection, and complete with the first response
+  private CompletableFuture<Response> onEveryConnection(final String request) {
+    CompletableFuture<?>[] responses = new CompletableFuture<?>[connections.size()];
+    for (int i = 0; i < responses.length; i++) {
+      responses[i] = connections.get(i).send(request);
+    }
+    return CompletableFuture.allOf(responses)
+        .thenApply(
+            done ->
+                Arrays.stream(responses)
+                    .map(response -> (Response) response.join())
+                    .filter(response -> !response.isSuccess())
+                    .findFirst()
+                    .orElse((Response) responses[0].join()));
+  }
+
+  /** End the sessions and close the connections. */
+  @Override
+  public void close() {
+    CompletableFuture<?>[] quits = new CompletableFuture<?>[connections.size()];
+    for (int i = 0; i < quits.length; i++) {
+      quits[i] = connections.get(i).send("QUIT");
+    }
+    try {
+      CompletableFuture.allOf(quits).get(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException e) {
+      // closing anyway
+    }
+    for (Connection connection : connections) {
+      connection.close();
+    }
+  }
+
+  /** A connection, with a thread writing its requests and another reading its responses. */
+  private static final class Connection {
+    private final Socket socket;
+    private final PrintWriter out;
+    private final BufferedReader in;
+    private final BlockingQueue<String> requests = new LinkedBlockingQueue<>();
+    private final Queue<CompletableFuture<Response>> pending = new ConcurrentLinkedQueue<>();
+    // the requests and their futures are queued together, so that both are in the same order
+    private final Object lock = new Object();
+    private volatile IOException failure;
+
+    Connection(final Socket socket, final int index) throws IOException {
+      this.socket = socket;
+      socket.setTcpNoDelay(true);
+      out =
+          new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())));
+      in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+      Thread writer = new Thread(this::write, "newbank-client-writer-" + index);
+      Thread reader = new Thread(this::read, "newbank-client-reader-" + index);
+      writer.setDaemon(true);
+      reader.setDaemon(true);
+      writer.start();
+      reader.start();
+    }
+
+    CompletableFuture<Response> send(final String request) {
+      CompletableFuture<Response> response = new CompletableFuture<>();
+      synchronized (lock) {
+        if (failure == null) {
+          pending.add(response);
+          requests.add(request);
+          return response;
+        }
+      }
+      response.completeExceptionally(failure);
+      return response;
+    }
+
+    // write the queued requests, flushing once the queue is empty
+    private void write() {
+      try {
+        while (true) {
+          out.println(requests.take());
+          String request;
+          while ((request = requests.poll()) != null) {
+            out.println(request);
+          }
+          out.flush();
+          if (out.checkError()) {
+            fail(new IOException("Cannot send the requests"));
+            return;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private void read() {
+      try {
+        String line;
+        while ((line = in.readLine()) != null) {
+          CompletableFuture<Response> response = pending.poll();
+          if (response != null) {
+            response.complete(new Response(line));
+          }
+        }
+        fail(new IOException("The server closed the connection"));
+      } catch (IOException e) {
+        fail(e);
+      }
+    }
+
+    private void fail(final IOException e) {
+      synchronized (lock) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+      CompletableFuture<Response> response;
+      while ((response = pending.poll()) != null) {
+        response.completeExceptionally(failure);
+      }
+    }
+
+    void close() {
+      try {
+        socket.shutdownOutput();
+      } catch (IOException e) {
+        // closed already
+      }
+      try {
+        socket.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+}
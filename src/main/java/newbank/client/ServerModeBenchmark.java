@@ -0,0 +1,237 @@
+package newbank.client;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import newbank.server.InProcessConnection;
+import newbank.server.NewBank;
+import newbank.server.NewBankServer;
+import newbank.server.NioNewBankServer;
+import newbank.server.ServerMode;
+import newbank.utils.VirtualThreads;
+
+/**
+ * Compare the server modes by running the same workload against each of them in turn.
+ *
+ * <p>For every mode, a server is started on a free port, a number of idle connections are opened
+ * and kept open, and a number of active clients send requests back to back for a fixed time. The
+ * throughput, the mean latency and the number of live platform threads are reported.
+ *
+ * <p>Usage: <code>ServerModeBenchmark [idle-connections] [active-clients] [seconds] [modes...]
+ * </code>. The bank runs in sequencer mode with <code>-Dnewbank.sequencer=true</code>, and the
+ * clients pipeline their requests, sending that many before reading the responses, with <code>
+ * -Dnewbank.pipeline=depth</code>. The mode <code>inprocess</code> runs the clients' requests on
+ * their own threads, through in-process connections, as a baseline without the network.
+ */
+public class ServerModeBenchmark {
+  private final int idleConnections;
+  private final int activeClients;
+  private final int seconds;
+  private final int pipelineDepth;
+
+  public ServerModeBenchmark(
+      int idleConnections, int activeClients, int seconds, int pipelineDepth) {
+    this.idleConnections = idleConnections;
+    this.activeClients = activeClients;
+    this.seconds = seconds;
+    this.pipelineDepth = pipelineDepth;
+  }
+
+  public void run(final ServerMode mode) throws IOException, InterruptedException {
+    Thread server = mode.createServer(0);
+    server.setDaemon(true);
+    server.start();
+    int port =
+        server instanceof NewBankServer
+            ? ((NewBankServer) server).getPort()
+            : ((NioNewBankServer) server).getPort();
+
+    List<Socket> idle = new ArrayList<>();
+    try {
+      for (int i = 0; i < idleConnections; i++) {
+        idle.add(new Socket("localhost", port));
+      }
+
+      LongAdder requests = new LongAdder();
+      LongAdder nanos = new LongAdder();
+      AtomicBoolean running = new AtomicBoolean(true);
+      CountDownLatch done = new CountDownLatch(activeClients);
+
+      for (int i = 0; i < activeClients; i++) {
+        String username = String.format("Bench%s%d", mode.name(), i);
+        Thread client =
+            new Thread(
+                () -> {
+                  try {
+                    runClient(port, username, running, requests, nanos);
+                  } catch (IOException e) {
+                    e.printStackTrace();
+                  } finally {
+                    done.countDown();
+                  }
+                });
+        client.setDaemon(true);
+        client.start();
+      }
+
+      Thread.sleep(seconds * 1000L);
+      int platformThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+      running.set(false);
+      done.await();
+
+      long count = requests.sum();
+      System.out.println(
+          String.format(
+              "%-8s idle=%-6d active=%-4d pipeline=%-4d requests/s=%-10.0f"
+                  + " mean latency=%8.1f us  platform threads=%d",
+              mode,
+              idleConnections,
+              activeClients,
+              pipelineDepth,
+              count / (double) seconds,
+              count == 0 ? 0.0 : nanos.sum() / (count * 1000.0),
+              platformThreads));
+    } finally {
+      for (Socket socket : idle) {
+        socket.close();
+      }
+    }
+  }
+
+  /** Run the workload without a server, each client on its own in-process connection. */
+  public void runInProcess() throws InterruptedException {
+    LongAdder requests = new LongAdder();
+    LongAdder nanos = new LongAdder();
+    AtomicBoolean running = new AtomicBoolean(true);
+    List<Thread> clients = new ArrayList<>();
+
+    for (int i = 0; i < activeClients; i++) {
+      String username = String.format("BenchInProcess%d", i);
+      Thread client = new Thread(() -> runInProcessClient(username, running, requests, nanos));
+      client.setDaemon(true);
+      client.start();
+      clients.add(client);
+    }
+
+    Thread.sleep(seconds * 1000L);
+    running.set(false);
+    for (Thread client : clients) {
+      client.join();
+    }
+
+    long count = requests.sum();
+    System.out.println(
+        String.format(
+            "%-8s active=%-4d requests/s=%-10.0f mean latency=%8.1f us",
+            "INPROCESS",
+            activeClients,
+            count / (double) seconds,
+            count == 0 ? 0.0 : nanos.sum() / (count * 1000.0)));
+  }
+
+  private void runInProcessClient(
+      String username, AtomicBoolean running, LongAdder requests, LongAdder nanos) {
+    InProcessConnection connection = new InProcessConnection();
+    String password = username + "Pw1";
+    connection.request(String.format("REGISTER %s %s", username, password));
+    connection.request(String.format("LOGIN %s %s", username, password));
+    connection.request("NEWACCOUNT Main");
+
+    String[] workload = {"DEPOSIT Main 10", "SHOWMYACCOUNTS"};
+    for (int i = 0; running.get(); i++) {
+      long start = System.nanoTime();
+      connection.request(workload[i % workload.length]);
+      nanos.add(System.nanoTime() - start);
+      requests.increment();
+    }
+    connection.request("QUIT");
+  }
+
+  private void runClient(
+      int port, String username, AtomicBoolean running, LongAdder requests, LongAdder nanos)
+      throws IOException {
+    try (Socket socket = new Socket("localhost", port)) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+      PrintWriter out =
+          new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())));
+
+      String password = username + "Pw1";
+      String[] setup = {
+        String.format("REGISTER %s %s", username, password),
+        String.format("LOGIN %s %s", username, password),
+        "NEWACCOUNT Main"
+      };
+      for (String request : setup) {
+        out.println(request);
+        out.flush();
+        in.readLine();
+      }
+
+      // each request of a round waits for the whole round
+      String[] workload = {"DEPOSIT Main 10", "SHOWMYACCOUNTS"};
+      for (int i = 0; running.get(); ) {
+        long start = System.nanoTime();
+        for (int j = 0; j < pipelineDepth; j++, i++) {
+          out.println(workload[i % workload.length]);
+        }
+        out.flush();
+        for (int j = 0; j < pipelineDepth; j++) {
+          if (in.readLine() == null) {
+            return;
+          }
+        }
+        nanos.add((System.nanoTime() - start) * pipelineDepth);
+        requests.add(pipelineDepth);
+      }
+      out.println("QUIT");
+      out.flush();
+    }
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int idleConnections = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    int activeClients = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+    int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+    List<ServerMode> modes = new ArrayList<>();
+    boolean inProcess = false;
+    for (int i = 3; i < args.length; i++) {
+      if (args[i].equalsIgnoreCase("inprocess")) {
+        inProcess = true;
+      } else {
+        modes.add(ServerMode.parse(args[i]));
+      }
+    }
+    if (modes.isEmpty() && !inProcess) {
+      modes.add(ServerMode.THREAD);
+      if (VirtualThreads.isSupported()) {
+        modes.add(ServerMode.VIRTUAL);
+      }
+    }
+
+    if (Boolean.getBoolean("newbank.sequencer")) {
+      NewBank.getBank().startSequencer();
+    }
+
+    ServerModeBenchmark benchmark =
+        new ServerModeBenchmark(
+            idleConnections, activeClients, seconds, Integer.getInteger("newbank.pipeline", 1));
+    if (inProcess) {
+      benchmark.runInProcess();
+    }
+    for (ServerMode mode : modes) {
+      benchmark.run(mode);
+    }
+  }
+}
@@ -1,10 +1,13 @@
 package newbank.server;
 
+import java.time.LocalDateTime;
+
 import org.javamoney.moneta.Money;
 
 import newbank.server.exceptions.AccountBalanceInsufficientException;
 import newbank.server.exceptions.AccountBalanceInvalidException;
 import newbank.server.exceptions.AccountNameInvalidException;
+import newbank.utils.MinorUnits;
 
 /**
  * Representation of a customer's account.
@@ -12,21 +15,49 @@ import newbank.server.exceptions.AccountNameInvalidException;
  * <p>An account is identified by a name and has a balance. An account can be the default account
  * for a customer which means that it will be used (by default) in various transactions. Note that a
  * Savings account cannot be used as the default current account.
+ *
+ * <p>The balance is kept in minor units of the bank's currency, see {@link MinorUnits}. How it is
+ * kept depends on the {@link BalanceMode} of the bank when the account is opened.
+ *
+ * <p>Every change of the balance is recorded in the account's {@link TransactionHistory}.
  */
 public class Account {
+  private static volatile BalanceMode balanceMode = BalanceMode.LOCKED;
+
   private String accountName;
-  private Money balance;
+  private AccountBalance balance;
+  private final TransactionHistory history = new TransactionHistory();
 
   public static final int MIN_NAME_LENGTH = 4;
   public static final int MAX_NAME_LENGTH = 12;
 
-  public Account(final String accountName, final Money openingBalance)
+  public Account(final String accountName, final long openingBalance)
       throws AccountBalanceInvalidException, AccountNameInvalidException {
     validateName(accountName);
     validateBalance(openingBalance);
 
     this.accountName = accountName;
-    this.balance = openingBalance;
+    this.balance = balanceMode.create(openingBalance);
+  }
+
+  public Account(final String accountName, final Money openingBalance)
+      throws AccountBalanceInvalidException, AccountNameInvalidException {
+    this(accountName, MinorUnits.of(openingBalance));
+  }
+
+  private Account() {}
+
+  /** Recreate an account saved in a snapshot, which was validated when it was opened. */
+  static Account restore(final String accountName, final long balance) {
+    Account account = new Account();
+    account.accountName = accountName;
+    account.balance = balanceMode.create(balance);
+    return account;
+  }
+
+  /** Set how the accounts opened from now on keep their balance. */
+  public static void setBalanceMode(final BalanceMode mode) {
+    balanceMode = mode;
   }
 
   public static boolean isSavingsAccount(final String accountName) {
@@ -44,16 +75,16 @@ public class Account {
     }
   }
 
-  private static void validateBalance(final Money openingBalance)
+  private static void validateBalance(final long openingBalance)
       throws AccountBalanceInvalidException {
-    if (openingBalance.isNegative()) {
+    if (openingBalance < 0) {
       throw new AccountBalanceInvalidException();
     }
   }
 
   public String toString() {
     return String.format(
-        "%s: %.2f %s", accountName, balance.getNumberStripped(), balance.getCurrency());
+        "%s: %s %s", accountName, MinorUnits.format(balance.get()), MinorUnits.CURRENCY);
   }
 
   public String getName() {
@@ -61,24 +92,100 @@ public class Account {
   }
 
   public Money getBalance() {
-    return balance;
+    return MinorUnits.toMoney(balance.get());
   }
 
-  public void moveMoneyToAccount(Account destination, Money amount)
-      throws AccountBalanceInsufficientException {
-    if (balance.isLessThan(amount)) {
-      throw new AccountBalanceInsufficientException(amount, this);
-    }
+  /** @return the balance in minor units */
+  public long getBalanceMinorUnits() {
+    return balance.get();
+  }
 
+  /** @return the account's transactions, to be read with their lock held */
+  public TransactionHistory getHistory() {
+    return history;
+  }
+
+  /**
+   * Move money to another account.
+   *
+   * <p>The money is debited first, which fails if the balance is insufficient, then credited to the
+   * destination. Should the credit fail, the money is credited back. No money is ever created, but
+   * with {@link BalanceMode#ATOMIC} balances a thread which does not lock the customers may see the
+   * amount in neither account in the meantime.
+   *
+   * @param destination The account to credit
+   * @param amount The amount to move, in minor units
+   * @throws AccountBalanceInsufficientException if this account's balance is lower than the amount.
+   * @throws AccountBalanceInvalidException if the destination's balance would overflow.
+   */
+  public void moveMoneyToAccount(Account destination, long amount)
+      throws AccountBalanceInsufficientException, AccountBalanceInvalidException {
     debit(amount);
-    destination.credit(amount);
+    try {
+      destination.credit(amount);
+    } catch (AccountBalanceInvalidException e) {
+      balance.undoDebit(amount);
+      throw e;
+    }
+  }
+
+  /**
+   * Move money to another account as {@link #moveMoneyToAccount(Account, long)} does, and record
+   * the transaction in both accounts, each with the balance its own change left.
+   *
+   * @param time When it is made
+   * @param counterparty The other party recorded by this account
+   * @param destinationCounterparty The other party recorded by the destination
+   */
+  void moveMoneyToAccount(
+      final Account destination,
+      final long amount,
+      final LocalDateTime time,
+      final String counterparty,
+      final String destinationCounterparty)
+      throws AccountBalanceInsufficientException, AccountBalanceInvalidException {
+    long left = debit(amount);
+    long credited;
+    try {
+      credited = destination.credit(amount);
+    } catch (AccountBalanceInvalidException e) {
+      balance.undoDebit(amount);
+      throw e;
+    }
+    history.add(time, counterparty, -amount, left);
+    destination.history.add(time, destinationCounterparty, amount, credited);
   }
 
-  public void credit(final Money amount) {
-    balance = balance.add(amount);
+  /**
+   * @param amount The amount to credit, in minor units
+   * @return the balance once credited
+   * @throws AccountBalanceInvalidException if the balance would overflow.
+   */
+  public long credit(final long amount) throws AccountBalanceInvalidException {
+    return balance.credit(amount);
   }
 
-  public void debit(final Money amount) {
-    balance = balance.subtract(amount);
+  /**
+   * Credit an amount and record the transaction, with the balance the credit left.
+   *
+   * @param time When it is made
+   * @param counterparty The other party, see {@link Transaction#getCounterparty()}
+   */
+  void credit(final long amount, final LocalDateTime time, final String counterparty)
+      throws AccountBalanceInvalidException {
+    history.add(time, counterparty, amount, credit(amount));
+  }
+
+  /**
+   * @param amount The amount to debit, in minor units
+   * @return the balance once debited
+   * @throws AccountBalanceInsufficientException if the balance is lower than the amount.
+   */
+  public long debit(final long amount) throws AccountBalanceInsufficientException {
+    long left = balance.tryDebit(amount);
+    if (left < 0) {
+      throw new AccountBalanceInsufficientException(amount, this);
+    }
+    return left;
   }
 }
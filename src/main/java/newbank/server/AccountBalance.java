@@ -0,0 +1,31 @@
+package newbank.server;
+
+import newbank.server.exceptions.AccountBalanceInvalidException;
+
+/**
+ * The balance of an account, in minor units of the bank's currency. It is never negative.
+ *
+ * @see BalanceMode
+ */
+public interface AccountBalance {
+  long get();
+
+  /**
+   * @param amount The amount to credit
+   * @return the balance this credit left, whatever the changes made since
+   * @throws AccountBalanceInvalidException if the balance would overflow, leaving it unchanged.
+   */
+  long credit(long amount) throws AccountBalanceInvalidException;
+
+  /**
+   * Debit an amount if the balance is sufficient, as a single step.
+   *
+   * @param amount The amount to debit
+   * @return the balance this debit left, or -1 if the balance is lower than the amount, leaving it
+   *     unchanged.
+   */
+  long tryDebit(long amount);
+
+  /** Credit back an amount just debited, which cannot fail. */
+  void undoDebit(long amount);
+}
@@ -0,0 +1,53 @@
+package newbank.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import newbank.server.exceptions.AccountBalanceInvalidException;
+
+/**
+ * A balance changed by compare-and-set, which needs no lock: a debit checks the funds and takes
+ * them in the same atomic step.
+ */
+final class AtomicBalance implements AccountBalance {
+  private final AtomicLong balance;
+
+  AtomicBalance(final long balance) {
+    this.balance = new AtomicLong(balance);
+  }
+
+  @Override
+  public long get() {
+    return balance.get();
+  }
+
+  @Override
+  public long credit(final long amount) throws AccountBalanceInvalidException {
+    long current;
+    long updated;
+    do {
+      current = balance.get();
+      updated = current + amount;
+      if (((current ^ updated) & (amount ^ updated)) < 0) {
+        throw new AccountBalanceInvalidException();
+      }
+    } while (!balance.compareAndSet(current, updated));
+    return updated;
+  }
+
+  @Override
+  public long tryDebit(final long amount) {
+    long current;
+    do {
+      current = balance.get();
+      if (current < amount) {
+        return -1;
+      }
+    } while (!balance.compareAndSet(current, current - amount));
+    return current - amount;
+  }
+
+  @Override
+  public void undoDebit(final long amount) {
+    balance.addAndGet(amount);
+  }
+}
@@ -0,0 +1,32 @@
+package newbank.server;
+
+/** The ways an account can keep its balance, see {@link Account#setBalanceMode(BalanceMode)}. */
+public enum BalanceMode {
+  /** A plain balance, only changed with the customer locked. */
+  LOCKED {
+    @Override
+    public AccountBalance create(final long balance) {
+      return new LockedBalance(balance);
+    }
+  },
+
+  /** An atomic balance, which can be credited and debited by several threads without locking. */
+  ATOMIC {
+    @Override
+    public AccountBalance create(final long balance) {
+      return new AtomicBalance(balance);
+    }
+  };
+
+  /** @param balance The opening balance, in minor units */
+  public abstract AccountBalance create(final long balance);
+
+  /**
+   * Parse a balance mode given on the command line, ignoring case.
+   *
+   * @throws IllegalArgumentException if there is no such mode
+   */
+  public static BalanceMode parse(final String mode) {
+    return valueOf(mode.toUpperCase());
+  }
+}
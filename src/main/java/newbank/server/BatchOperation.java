@@ -0,0 +1,73 @@
+package newbank.server;
+
+/**
+ * A change to a customer's accounts, to apply with others in a single batch by {@link
+ * NewBank#applyBatch}. Once applied, the operation holds its outcome.
+ */
+public final class BatchOperation {
+  /** The outcome of an operation. */
+  public enum Status {
+    PENDING,
+    APPLIED,
+    FAILED,
+    ROLLED_BACK,
+    SKIPPED
+  }
+
+  enum Type {
+    DEPOSIT,
+    MOVE,
+    PAY
+  }
+
+  final Type type;
+  // the account names, or the recipient's username for a payment
+  final String first;
+  final String second;
+  final long amount;
+  Customer recipient;
+  private Status status = Status.PENDING;
+  private Exception failure;
+
+  private BatchOperation(
+      final Type type, final String first, final String second, final long amount) {
+    this.type = type;
+    this.first = first;
+    this.second = second;
+    this.amount = amount;
+  }
+
+  /** @see NewBank#depositMoney */
+  public static BatchOperation deposit(final String accountName, final long amount) {
+    return new BatchOperation(Type.DEPOSIT, accountName, null, amount);
+  }
+
+  /** @see NewBank#moveMoney */
+  public static BatchOperation move(
+      final String accountNameFrom, final String accountNameTo, final long amount) {
+    return new BatchOperation(Type.MOVE, accountNameFrom, accountNameTo, amount);
+  }
+
+  /** @see NewBank#payCustomer */
+  public static BatchOperation pay(final String recipientName, final long amount) {
+    return new BatchOperation(Type.PAY, recipientName, null, amount);
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  /** @return the exception the operation failed with, or null if it did not fail. */
+  public Exception getFailure() {
+    return failure;
+  }
+
+  void setStatus(final Status status) {
+    this.status = status;
+  }
+
+  void fail(final Exception failure) {
+    this.status = Status.FAILED;
+    this.failure = failure;
+  }
+}
@@ -0,0 +1,85 @@
+package newbank.server;
+
+import newbank.server.commands.BatchCommand;
+import newbank.server.commands.Command;
+import newbank.server.commands.CommandRegistry;
+import newbank.server.commands.RegisteredCommand;
+import newbank.server.commands.RequestTokens;
+
+/**
+ * The state of a single client session: the logged in customer.
+ *
+ * <p>A session is transport agnostic, it turns one request line into one response line. Requests
+ * belonging to the same session must be processed one at a time and in order.
+ *
+ * <p>The requests from a BATCH request to the next END request are collected, and answered at once
+ * on END: they get no response of their own.
+ */
+public class ClientSession {
+  private final NewBank bank;
+  private final CustomerID customer = new CustomerID();
+  // reused for every request of the session
+  private final RequestTokens tokens = new RequestTokens();
+  private boolean open = true;
+  // the batch being collected, and the command registered for it
+  private BatchCommand batch;
+  private RegisteredCommand batchCommand;
+
+  public ClientSession(final NewBank bank) {
+    this.bank = bank;
+  }
+
+  /**
+   * Execute a single request.
+   *
+   * @param request The request line, without its line terminator
+   * @return the response line, or null for a request of a batch which does not end it
+   */
+  public String processRequest(final String request) {
+    if (batch != null) {
+      return continueBatch(request);
+    }
+
+    tokens.tokenize(request);
+    final RegisteredCommand command = CommandRegistry.get(tokens);
+
+    if (request.equals("QUIT")) {
+      open = false;
+    }
+
+    long start = System.nanoTime();
+    final Command made = command.makeCommand(bank, tokens, customer);
+    String response;
+    if (made instanceof BatchCommand) {
+      response = ((BatchCommand) made).open();
+      if (response.isEmpty()) {
+        batch = (BatchCommand) made;
+        batchCommand = command;
+        return null;
+      }
+    } else {
+      response = made.execute();
+    }
+    command.getStats().record(System.nanoTime() - start, response);
+    return response;
+  }
+
+  private String continueBatch(final String request) {
+    if (!BatchCommand.isEnd(request)) {
+      batch.add(request);
+      return null;
+    }
+
+    long start = System.nanoTime();
+    String response = batch.execute();
+    batchCommand.getStats().record(System.nanoTime() - start, response);
+    batch = null;
+    batchCommand = null;
+    return response;
+  }
+
+  /** @return false once the client has asked to end the session, true otherwise. */
+  public boolean isOpen() {
+    return open;
+  }
+}
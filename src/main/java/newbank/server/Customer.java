@@ -1,11 +1,17 @@
 package newbank.server;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import newbank.server.exceptions.AccountInvalidException;
 import newbank.server.exceptions.AccountTypeInvalidException;
 import newbank.server.exceptions.CustomerMaxAccountsException;
+import newbank.server.journal.HistoryLog;
+import newbank.server.journal.SnapshotReader;
+import newbank.server.journal.SnapshotWriter;
 import newbank.server.microloans.UserLoanHistory;
 
 import static newbank.utils.Config.MAX_ACCOUNTS;
@@ -13,11 +19,23 @@ import static newbank.utils.Config.MULTILINE_INFO_SEPARATOR;
 
 public class Customer {
   private String username;
-  private String password;
+  private final PasswordHash password;
   private final ArrayList<Account> accounts;
   private Optional<Account> defaultAccount;
+  private final Lock lock = new ReentrantLock();
+  private final UserLoanHistory loanHistory = new UserLoanHistory(this);
+  // the accounts as the bank last published them, read without locking
+  private volatile String publishedAccounts;
+  // the customer as of the snapshot being taken, kept before they were changed since it started
+  private Image snapshotImage;
+  // the position of the snapshot which the customer was kept or left out for
+  private long snapshotPosition = -1;
 
   public Customer(final String username, final String password) {
+    this(username, PasswordHash.of(password));
+  }
+
+  Customer(final String username, final PasswordHash password) {
     this.username = username;
     this.password = password;
     accounts = new ArrayList<>();
@@ -37,6 +55,16 @@ public class Customer {
     return s.toString();
   }
 
+  /** Publish the accounts as they are now, the customer being locked. */
+  void publishAccounts() {
+    publishedAccounts = accountsToString();
+  }
+
+  /** @return the accounts as last published, or null if they never were */
+  String getPublishedAccounts() {
+    return publishedAccounts;
+  }
+
   public void addAccount(Account account)
       throws CustomerMaxAccountsException, AccountInvalidException, AccountTypeInvalidException {
     if (accounts.size() >= MAX_ACCOUNTS) {
@@ -54,8 +82,24 @@ public class Customer {
     return username;
   }
 
-  public String getPassword() {
-    return password;
+  /** @return true if the password is the customer's */
+  public boolean checkPassword(final String password) {
+    return this.password.matches(password);
+  }
+
+  /** @return the customer's password hash, encoded to be journaled or saved */
+  String getPasswordHash() {
+    return password.encode();
+  }
+
+  /**
+   * The lock guarding this customer's accounts and balances. The bank holds it while reading or
+   * changing them.
+   *
+   * @return the customer's lock
+   */
+  public Lock getLock() {
+    return lock;
   }
 
   public Optional<Account> getAccount(final String accountName) {
@@ -108,8 +152,142 @@ public class Customer {
     return defaultAccount.isPresent();
   }
 
+  /**
+   * The state of a customer to save in a snapshot, copied with the customer locked so that it can
+   * be encoded afterwards: their credentials, and their accounts' balances and number of
+   * transactions.
+   */
+  static final class Image {
+    private final Customer customer;
+    private final String passwordHash;
+    private final String[] accountNames;
+    private final long[] balances;
+    private final int[] historySizes;
+    private final int defaultIndex;
+
+    private Image(final Customer customer) {
+      this.customer = customer;
+      passwordHash = customer.password.encode();
+      int count = customer.accounts.size();
+      accountNames = new String[count];
+      balances = new long[count];
+      historySizes = new int[count];
+      int index = -1;
+      for (int i = 0; i < count; i++) {
+        Account account = customer.accounts.get(i);
+        accountNames[i] = account.getName();
+        balances[i] = account.getBalanceMinorUnits();
+        historySizes[i] = account.getHistory().size();
+        if (customer.defaultAccount.isPresent() && account == customer.defaultAccount.get()) {
+          index = i;
+        }
+      }
+      defaultIndex = index;
+    }
+
+    /**
+     * Encode the customer and their accounts, with the number of transactions they had, into a
+     * snapshot. The customer needs not be locked.
+     */
+    void writeTo(final SnapshotWriter out) throws IOException {
+      out.writeString(customer.username);
+      out.writeString(passwordHash);
+      out.writeInt(accountNames.length);
+      for (int i = 0; i < accountNames.length; i++) {
+        out.writeName(accountNames[i]);
+        out.writeLong(balances[i]);
+        out.writeBoolean(i == defaultIndex);
+        out.writeInt(historySizes[i]);
+      }
+    }
+
+    /**
+     * Append the transactions the accounts had which are not in the history log yet. The customer
+     * needs not be locked.
+     *
+     * @param position The journal position of the snapshot
+     * @param completedPosition The journal position of the latest completed snapshot
+     */
+    void writeHistories(final HistoryLog log, final long position, final long completedPosition)
+        throws IOException {
+      for (int i = 0; i < accountNames.length; i++) {
+        customer
+            .accounts
+            .get(i)
+            .getHistory()
+            .writeTo(
+                log,
+                customer.username,
+                accountNames[i],
+                historySizes[i],
+                position,
+                completedPosition);
+      }
+    }
+  }
+
+  /**
+   * Keep the customer as they are for the snapshot being taken at a journal position, unless they
+   * were kept already, before they are changed. The customer must be locked.
+   */
+  void preserveFor(final long position) {
+    if (snapshotPosition != position) {
+      snapshotPosition = position;
+      snapshotImage = new Image(this);
+    }
+  }
+
+  /**
+   * Leave a customer out of the snapshot being taken at a journal position, as they registered
+   * after it. The customer must be locked.
+   */
+  void excludeFrom(final long position) {
+    snapshotPosition = position;
+    snapshotImage = null;
+  }
+
+  /**
+   * Copy the customer as they were at the journal position of the snapshot being taken, once. The
+   * customer must be locked.
+   *
+   * @return the customer's image, or null if they registered after the position
+   */
+  Image imageAt(final long position) {
+    Image image = snapshotPosition == position ? snapshotImage : new Image(this);
+    snapshotPosition = position;
+    snapshotImage = null;
+    return image;
+  }
+
+  /** Decode a customer written by {@link Image#writeTo(SnapshotWriter)}. */
+  static Customer readFrom(final SnapshotReader in) throws IOException {
+    Customer customer = new Customer(in.readString(), PasswordHash.decode(in.readString()));
+    for (int count = in.readInt(); count > 0; count--) {
+      Account account = Account.restore(in.readName(), in.readLong());
+      customer.accounts.add(account);
+      if (in.readBoolean()) {
+        customer.defaultAccount = Optional.of(account);
+      }
+      account.getHistory().expectSaved(in.readInt());
+    }
+    return customer;
+  }
+
+  /**
+   * @return true if the accounts have read as many transactions from the history log as the
+   *     snapshot recorded
+   */
+  boolean historiesAreComplete() {
+    for (Account account : accounts) {
+      if (!account.getHistory().isComplete()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public UserLoanHistory getLoanHistory() {
-    return new UserLoanHistory(this);
+    return loanHistory;
   }
 
   @Override
@@ -117,7 +295,6 @@ public class Customer {
     StringBuilder sb = new StringBuilder();
     sb.append(this.getClass().getName() + "[");
     sb.append("username=" + username + ", ");
-    sb.append("password=" + password + ", ");
     sb.append("accounts=" + this.accountsToString());
     sb.append("]");
     return sb.toString();
@@ -0,0 +1,40 @@
+package newbank.server;
+
+/**
+ * A connection to the bank from within its own process, without a server or a socket.
+ *
+ * <p>Each request is executed on the calling thread by the same session logic as a client
+ * connection's, and its response is returned. A connection is not thread safe: as over a socket,
+ * its requests must be sent one at a time. Use a connection per thread instead.
+ */
+public class InProcessConnection {
+  private final ClientSession session;
+
+  /** Connect to the bank's single instance. */
+  public InProcessConnection() {
+    this(NewBank.getBank());
+  }
+
+  public InProcessConnection(final NewBank bank) {
+    session = new ClientSession(bank);
+  }
+
+  /**
+   * Execute a request and return its response.
+   *
+   * @param request The request line, e.g. "DEPOSIT Main 10"
+   * @return the response line, or null for a request of a batch which does not end it
+   * @throws IllegalStateException if the connection has been quit.
+   */
+  public String request(final String request) {
+    if (!session.isOpen()) {
+      throw new IllegalStateException("The connection has been quit");
+    }
+    return session.processRequest(request);
+  }
+
+  /** @return false once the connection has been quit, true otherwise. */
+  public boolean isOpen() {
+    return session.isOpen();
+  }
+}
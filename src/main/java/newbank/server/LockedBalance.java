@@ -0,0 +1,42 @@
+package newbank.server;
+
+import newbank.server.exceptions.AccountBalanceInvalidException;
+import newbank.utils.MinorUnits;
+
+/** A plain balance, guarded by the lock of the account's customer. */
+final class LockedBalance implements AccountBalance {
+  private long balance;
+
+  LockedBalance(final long balance) {
+    this.balance = balance;
+  }
+
+  @Override
+  public long get() {
+    return balance;
+  }
+
+  @Override
+  public long credit(final long amount) throws AccountBalanceInvalidException {
+    try {
+      balance = MinorUnits.add(balance, amount);
+    } catch (ArithmeticException e) {
+      throw new AccountBalanceInvalidException();
+    }
+    return balance;
+  }
+
+  @Override
+  public long tryDebit(final long amount) {
+    if (balance < amount) {
+      return -1;
+    }
+    balance -= amount;
+    return balance;
+  }
+
+  @Override
+  public void undoDebit(final long amount) {
+    balance += amount;
+  }
+}
@@ -1,7 +1,23 @@
 package newbank.server;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import org.javamoney.moneta.Money;
 
@@ -13,21 +29,94 @@ import newbank.server.exceptions.AccountTypeInvalidException;
 import newbank.server.exceptions.CustomerInvalidException;
 import newbank.server.exceptions.CustomerMaxAccountsException;
 import newbank.server.exceptions.DuplicateCustomerException;
+import newbank.server.exceptions.LoanRequestInvalidException;
 import newbank.server.exceptions.PasswordInvalidException;
 import newbank.server.exceptions.UsernameInvalidException;
+import newbank.server.journal.FileJournal;
+import newbank.server.journal.HistoryLog;
+import newbank.server.journal.Journal;
+import newbank.server.journal.JournalFiles;
+import newbank.server.journal.JournalReader;
+import newbank.server.journal.JournalRecord;
+import newbank.server.journal.SnapshotReader;
+import newbank.server.journal.SnapshotWriter;
+import newbank.server.microloans.LoanOffer;
+import newbank.server.microloans.LoanOrderBook;
+import newbank.server.microloans.LoanProposals;
+import newbank.server.microloans.LoanRequest;
+import newbank.server.microloans.Loans;
+import newbank.server.microloans.MicroLoan;
+import newbank.utils.MinorUnits;
 
-import static newbank.utils.Config.DEFAULT_CURRENCY;
+import static newbank.utils.Config.ADMIN_PASSWORD_VARIABLE;
+import static newbank.utils.Config.ADMIN_USERNAME;
 import static newbank.utils.Config.MAX_ACCOUNTS;
+import static newbank.utils.Config.SEQUENCER_RING_SIZE;
+import static newbank.utils.Config.SNAPSHOT_INTERVAL_MINUTES;
 
+/**
+ * The bank holding all the customers and their accounts.
+ *
+ * <p>There is no bank-wide lock: each operation locks only the customers it works on (see {@link
+ * Customer#getLock()}), so that sessions of different customers do not block each other.
+ * Operations involving two customers lock them in a fixed order to avoid deadlocks.
+ *
+ * <p>Once a journal is opened, every change is appended to it while the customers are still locked,
+ * and is durable before the operation returns. The whole state is also saved in periodic snapshots.
+ * On startup the latest snapshot is loaded, and the journal records past it are replayed.
+ *
+ * <p>The changes of the balances are recorded in the accounts' transaction histories, at the time
+ * of their journal records, so that replaying them records the same transactions.
+ */
 public class NewBank {
   private static final NewBank bank = new NewBank();
-  private final HashMap<String, Customer> customers;
+  private final ConcurrentHashMap<String, Customer> customers;
+  // the same customers, keyed by their case-folded username
+  private final ConcurrentHashMap<String, Customer> customersByName;
+  private Journal journal = Journal.NONE;
+  private Path journalDirectory;
+  // the position of the latest snapshot, only used while taking snapshots
+  private long snapshotPosition;
+  // the transactions saved by the snapshots, and the length of the log the latest one saved
+  private HistoryLog historyLog;
+  private long historyLength;
+  // held while a snapshot takes its cut, during which the changes wait
+  private final Lock cutLock = new ReentrantLock();
+  private volatile boolean cutting;
+  // the position of the snapshot being taken, -1 otherwise
+  private volatile long snapshotCut = -1;
+  // held while a snapshot is taken
+  private final Lock snapshotLock = new ReentrantLock();
+  // applies the changes to the accounts in sequencer mode, null otherwise
+  private volatile Sequencer sequencer;
+  // the time of the journal record being replayed, null otherwise
+  private volatile LocalDateTime replayTime;
+  // the administrator's password as configured, null if there is no administrator
+  private final PasswordHash adminPassword;
 
   private NewBank() {
-    customers = new HashMap<>();
+    customers = new ConcurrentHashMap<>();
+    customersByName = new ConcurrentHashMap<>();
+    String password = System.getenv(ADMIN_PASSWORD_VARIABLE);
+    adminPassword = password == null || password.isEmpty() ? null : PasswordHash.of(password);
     addTestData();
   }
 
+  /*
+   * The administrator is a customer whose password is only taken from the environment, see
+   * Config.ADMIN_PASSWORD_VARIABLE, rather than from the journal or the snapshots. Without it, the
+   * administrator does not exist and nobody else can take their name.
+   */
+  private void registerAdmin() {
+    if (adminPassword != null && !customers.containsKey(ADMIN_USERNAME)) {
+      register(new Customer(ADMIN_USERNAME, adminPassword));
+    }
+  }
+
+  private static boolean isAdmin(final String username) {
+    return normalizeUsername(username).equals(normalizeUsername(ADMIN_USERNAME));
+  }
+
   private void addTestData() {
     try {
       Customer bhagy = new Customer("Bhagy", "Bhagy123");
@@ -35,19 +124,21 @@ public class NewBank {
       bhagy.addAccount(new Account("Main", Money.of(1000, "GBP")));
       bhagy.addAccount(new Account("Savings", Money.of(201.19, "GBP")));
 
-      customers.put("Bhagy", bhagy);
+      register(bhagy);
 
       Customer christina = new Customer("Christina", "Christina123");
 
       christina.addAccount(new Account("Savings", Money.of(1500, "GBP")));
 
-      customers.put("Christina", christina);
+      register(christina);
 
       Customer john = new Customer("John", "John123");
 
       john.addAccount(new Account("Checking", Money.of(250, "GBP")));
 
-      customers.put("John", john);
+      register(john);
+
+      registerAdmin();
     } catch (CustomerMaxAccountsException e) {
       System.err.println("FAIL: Maximum number of accounts is: " + MAX_ACCOUNTS);
       System.exit(1);
@@ -91,20 +182,384 @@ public class NewBank {
    */
   public void addCustomer(final String username, final String password)
       throws DuplicateCustomerException, PasswordInvalidException, UsernameInvalidException {
-    if (customers.containsKey(username)) {
+    if (isAdmin(username) || customersByName.containsKey(normalizeUsername(username))) {
       throw new DuplicateCustomerException();
     }
 
     validateUsername(username);
     validatePassword(password);
 
-    customers.put(username, new Customer(username, password));
+    journal.awaitDurable(journalRegistration(new Customer(username, password)));
+  }
+
+  // the password is only journaled as the customer keeps it, hashed
+  private long journalRegistration(final Customer customer) throws DuplicateCustomerException {
+    // hold the new customer's lock until it is journaled, so that its first changes follow it
+    customer.getLock().lock();
+    // a snapshot's cut does not wait for the customers it cannot see yet: registrations, which are
+    // rare, exclude it instead
+    cutLock.lock();
+    try {
+      // another session may have registered the same name in the meantime
+      if (!register(customer)) {
+        throw new DuplicateCustomerException();
+      }
+      long cut = snapshotCut;
+      if (cut >= 0) {
+        customer.excludeFrom(cut);
+      }
+
+      return journal.append(
+          record(
+              now(),
+              JournalRecord.Type.REGISTER,
+              customer.getUsername(),
+              customer.getPasswordHash()));
+    } finally {
+      cutLock.unlock();
+      customer.getLock().unlock();
+    }
+  }
+
+  /**
+   * Add a customer unless one with the same name, ignoring case, already exists.
+   *
+   * @return true if the customer was added, false if the name is taken
+   */
+  private boolean register(final Customer customer) {
+    if (customersByName.putIfAbsent(normalizeUsername(customer.getUsername()), customer) != null) {
+      return false;
+    }
+
+    customers.put(customer.getUsername(), customer);
+    return true;
+  }
+
+  /**
+   * Fold the case of a username, so that two names are equal once normalised exactly when {@link
+   * String#equalsIgnoreCase} considers them equal.
+   */
+  private static String normalizeUsername(final String username) {
+    StringBuilder normalized = new StringBuilder(username.length());
+    for (int i = 0; i < username.length(); i++) {
+      normalized.append(Character.toLowerCase(Character.toUpperCase(username.charAt(i))));
+    }
+    return normalized.toString();
   }
 
   public static NewBank getBank() {
     return bank;
   }
 
+  /**
+   * Rebuild the bank's state from the latest snapshot and the journal in the supplied directory,
+   * then record every change to the journal and take snapshots periodically. This must be done
+   * before serving any client.
+   *
+   * @param directory The directory holding the journal, created if needed
+   * @throws IOException if the journal cannot be read, or cannot be replayed.
+   */
+  public void openJournal(final Path directory) throws IOException {
+    Files.createDirectories(directory);
+    LoanProposals proposals = new LoanProposals();
+    proposals.suspendExpiry();
+
+    historyLog = new HistoryLog(directory);
+    historyLength = 0;
+    long position = 0;
+    List<Long> snapshots = JournalFiles.snapshots(directory);
+    if (!snapshots.isEmpty()) {
+      position = restore(JournalFiles.snapshot(directory, snapshots.get(snapshots.size() - 1)));
+    }
+    snapshotPosition = position;
+    // past the latest snapshot, the log holds what an incomplete snapshot appended
+    historyLog.truncate(historyLength);
+
+    // replay the records past the snapshot
+    List<Long> segments = JournalFiles.segments(directory);
+    long segment = position;
+    long validLength = 0;
+    for (int i = 0; i < segments.size(); i++) {
+      boolean last = i == segments.size() - 1;
+      if (!last && segments.get(i + 1) <= position) {
+        continue; // covered by the snapshot
+      }
+
+      segment = segments.get(i);
+      if (segment > position) {
+        throw new IOException("Journal records are missing before position " + segment);
+      }
+
+      Path file = JournalFiles.segment(directory, segment);
+      long recordPosition = segment;
+      try (JournalReader reader = new JournalReader(file)) {
+        JournalRecord record;
+        while ((record = reader.next()) != null) {
+          if (recordPosition++ >= position) {
+            replay(record);
+            position = recordPosition;
+          }
+        }
+        validLength = reader.getValidLength();
+      }
+
+      if (recordPosition < position) {
+        throw new IOException("Journal ends before the snapshot at position " + position);
+      }
+      if (!last && validLength != Files.size(file)) {
+        throw new IOException("Journal segment is corrupted: " + file);
+      }
+    }
+
+    journal = new FileJournal(directory, segment, validLength, position);
+    journalDirectory = directory;
+    proposals.resumeExpiry();
+
+    Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "snapshots");
+              thread.setDaemon(true);
+              return thread;
+            })
+        .scheduleWithFixedDelay(
+            () -> {
+              try {
+                takeSnapshot();
+              } catch (IOException e) {
+                // the journal still holds every change, it will just take longer to replay
+                System.err.println("FAIL: Cannot take a snapshot: " + e.getMessage());
+              }
+            },
+            SNAPSHOT_INTERVAL_MINUTES,
+            SNAPSHOT_INTERVAL_MINUTES,
+            TimeUnit.MINUTES);
+  }
+
+  /**
+   * Save the bank's state in a snapshot, then delete the journal segments and the snapshots which
+   * it makes obsolete.
+   *
+   * <p>Changes are only paused while the snapshot takes its cut: it waits for the changes in
+   * progress to be journaled, by locking each customer in turn, then starts a new journal segment
+   * and copies the loans. The customers are then copied one at a time, each with only its own lock
+   * held: a customer changed in the meantime is copied first, as it was when the snapshot started,
+   * and a customer registered in the meantime is left out, its registration being in the new
+   * segment.
+   *
+   * <p>The transactions are not copied: the snapshot only saves the number each account had, and
+   * appends the ones made since the previous snapshot to the {@link HistoryLog}, whose length it
+   * records once they are durable.
+   *
+   * @throws IOException if the snapshot cannot be written.
+   */
+  public void takeSnapshot() throws IOException {
+    if (journalDirectory == null) {
+      throw new IllegalStateException("No journal is open");
+    }
+
+    snapshotLock.lock();
+    try {
+      long position;
+      byte[] loans;
+      cutLock.lock();
+      try {
+        cutting = true;
+        // the changes which started before cannot have seen it, but hold their customers' locks
+        for (Customer customer : customers.values()) {
+          customer.getLock().lock();
+          customer.getLock().unlock();
+        }
+
+        position = journal.startSegment();
+        if (position == snapshotPosition) {
+          return; // nothing changed since the last snapshot
+        }
+
+        SnapshotWriter section = SnapshotWriter.section();
+        new LoanProposals().writeTo(section);
+        new Loans().writeTo(section);
+        loans = section.toByteArray();
+        snapshotCut = position;
+      } finally {
+        cutting = false;
+        cutLock.unlock();
+      }
+
+      long length;
+      historyLog.truncate(historyLength);
+      try (SnapshotWriter out = new SnapshotWriter(journalDirectory, position)) {
+        for (Customer customer : customers.values()) {
+          Customer.Image image;
+          Lock lock = customer.getLock();
+          lock.lock();
+          try {
+            image = customer.imageAt(position);
+          } finally {
+            lock.unlock();
+          }
+
+          if (image != null) {
+            out.writeBoolean(true);
+            image.writeTo(out);
+            image.writeHistories(historyLog, position, snapshotPosition);
+          }
+        }
+        out.writeBoolean(false);
+        out.writeSection(loans);
+        length = historyLog.force();
+        out.writeLong(length);
+        out.commit();
+      } finally {
+        snapshotCut = -1;
+      }
+
+      snapshotPosition = position;
+      historyLength = length;
+      JournalFiles.deleteBefore(journalDirectory, position);
+    } finally {
+      snapshotLock.unlock();
+    }
+  }
+
+  // replace the whole state with the one of a snapshot
+  private long restore(final Path file) throws IOException {
+    try (SnapshotReader in = new SnapshotReader(file)) {
+      customers.clear();
+      customersByName.clear();
+      while (in.readBoolean()) {
+        register(Customer.readFrom(in));
+      }
+      new LoanProposals().readFrom(in, customers::get);
+      new Loans().readFrom(in, customers::get);
+      historyLength = in.readLong();
+      historyLog.read(historyLength, this::restoreHistory);
+      for (Customer customer : customers.values()) {
+        if (!customer.historiesAreComplete()) {
+          throw new IOException("History log misses transactions of " + customer.getUsername());
+        }
+      }
+      registerAdmin();
+
+      return in.getPosition();
+    }
+  }
+
+  // add the transactions of a block of the history log to their account
+  private void restoreHistory(final HistoryLog.Block block) throws IOException {
+    String username = block.readString();
+    String accountName = block.readString();
+    Customer customer = customers.get(username);
+    Optional<Account> account =
+        customer == null ? Optional.empty() : customer.getAccount(accountName);
+    if (!account.isPresent()) {
+      throw new IOException(
+          String.format(
+              "History log has transactions of unknown account %s %s", username, accountName));
+    }
+    account.get().getHistory().readFrom(block);
+  }
+
+  /*
+   * Start a change of locked customers, keeping them as they are for the snapshot being taken. While
+   * a snapshot takes its cut, the customers are unlocked until it is taken, then locked again in
+   * the same order as lockBoth. Otherwise the change only reads two fields no change writes.
+   */
+  private void startChange(final Customer... changed) {
+    while (cutting) {
+      for (Customer customer : changed) {
+        customer.getLock().unlock();
+      }
+      cutLock.lock();
+      cutLock.unlock();
+
+      Customer[] ordered = changed.clone();
+      Arrays.sort(ordered, Comparator.comparing(Customer::getUsername));
+      for (Customer customer : ordered) {
+        customer.getLock().lock();
+      }
+    }
+
+    long cut = snapshotCut;
+    if (cut >= 0) {
+      for (Customer customer : changed) {
+        customer.preserveFor(cut);
+      }
+    }
+  }
+
+  // apply a journaled change again, through the same operations which first applied it
+  private void replay(final JournalRecord record) throws IOException {
+    CustomerID customerID = new CustomerID(record.getArgument(0));
+    replayTime = record.getTime();
+    try {
+      switch (record.getType()) {
+        case REGISTER:
+          journalRegistration(
+              new Customer(record.getArgument(0), PasswordHash.decode(record.getArgument(1))));
+          break;
+        case NEWACCOUNT:
+          String result =
+              newAccount(
+                  customerID, record.getArgument(1), Boolean.parseBoolean(record.getArgument(2)));
+          if (!result.startsWith("SUCCESS")) {
+            throw new IOException(result);
+          }
+          break;
+        case DEPOSIT:
+          depositMoney(customerID, record.getArgument(1), record.getLongArgument(2));
+          break;
+        case MOVE:
+          moveMoney(
+              customerID,
+              record.getArgument(1),
+              record.getArgument(2),
+              record.getLongArgument(3));
+          break;
+        case PAY:
+          payCustomer(customerID, record.getArgument(1), record.getLongArgument(2));
+          break;
+        case DEFAULT:
+          setDefaultAccount(customerID, record.getArgument(1));
+          break;
+        case REQUESTLOAN:
+          requestLoan(
+              customerID,
+              record.getLongArgument(1),
+              Integer.parseInt(record.getArgument(2)),
+              new BigDecimal(record.getArgument(3)),
+              record.getTime(),
+              false);
+          break;
+        case GRANTLOAN:
+          grantLoan(customerID, record.getArgument(1), record.getTime());
+          break;
+        case OFFERLOAN:
+          offerLoan(
+              customerID,
+              record.getLongArgument(1),
+              new BigDecimal(record.getArgument(2)),
+              Integer.parseInt(record.getArgument(3)),
+              record.getTime(),
+              false);
+          break;
+        case MATCHLOAN:
+          replayMatch(record);
+          break;
+        case WITHDRAWLOAN:
+          replayWithdrawal(record);
+          break;
+        default:
+          throw new IOException("Unknown journal record type " + record.getType());
+      }
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(String.format("Cannot replay journal record [%s]", record), e);
+    } finally {
+      replayTime = null;
+    }
+  }
+
   /**
    * Check customer's credentials.
    *
@@ -112,7 +567,7 @@ public class NewBank {
    * @param password The customer's password
    * @return A derived ID identifying the customer on success, or null otherwise
    */
-  public synchronized CustomerID checkLogInDetails(final String username, final String password) {
+  public CustomerID checkLogInDetails(final String username, final String password) {
     if (customers.containsKey(username)) {
       if (credentialsAreValid(username, password)) {
         return new CustomerID(username);
@@ -127,16 +582,114 @@ public class NewBank {
    * @param customerID The customer identifier
    * @return account information
    */
-  public synchronized String showAccountsFor(final CustomerID customerID) {
-    Customer customer = customers.get(customerID.getKey());
+  public String showAccountsFor(final CustomerID customerID) {
+    Customer customer = getCustomer(customerID);
+    String published = customer.getPublishedAccounts();
+    if (published != null) {
+      return published;
+    }
 
-    return customer.accountsToString();
+    Lock lock = customer.getLock();
+    lock.lock();
+    try {
+      return customer.accountsToString();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Read the transaction history of a customer's account, with the history locked.
+   *
+   * @param customerID The customer identifier
+   * @param accountName The account name
+   * @param reader Reads the history, which must not be used once it returns
+   * @return what the reader returns
+   * @throws AccountInvalidException if the customer's account does not exist.
+   */
+  public <T> T readHistory(
+      final CustomerID customerID,
+      final String accountName,
+      final Function<TransactionHistory, T> reader)
+      throws AccountInvalidException {
+    TransactionHistory history = getAccount(getCustomer(customerID), accountName).getHistory();
+    Lock lock = history.getLock();
+    lock.lock();
+    try {
+      return reader.apply(history);
+    } finally {
+      lock.unlock();
+    }
   }
 
   private boolean credentialsAreValid(final String username, final String password) {
     assert (customers.containsKey(username));
 
-    return customers.get(username).getPassword().equals(password);
+    if (username.equals(ADMIN_USERNAME)) {
+      return adminPassword != null && adminPassword.matches(password);
+    }
+    return customers.get(username).checkPassword(password);
+  }
+
+  private Customer getCustomer(final CustomerID customerID) {
+    return customers.get(customerID.getKey());
+  }
+
+  // lock two customers, always in the same order whichever is the originator
+  private static void lockBoth(final Customer a, final Customer b) {
+    boolean aFirst = a.getUsername().compareTo(b.getUsername()) <= 0;
+    (aFirst ? a : b).getLock().lock();
+    (aFirst ? b : a).getLock().lock();
+  }
+
+  private static void unlockBoth(final Customer a, final Customer b) {
+    a.getLock().unlock();
+    b.getLock().unlock();
+  }
+
+  /**
+   * Switch to sequencer mode: the changes to the accounts are then applied one at a time by a
+   * single {@link Sequencer} thread, and made durable in batches. The sessions read the accounts as
+   * the changes publish them, without locking.
+   *
+   * <p>The customer locks are still taken, uncontended, since the loans and the snapshots change
+   * and read the accounts outside of the sequencer.
+   */
+  public void startSequencer() {
+    if (sequencer == null) {
+      sequencer = new Sequencer(SEQUENCER_RING_SIZE, entry -> journal.awaitDurable(entry));
+    }
+  }
+
+  // apply a change on the sequencer in sequencer mode, otherwise at once, and wait for it to be durable
+  private Sequencer.Outcome apply(final Sequencer.Mutation mutation) {
+    if (sequencer != null) {
+      return sequencer.apply(mutation);
+    }
+
+    Sequencer.Outcome outcome = Sequencer.applyNow(mutation);
+    if (outcome.failure == null) {
+      journal.awaitDurable(outcome.entry);
+    }
+    return outcome;
+  }
+
+  // publish the accounts of a locked customer which changed, to be read without locking
+  private void publish(final Customer customer) {
+    if (sequencer != null) {
+      customer.publishAccounts();
+    }
+  }
+
+  // the time of a change, which is the time of its record while it is replayed
+  private LocalDateTime now() {
+    LocalDateTime time = replayTime;
+    return time != null ? time : LocalDateTime.now();
+  }
+
+  private static JournalRecord record(
+      final LocalDateTime time, final JournalRecord.Type type, final String... arguments) {
+    return new JournalRecord(time, type, arguments);
   }
 
   /**
@@ -148,18 +701,17 @@ public class NewBank {
    * @return A success indicator if the operation was successful, otherwise an error message
    * @throws AccountInvalidException
    */
-  public synchronized String newAccount(
+  public String newAccount(
       final CustomerID customerID, final String accountName, final boolean isDefault) {
-    Customer customer = customers.get(customerID.getKey());
-
+    Customer customer = getCustomer(customerID);
     try {
-      customer.addAccount(new Account(accountName, Money.of(0, DEFAULT_CURRENCY)));
-
-      if (isDefault) {
-        customer.setDefaultAccount(accountName);
-      }
-
-      return "SUCCESS: The account has been created successfully.";
+      apply(() -> addAccount(customer, accountName, isDefault))
+          .rethrow(CustomerMaxAccountsException.class)
+          .rethrow(AccountNameInvalidException.class)
+          .rethrow(AccountBalanceInvalidException.class)
+          .rethrow(AccountTypeInvalidException.class)
+          .rethrow(AccountInvalidException.class)
+          .getEntry();
     } catch (CustomerMaxAccountsException e) {
       return "FAIL: Maximum number of accounts is: " + MAX_ACCOUNTS;
     } catch (AccountNameInvalidException e) {
@@ -171,26 +723,48 @@ public class NewBank {
     } catch (AccountInvalidException e) {
       return String.format("FAIL: Account [%s] does not exist.", accountName);
     }
+
+    return "SUCCESS: The account has been created successfully.";
+  }
+
+  private long addAccount(final Customer customer, final String accountName, final boolean isDefault)
+      throws CustomerMaxAccountsException, AccountNameInvalidException,
+          AccountBalanceInvalidException, AccountTypeInvalidException, AccountInvalidException {
+    Lock lock = customer.getLock();
+    lock.lock();
+    startChange(customer);
+    try {
+      customer.addAccount(new Account(accountName, 0));
+
+      if (isDefault) {
+        customer.setDefaultAccount(accountName);
+      }
+
+      publish(customer);
+      return journal.append(
+          record(
+              now(),
+              JournalRecord.Type.NEWACCOUNT,
+              customer.getUsername(),
+              accountName,
+              Boolean.toString(isDefault)));
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
-   * Retrieves the customer with a given name.
+   * Retrieves the customer with a given name, ignoring case.
    *
-   * @param customerName
-   * @return
+   * @param customerName The customer's username
+   * @return the customer if found
    */
-  public synchronized Optional<Customer> getCustomer(final String customerName) {
-    return customers
-        .entrySet()
-        .stream()
-        .filter(e -> e.getValue().getUsername().equalsIgnoreCase(customerName))
-        .findFirst()
-        .map(e -> e.getValue());
+  public Optional<Customer> getCustomer(final String customerName) {
+    return Optional.ofNullable(customersByName.get(normalizeUsername(customerName)));
   }
 
-  private Account getAccount(final CustomerID customerID, final String accountName)
+  private Account getAccount(final Customer customer, final String accountName)
       throws AccountInvalidException {
-    Customer customer = customers.get(customerID.getKey());
     Optional<Account> account = customer.getAccount(accountName);
 
     return account.orElseThrow(
@@ -202,13 +776,40 @@ public class NewBank {
    *
    * @param customerID The customer identifier
    * @param accountName The account name
-   * @param money The amount to deposit
+   * @param amount The amount to deposit, in minor units
+   * @throws AccountInvalidException if the customer's account does not exist.
+   * @throws AccountBalanceInvalidException if the account's balance would overflow.
    */
-  public synchronized void depositMoney(
-      final CustomerID customerID, final String accountName, final Money money)
-      throws AccountInvalidException {
+  public void depositMoney(
+      final CustomerID customerID, final String accountName, final long amount)
+      throws AccountInvalidException, AccountBalanceInvalidException {
+    Customer customer = getCustomer(customerID);
+    apply(() -> deposit(customer, accountName, amount))
+        .rethrow(AccountInvalidException.class)
+        .rethrow(AccountBalanceInvalidException.class)
+        .getEntry();
+  }
 
-    getAccount(customerID, accountName).credit(money);
+  private long deposit(final Customer customer, final String accountName, final long amount)
+      throws AccountInvalidException, AccountBalanceInvalidException {
+    Lock lock = customer.getLock();
+    lock.lock();
+    startChange(customer);
+    try {
+      Account account = getAccount(customer, accountName);
+      LocalDateTime time = now();
+      account.credit(amount, time, TransactionHistory.DEPOSIT);
+      publish(customer);
+      return journal.append(
+          record(
+              time,
+              JournalRecord.Type.DEPOSIT,
+              customer.getUsername(),
+              accountName,
+              Long.toString(amount)));
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -217,19 +818,51 @@ public class NewBank {
    * @param customerID The customer identifier
    * @param accountNameFrom The account name from which the money is transferred
    * @param accountNameTo The account name to which the money is transferred
-   * @param money The amount to move
+   * @param amount The amount to move, in minor units
    */
-  public synchronized void moveMoney(
+  public void moveMoney(
       final CustomerID customerID,
       final String accountNameFrom,
       final String accountNameTo,
-      final Money money)
-      throws AccountInvalidException, AccountBalanceInsufficientException {
+      final long amount)
+      throws AccountInvalidException, AccountBalanceInsufficientException,
+          AccountBalanceInvalidException {
+    Customer customer = getCustomer(customerID);
+    apply(() -> move(customer, accountNameFrom, accountNameTo, amount))
+        .rethrow(AccountInvalidException.class)
+        .rethrow(AccountBalanceInsufficientException.class)
+        .rethrow(AccountBalanceInvalidException.class)
+        .getEntry();
+  }
 
-    Account accountFrom = getAccount(customerID, accountNameFrom);
-    Account accountTo = getAccount(customerID, accountNameTo);
+  private long move(
+      final Customer customer,
+      final String accountNameFrom,
+      final String accountNameTo,
+      final long amount)
+      throws AccountInvalidException, AccountBalanceInsufficientException,
+          AccountBalanceInvalidException {
+    Lock lock = customer.getLock();
+    lock.lock();
+    startChange(customer);
+    try {
+      Account accountFrom = getAccount(customer, accountNameFrom);
+      Account accountTo = getAccount(customer, accountNameTo);
 
-    accountFrom.moveMoneyToAccount(accountTo, money);
+      LocalDateTime time = now();
+      moveWithin(accountFrom, accountTo, amount, time);
+      publish(customer);
+      return journal.append(
+          record(
+              time,
+              JournalRecord.Type.MOVE,
+              customer.getUsername(),
+              accountNameFrom,
+              accountNameTo,
+              Long.toString(amount)));
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -240,11 +873,23 @@ public class NewBank {
    * @throws AccountInvalidException if the customer's account does not exist.
    * @throws AccountTypeInvalidException
    */
-  public synchronized void setDefaultAccount(final CustomerID customerID, final String accountName)
+  public void setDefaultAccount(final CustomerID customerID, final String accountName)
       throws AccountInvalidException, AccountTypeInvalidException {
-    Customer customer = customers.get(customerID.getKey());
-
-    customer.setDefaultAccount(accountName);
+    Customer customer = getCustomer(customerID);
+    long entry;
+    Lock lock = customer.getLock();
+    lock.lock();
+    startChange(customer);
+    try {
+      customer.setDefaultAccount(accountName);
+      publish(customer);
+      entry =
+          journal.append(
+              record(now(), JournalRecord.Type.DEFAULT, customer.getUsername(), accountName));
+    } finally {
+      lock.unlock();
+    }
+    journal.awaitDurable(entry);
   }
 
   /**
@@ -253,10 +898,15 @@ public class NewBank {
    * @param customerID The customer identifier
    * @return true if so, false otherwise.
    */
-  public synchronized boolean hasDefaultAccount(final CustomerID customerID) {
-    Customer customer = customers.get(customerID.getKey());
-
-    return customer.hasDefaultAccount();
+  public boolean hasDefaultAccount(final CustomerID customerID) {
+    Customer customer = getCustomer(customerID);
+    Lock lock = customer.getLock();
+    lock.lock();
+    try {
+      return customer.hasDefaultAccount();
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -265,29 +915,65 @@ public class NewBank {
    *
    * @param customerID The customer initiating the transaction
    * @param recipientName The customer receiving the funds
-   * @param money The amount of money to credit
+   * @param amount The amount of money to credit, in minor units
    * @throws AccountInvalidException If the recipient has no default current account.
    * @throws CustomerInvalidException If the recipient does not exist.
    * @throws AccountBalanceInsufficientException If the sender's account doesn't have sufficient balance.
+   * @throws AccountBalanceInvalidException If the recipient's balance would overflow.
    */
-  public synchronized void payCustomer(
-      final CustomerID customerID, final String recipientName, final Money money)
-      throws AccountInvalidException, CustomerInvalidException, AccountBalanceInsufficientException {
+  public void payCustomer(
+      final CustomerID customerID, final String recipientName, final long amount)
+      throws AccountInvalidException, CustomerInvalidException, AccountBalanceInsufficientException,
+          AccountBalanceInvalidException {
     Optional<Customer> recipient = getCustomer(recipientName);
 
     if (!recipient.isPresent()) {
       throw new CustomerInvalidException();
     }
 
-    Optional<Account> destinatorAccount = recipient.get().getDefaultAccount();
+    Customer originator = getCustomer(customerID);
+    apply(() -> pay(originator, recipient.get(), amount))
+        .rethrow(AccountInvalidException.class)
+        .rethrow(AccountBalanceInsufficientException.class)
+        .rethrow(AccountBalanceInvalidException.class)
+        .getEntry();
+  }
+
+  private long pay(final Customer originator, final Customer recipient, final long amount)
+      throws AccountInvalidException, AccountBalanceInsufficientException,
+          AccountBalanceInvalidException {
+    lockBoth(originator, recipient);
+    startChange(originator, recipient);
+    try {
+      LocalDateTime time = now();
+      transfer(originator, recipient, amount, time);
+      return journal.append(
+          record(
+              time,
+              JournalRecord.Type.PAY,
+              originator.getUsername(),
+              recipient.getUsername(),
+              Long.toString(amount)));
+    } finally {
+      unlockBoth(originator, recipient);
+    }
+  }
+
+  // move money between the default accounts of two customers, which must both be locked
+  private void transfer(
+      final Customer originator,
+      final Customer recipient,
+      final long amount,
+      final LocalDateTime time)
+      throws AccountInvalidException, AccountBalanceInsufficientException,
+          AccountBalanceInvalidException {
+    Optional<Account> destinatorAccount = recipient.getDefaultAccount();
 
     // check recipient's account
     if (!destinatorAccount.isPresent()) {
-      throw new AccountInvalidException(recipient.get().getUsername(), "<DEFAULT>");
+      throw new AccountInvalidException(recipient.getUsername(), "<DEFAULT>");
     }
 
-    Customer originator = customers.get(customerID.getKey());
-
     Optional<Account> originatorAccount = originator.getDefaultAccount();
 
     // check originator's account
@@ -295,13 +981,463 @@ public class NewBank {
       throw new AccountInvalidException(originator.getUsername(), "<DEFAULT>");
     }
 
-    // check originator's funds
-    if (originatorAccount.get().getBalance().isLessThan(money)) {
-      throw new AccountBalanceInsufficientException(money, originatorAccount.get());
+    // perform transaction, checking the originator's funds
+    originatorAccount
+        .get()
+        .moveMoneyToAccount(
+            destinatorAccount.get(), amount, time, recipient.getUsername(), originator.getUsername());
+    publish(originator);
+    publish(recipient);
+  }
+
+  /**
+   * Apply several deposits, moves and payments of a customer at once, in order, locking the
+   * customer and every recipient a single time. Each operation is journaled as if it had been made
+   * on its own, and the batch waits once for all of them to be durable.
+   *
+   * <p>Each operation holds its outcome afterwards. An operation failing does not stop the next
+   * ones, unless the batch is atomic: the operations applied already are then undone in reverse
+   * order, the remaining ones are skipped, and nothing is journaled.
+   *
+   * @param customerID The customer making the operations
+   * @param operations The operations, in the order to apply them
+   * @param atomic Whether to apply either all of the operations or none of them
+   * @return true if every operation was applied, false otherwise.
+   */
+  public boolean applyBatch(
+      final CustomerID customerID, final List<BatchOperation> operations, final boolean atomic) {
+    Customer customer = getCustomer(customerID);
+    // the customers to lock, in the same order as lockBoth
+    TreeMap<String, Customer> involved = new TreeMap<>();
+    involved.put(customer.getUsername(), customer);
+    for (BatchOperation operation : operations) {
+      if (operation.type == BatchOperation.Type.PAY) {
+        operation.recipient = getCustomer(operation.first).orElse(null);
+        if (operation.recipient != null) {
+          involved.put(operation.recipient.getUsername(), operation.recipient);
+        }
+      }
+    }
+
+    apply(() -> batch(customer, involved.values(), operations, atomic)).getEntry();
+    for (BatchOperation operation : operations) {
+      if (operation.getStatus() != BatchOperation.Status.APPLIED) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long batch(
+      final Customer customer,
+      final Collection<Customer> involved,
+      final List<BatchOperation> operations,
+      final boolean atomic) {
+    for (Customer locked : involved) {
+      locked.getLock().lock();
+    }
+    startChange(involved.toArray(new Customer[0]));
+    try {
+      List<JournalRecord> records = new ArrayList<>(operations.size());
+      boolean failed = false;
+      for (BatchOperation operation : operations) {
+        if (failed && atomic) {
+          operation.setStatus(BatchOperation.Status.SKIPPED);
+          continue;
+        }
+
+        try {
+          records.add(applyOperation(customer, operation));
+          operation.setStatus(BatchOperation.Status.APPLIED);
+        } catch (AccountInvalidException
+            | CustomerInvalidException
+            | AccountBalanceInsufficientException
+            | AccountBalanceInvalidException e) {
+          operation.fail(e);
+          failed = true;
+        }
+      }
+
+      if (failed && atomic) {
+        for (int i = operations.size() - 1; i >= 0; i--) {
+          BatchOperation operation = operations.get(i);
+          if (operation.getStatus() == BatchOperation.Status.APPLIED) {
+            undoOperation(customer, operation);
+            operation.setStatus(BatchOperation.Status.ROLLED_BACK);
+          }
+        }
+        records.clear();
+      }
+
+      for (Customer changed : involved) {
+        publish(changed);
+      }
+      long entry = 0;
+      for (JournalRecord record : records) {
+        entry = journal.append(record);
+      }
+      return entry;
+    } finally {
+      for (Customer locked : involved) {
+        locked.getLock().unlock();
+      }
+    }
+  }
+
+  // apply an operation of a batch, whose customers are locked, and return its journal record
+  private JournalRecord applyOperation(final Customer customer, final BatchOperation operation)
+      throws AccountInvalidException, CustomerInvalidException,
+          AccountBalanceInsufficientException, AccountBalanceInvalidException {
+    LocalDateTime time = now();
+    switch (operation.type) {
+      case DEPOSIT:
+        Account account = getAccount(customer, operation.first);
+        account.credit(operation.amount, time, TransactionHistory.DEPOSIT);
+        return record(
+            time,
+            JournalRecord.Type.DEPOSIT,
+            customer.getUsername(),
+            operation.first,
+            Long.toString(operation.amount));
+      case MOVE:
+        Account accountFrom = getAccount(customer, operation.first);
+        Account accountTo = getAccount(customer, operation.second);
+        moveWithin(accountFrom, accountTo, operation.amount, time);
+        return record(
+            time,
+            JournalRecord.Type.MOVE,
+            customer.getUsername(),
+            operation.first,
+            operation.second,
+            Long.toString(operation.amount));
+      default:
+        if (operation.recipient == null) {
+          throw new CustomerInvalidException();
+        }
+        transfer(customer, operation.recipient, operation.amount, time);
+        return record(
+            time,
+            JournalRecord.Type.PAY,
+            customer.getUsername(),
+            operation.recipient.getUsername(),
+            Long.toString(operation.amount));
+    }
+  }
+
+  /*
+   * Undo an applied operation of a batch, and forget its transactions. The operations applied after
+   * it have been undone already, so that the money it moved is back where it went and the reverse
+   * move cannot fail, and its transactions are the latest of their accounts.
+   */
+  private void undoOperation(final Customer customer, final BatchOperation operation) {
+    try {
+      switch (operation.type) {
+        case DEPOSIT:
+          Account account = getAccount(customer, operation.first);
+          account.debit(operation.amount);
+          account.getHistory().removeLast();
+          break;
+        case MOVE:
+          undoMove(
+              getAccount(customer, operation.first),
+              getAccount(customer, operation.second),
+              operation.amount);
+          break;
+        default:
+          undoMove(
+              customer.getDefaultAccount().get(),
+              operation.recipient.getDefaultAccount().get(),
+              operation.amount);
+      }
+    } catch (AccountInvalidException
+        | AccountBalanceInsufficientException
+        | AccountBalanceInvalidException e) {
+      throw new IllegalStateException("Cannot undo a batch operation", e);
+    }
+  }
+
+  private static void undoMove(final Account from, final Account to, final long amount)
+      throws AccountBalanceInsufficientException, AccountBalanceInvalidException {
+    to.moveMoneyToAccount(from, amount);
+    from.getHistory().removeLast();
+    to.getHistory().removeLast();
+  }
+
+  // move money between two accounts of a customer, each recording the other as its counterparty
+  private static void moveWithin(
+      final Account from, final Account to, final long amount, final LocalDateTime time)
+      throws AccountBalanceInsufficientException, AccountBalanceInvalidException {
+    from.moveMoneyToAccount(to, amount, time, to.getName(), from.getName());
+  }
+
+  /**
+   * Submit a loan request on behalf of a customer, and fund it from the current offers it matches.
+   *
+   * <p>A request is made at the highest yearly rate the borrower accepts. It is matched with the
+   * offers of that rate or lower, best rate first, and the loans are made at the offers' rates.
+   *
+   * @param customerID The borrower
+   * @param amount The amount requested, in minor units
+   * @param repaymentPeriod The repayment period in days
+   * @param maxAccrualRate The highest yearly interest rate of the loans, as a fraction
+   */
+  public void requestLoan(
+      final CustomerID customerID,
+      final long amount,
+      final int repaymentPeriod,
+      final BigDecimal maxAccrualRate) {
+    requestLoan(customerID, amount, repaymentPeriod, maxAccrualRate, LocalDateTime.now(), true);
+  }
+
+  private void requestLoan(
+      final CustomerID customerID,
+      final long amount,
+      final int repaymentPeriod,
+      final BigDecimal maxAccrualRate,
+      final LocalDateTime date,
+      final boolean match) {
+    Customer customer = getCustomer(customerID);
+    LoanRequest request = new LoanRequest(MinorUnits.toMoney(amount), customer, repaymentPeriod, date);
+    request.setAccrualRate(maxAccrualRate);
+    LoanOrderBook book = new LoanProposals().getOrderBook();
+    long entry;
+
+    book.getLock().lock();
+    try {
+      Lock lock = customer.getLock();
+      lock.lock();
+      startChange(customer);
+      try {
+        customer.getLoanHistory().addLoanRequest(request);
+        entry =
+            journal.append(
+                new JournalRecord(
+                    date,
+                    JournalRecord.Type.REQUESTLOAN,
+                    customer.getUsername(),
+                    Long.toString(amount),
+                    Integer.toString(repaymentPeriod),
+                    maxAccrualRate.toPlainString()));
+      } finally {
+        lock.unlock();
+      }
+
+      // the matches are journaled, not replayed from the request
+      LoanOffer offer;
+      while (match
+          && request.isCurrent(date)
+          && (offer = book.bestOfferFor(request, date)) != null) {
+        entry = Math.max(entry, fill(offer, request, date));
+      }
+    } finally {
+      book.getLock().unlock();
+    }
+    journal.awaitDurable(entry);
+  }
+
+  /**
+   * Post a loan offer on behalf of a customer, and lend it to the current requests it matches.
+   *
+   * @param customerID The lender
+   * @param amount The amount offered, in minor units
+   * @param accrualRate The yearly interest rate of the loans, as a fraction
+   * @param maxRepaymentPeriod The longest repayment period of the loans, in days
+   */
+  public void offerLoan(
+      final CustomerID customerID,
+      final long amount,
+      final BigDecimal accrualRate,
+      final int maxRepaymentPeriod) {
+    offerLoan(customerID, amount, accrualRate, maxRepaymentPeriod, LocalDateTime.now(), true);
+  }
+
+  private void offerLoan(
+      final CustomerID customerID,
+      final long amount,
+      final BigDecimal accrualRate,
+      final int maxRepaymentPeriod,
+      final LocalDateTime date,
+      final boolean match) {
+    Customer customer = getCustomer(customerID);
+    LoanOffer offer =
+        new LoanOffer(MinorUnits.toMoney(amount), customer, accrualRate, maxRepaymentPeriod, date);
+    LoanOrderBook book = new LoanProposals().getOrderBook();
+    long entry;
+
+    book.getLock().lock();
+    try {
+      Lock lock = customer.getLock();
+      lock.lock();
+      startChange(customer);
+      try {
+        customer.getLoanHistory().addLoanOffer(offer);
+        entry =
+            journal.append(
+                new JournalRecord(
+                    date,
+                    JournalRecord.Type.OFFERLOAN,
+                    customer.getUsername(),
+                    Long.toString(amount),
+                    accrualRate.toPlainString(),
+                    Integer.toString(maxRepaymentPeriod)));
+      } finally {
+        lock.unlock();
+      }
+
+      LoanRequest request;
+      while (match
+          && offer.isCurrent(date)
+          && (request = book.bestRequestFor(offer, date)) != null) {
+        entry = Math.max(entry, fill(offer, request, date));
+      }
+    } finally {
+      book.getLock().unlock();
+    }
+    journal.awaitDurable(entry);
+  }
+
+  /*
+   * Lend as much of an offer as a request takes, through the borrower's and the lender's default
+   * accounts. A proposal which cannot be funded anymore is withdrawn instead, so that matching
+   * moves on to the next one.
+   */
+  private long fill(final LoanOffer offer, final LoanRequest request, final LocalDateTime date) {
+    Customer lender = offer.getLender();
+    Customer borrower = request.getBorrower();
+    long amount = Math.min(offer.getProposedMinorUnits(), request.getProposedMinorUnits());
+
+    lockBoth(lender, borrower);
+    startChange(lender, borrower);
+    try {
+      if (!borrower.hasDefaultAccount()) {
+        request.withdraw();
+        return journalWithdrawal(borrower, "REQUEST", date);
+      }
+
+      try {
+        lend(offer, request, amount, date);
+      } catch (AccountInvalidException | AccountBalanceInsufficientException e) {
+        offer.withdraw();
+        return journalWithdrawal(lender, "OFFER", date);
+      } catch (AccountBalanceInvalidException e) {
+        request.withdraw();
+        return journalWithdrawal(borrower, "REQUEST", date);
+      }
+      return journal.append(
+          new JournalRecord(
+              date,
+              JournalRecord.Type.MATCHLOAN,
+              lender.getUsername(),
+              borrower.getUsername(),
+              Long.toString(amount)));
+    } finally {
+      unlockBoth(lender, borrower);
+    }
+  }
+
+  private long journalWithdrawal(
+      final Customer customer, final String proposal, final LocalDateTime date) {
+    return journal.append(
+        new JournalRecord(date, JournalRecord.Type.WITHDRAWLOAN, customer.getUsername(), proposal));
+  }
+
+  // the lender and the borrower must both be locked
+  private void lend(
+      final LoanOffer offer, final LoanRequest request, final long amount, final LocalDateTime date)
+      throws AccountInvalidException, AccountBalanceInsufficientException,
+          AccountBalanceInvalidException {
+    transfer(offer.getLender(), request.getBorrower(), amount, date);
+    offer.getLender().getLoanHistory().addLoan(offer.fund(request, amount, date));
+  }
+
+  private void replayMatch(final JournalRecord record) throws Exception {
+    LoanProposals proposals = new LoanProposals();
+    Optional<LoanOffer> offer = proposals.getCurrentOffer(record.getArgument(0), record.getTime());
+    Optional<LoanRequest> request =
+        proposals.getCurrentRequest(record.getArgument(1), record.getTime());
+    long amount = record.getLongArgument(2);
+
+    if (!offer.isPresent()
+        || !request.isPresent()
+        || amount > offer.get().getProposedMinorUnits()
+        || amount > request.get().getProposedMinorUnits()) {
+      throw new IOException("No current loan offer and request to match: " + record);
+    }
+
+    lockBoth(offer.get().getLender(), request.get().getBorrower());
+    try {
+      lend(offer.get(), request.get(), amount, record.getTime());
+    } finally {
+      unlockBoth(offer.get().getLender(), request.get().getBorrower());
+    }
+  }
+
+  private void replayWithdrawal(final JournalRecord record) {
+    LoanProposals proposals = new LoanProposals();
+    String id = record.getArgument(0);
+    if (record.getArgument(1).equals("OFFER")) {
+      proposals.getCurrentOffer(id, record.getTime()).ifPresent(offer -> offer.withdraw());
+    } else {
+      proposals.getCurrentRequest(id, record.getTime()).ifPresent(request -> request.withdraw());
     }
+  }
 
-    // perform transaction
-    originatorAccount.get().debit(money);
-    destinatorAccount.get().credit(money);
+  /**
+   * Grant a current loan request: pay the requested amount to the borrower and record the loan.
+   *
+   * @param customerID The lender
+   * @param requestID The loan request's id
+   * @throws LoanRequestInvalidException If there is no such current loan request.
+   * @throws AccountInvalidException If the lender or the borrower has no default current account.
+   * @throws AccountBalanceInsufficientException If the lender's account doesn't have sufficient balance.
+   * @throws AccountBalanceInvalidException If the borrower's balance would overflow.
+   */
+  public void grantLoan(final CustomerID customerID, final String requestID)
+      throws LoanRequestInvalidException, AccountInvalidException,
+          AccountBalanceInsufficientException, AccountBalanceInvalidException {
+    grantLoan(customerID, requestID, LocalDateTime.now());
+  }
+
+  private void grantLoan(final CustomerID customerID, final String requestID, final LocalDateTime date)
+      throws LoanRequestInvalidException, AccountInvalidException,
+          AccountBalanceInsufficientException, AccountBalanceInvalidException {
+    LoanProposals proposals = new LoanProposals();
+    Optional<LoanRequest> request = proposals.getCurrentRequest(requestID, date);
+
+    if (!request.isPresent()) {
+      throw new LoanRequestInvalidException(requestID);
+    }
+
+    Customer lender = getCustomer(customerID);
+    apply(() -> grant(lender, request.get(), date))
+        .rethrow(LoanRequestInvalidException.class)
+        .rethrow(AccountInvalidException.class)
+        .rethrow(AccountBalanceInsufficientException.class)
+        .rethrow(AccountBalanceInvalidException.class)
+        .getEntry();
+  }
+
+  private long grant(final Customer lender, final LoanRequest request, final LocalDateTime date)
+      throws LoanRequestInvalidException, AccountInvalidException,
+          AccountBalanceInsufficientException, AccountBalanceInvalidException {
+    Customer borrower = request.getBorrower();
+
+    lockBoth(lender, borrower);
+    startChange(lender, borrower);
+    try {
+      // another lender may have granted it in the meantime
+      if (!request.isCurrent(date)) {
+        throw new LoanRequestInvalidException(request.getID());
+      }
+
+      transfer(lender, borrower, MinorUnits.of(request.getProposedAmount()), date);
+      lender.getLoanHistory().addLoan(new MicroLoan(lender, request, date));
+      request.accept();
+      return journal.append(
+          new JournalRecord(
+              date, JournalRecord.Type.GRANTLOAN, lender.getUsername(), request.getID()));
+    } finally {
+      unlockBoth(lender, borrower);
+    }
   }
 }
@@ -1,78 +1,60 @@
 package newbank.server;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.Socket;
-import java.util.HashMap;
-import java.util.Map;
 
-import newbank.server.commands.*;
+/**
+ * The NewBankClientHandler handles all clients requests.
+ *
+ * <p>Clients may pipeline their requests: the requests already received are executed in order, and
+ * their responses are flushed together once no more input is buffered.
+ *
+ * <p>A handler may also serve any pair of streams, e.g. a script of requests run in the bank's own
+ * process, on the calling thread.
+ */
+public class NewBankClientHandler implements Runnable {
 
-/** The NewBankClientHandler handles all clients requests. */
-public class NewBankClientHandler extends Thread {
-
-  private NewBank bank;
   private BufferedReader in;
   private PrintWriter out;
-  private CustomerID customer = new CustomerID();
-  private Map<String, CommandSupplier> commands = new HashMap<>();
+  private ClientSession session;
 
   public NewBankClientHandler(Socket s) throws IOException {
-    bank = NewBank.getBank();
-    in = new BufferedReader(new InputStreamReader(s.getInputStream()));
-    out = new PrintWriter(s.getOutputStream(), true);
-
-    initialiseSupportedCommands();
-  }
-
-  // add supported commands here
-  private void initialiseSupportedCommands() {
-    commands.put("DEPOSIT", DepositCommand::new);
-    commands.put("LOGIN", LoginCommand::new);
-    commands.put("LOGOUT", LogoutCommand::new);
-    commands.put("NEWACCOUNT", NewAccountCommand::new);
-    commands.put("QUIT", QuitCommand::new);
-    commands.put("REGISTER", RegisterCommand::new);
-    commands.put("SHOWMYACCOUNTS", ShowAccountsCommand::new);
-    commands.put("MOVE", MoveMoneyCommand::new);
-    commands.put("DEFAULT", DefaultCommand::new);
-    commands.put("PAY", PayCommand::new);
-    commands.put("REQUESTLOAN", RequestLoanCommand::new);
-    commands.put("GRANTLOAN", GrantLoanCommand::new);
-    commands.put("UNKNOWN", UnknownCommand::new);
-    commands.put("HELP", HelpCommand::new);
+    this(new InputStreamReader(s.getInputStream()), new OutputStreamWriter(s.getOutputStream()));
   }
 
-  private Command getCommand(final String name, final String[] tokens) {
-    return commands.getOrDefault(name, UnknownCommand::new).makeCommand(bank, tokens, customer);
-  }
-
-  private boolean processRequest(final String request) {
-    final String[] tokens = request.trim().split("\\s+");
-
-    assert (tokens.length > 0);
-
-    final String commandName = tokens[0].toUpperCase();
-    final Command command = getCommand(commandName, tokens);
-
-    out.println(command.execute());
-
-    return !request.equals("QUIT");
+  public NewBankClientHandler(Reader in, Writer out) {
+    this.in = new BufferedReader(in);
+    this.out = new PrintWriter(new BufferedWriter(out));
+    session = new ClientSession(NewBank.getBank());
   }
 
   public void run() {
-    boolean hasMore = true;
     try {
-      while (hasMore) {
+      while (session.isOpen()) {
         String request = in.readLine();
+        if (request == null) {
+          break; // client went away
+        }
+
         if (NewBankServer.VERBOSE_MODE) {
           // useful for debugging/testing, not meant for production
           out.println(String.format("Received request [%s]", request));
         }
 
-        hasMore = processRequest(request);
+        String response = session.processRequest(request);
+        if (response != null) {
+          out.println(response);
+        }
+        if (!in.ready()) {
+          out.flush();
+        }
       }
     } catch (IOException e) {
       e.printStackTrace();
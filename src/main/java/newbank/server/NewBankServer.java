@@ -3,15 +3,39 @@ package newbank.server;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import newbank.server.commands.CommandRegistry;
+import newbank.server.microloans.AccrualEngine;
 
 import static newbank.utils.Config.DEFAULT_PORT;
+import static newbank.utils.Config.STATS_FILE;
+import static newbank.utils.Config.STATS_INTERVAL_SECONDS;
 
 public class NewBankServer extends Thread {
   private ServerSocket server;
+  private ThreadFactory handlerThreads;
   public static boolean VERBOSE_MODE = false;
 
   public NewBankServer(int port) throws IOException {
+    this(port, Thread::new);
+  }
+
+  /**
+   * @param port the port to listen on, 0 for any free port
+   * @param handlerThreads creates the thread serving each client connection
+   */
+  public NewBankServer(int port, ThreadFactory handlerThreads) throws IOException {
     server = new ServerSocket(port);
+    this.handlerThreads = handlerThreads;
+  }
+
+  public int getPort() {
+    return server.getLocalPort();
   }
 
   public void run() {
@@ -21,7 +45,7 @@ public class NewBankServer extends Thread {
       while (true) {
         Socket s = server.accept();
         NewBankClientHandler clientHandler = new NewBankClientHandler(s);
-        clientHandler.start();
+        handlerThreads.newThread(clientHandler).start();
       }
     } catch (IOException e) {
       e.printStackTrace();
@@ -36,7 +60,41 @@ public class NewBankServer extends Thread {
   }
 
   public static void main(String[] args) throws IOException {
-    // starts a new NewBankServer thread on a specified port number
-    new NewBankServer(DEFAULT_PORT).start();
+    // starts a new server thread on a specified port number, in the mode given as first argument
+    ServerMode mode = args.length > 0 ? ServerMode.parse(args[0]) : ServerMode.THREAD;
+    Account.setBalanceMode(BalanceMode.parse(System.getProperty("newbank.balance", "locked")));
+
+    // the bank's state is only persisted when a journal directory is given as second argument
+    if (args.length > 1) {
+      NewBank.getBank().openJournal(Paths.get(args[1]));
+    }
+    if (Boolean.getBoolean("newbank.sequencer")) {
+      NewBank.getBank().startSequencer();
+    }
+
+    new AccrualEngine().start();
+    mode.createServer(DEFAULT_PORT).start();
+    dumpStatistics(Paths.get(STATS_FILE));
+  }
+
+  // append the commands' statistics to a file periodically
+  private static void dumpStatistics(final Path file) {
+    Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "statistics");
+              thread.setDaemon(true);
+              return thread;
+            })
+        .scheduleWithFixedDelay(
+            () -> {
+              try {
+                CommandRegistry.appendStatisticsTo(file);
+              } catch (IOException e) {
+                System.err.println("FAIL: Cannot write the statistics: " + e.getMessage());
+              }
+            },
+            STATS_INTERVAL_SECONDS,
+            STATS_INTERVAL_SECONDS,
+            TimeUnit.SECONDS);
   }
 }
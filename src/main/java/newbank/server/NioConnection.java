@@ -0,0 +1,166 @@
+package newbank.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static newbank.utils.Config.MAX_REQUEST_LENGTH;
+
+/**
+ * A client connection served by the {@link NioNewBankServer}.
+ *
+ * <p>The selector thread owns the socket reads and writes and splits the incoming bytes into
+ * request lines. Complete lines are queued and executed in order by at most one worker at a time,
+ * so a connection never has two requests running concurrently. The responses queued in the
+ * meantime are written together, with a single gathering write whenever the socket accepts them.
+ */
+class NioConnection {
+  private static final Charset CHARSET = Charset.defaultCharset();
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(CHARSET);
+
+  private final SocketChannel channel;
+  private final ClientSession session;
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+  private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+  private final Queue<String> pendingRequests = new ConcurrentLinkedQueue<>();
+  private final Queue<ByteBuffer> pendingResponses = new ConcurrentLinkedQueue<>();
+  // the responses being written, only used by the selector thread
+  private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+  private volatile boolean closing = false;
+
+  NioConnection(final SocketChannel channel, final ClientSession session) {
+    this.channel = channel;
+    this.session = session;
+  }
+
+  SocketChannel getChannel() {
+    return channel;
+  }
+
+  /**
+   * Read whatever is available from the socket and queue every complete request line.
+   *
+   * @return false if the client closed the connection or sent an oversized request
+   */
+  boolean readRequests() throws IOException {
+    readBuffer.clear();
+    final int read = channel.read(readBuffer);
+    if (read < 0) {
+      return false;
+    }
+
+    readBuffer.flip();
+    while (readBuffer.hasRemaining()) {
+      final byte b = readBuffer.get();
+      if (b == '\n') {
+        pendingRequests.add(takeLine());
+      } else {
+        partialLine.write(b);
+        if (partialLine.size() > MAX_REQUEST_LENGTH) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  // the line framing follows BufferedReader.readLine, accepting both "\n" and "\r\n"
+  private String takeLine() {
+    final byte[] bytes = partialLine.toByteArray();
+    partialLine.reset();
+
+    int length = bytes.length;
+    if (length > 0 && bytes[length - 1] == '\r') {
+      length--;
+    }
+    return new String(bytes, 0, length, CHARSET);
+  }
+
+  boolean hasPendingRequests() {
+    return !pendingRequests.isEmpty();
+  }
+
+  /** @return true if the caller is now responsible for running {@link #processRequests()}. */
+  boolean trySchedule() {
+    return scheduled.compareAndSet(false, true);
+  }
+
+  /**
+   * Execute the queued requests in order. Runs on a worker thread.
+   *
+   * @return true if at least one response has been queued for writing
+   */
+  boolean processRequests() {
+    boolean responded = false;
+    do {
+      String request;
+      while (!closing && (request = pendingRequests.poll()) != null) {
+        if (NewBankServer.VERBOSE_MODE) {
+          // useful for debugging/testing, not meant for production
+          respond(String.format("Received request [%s]", request));
+          responded = true;
+        }
+
+        String response = session.processRequest(request);
+        if (response != null) {
+          respond(response);
+          responded = true;
+        }
+
+        if (!session.isOpen()) {
+          closing = true;
+        }
+      }
+      scheduled.set(false);
+    } while (!closing && hasPendingRequests() && trySchedule());
+
+    return responded || closing;
+  }
+
+  private void respond(final String response) {
+    final byte[] text = response.getBytes(CHARSET);
+    final ByteBuffer buffer = ByteBuffer.allocate(text.length + LINE_SEPARATOR.length);
+    buffer.put(text).put(LINE_SEPARATOR).flip();
+    pendingResponses.add(buffer);
+  }
+
+  /**
+   * Write as many queued responses as the socket accepts.
+   *
+   * @return true if every queued response has been written
+   */
+  boolean writeResponses() throws IOException {
+    ByteBuffer buffer;
+    while ((buffer = pendingResponses.poll()) != null) {
+      writing.add(buffer);
+    }
+
+    if (!writing.isEmpty()) {
+      channel.write(writing.toArray(new ByteBuffer[0]));
+      while (!writing.isEmpty() && !writing.peek().hasRemaining()) {
+        writing.poll();
+      }
+    }
+    return writing.isEmpty();
+  }
+
+  /** @return true once the session has ended and no more requests will be read. */
+  boolean isClosing() {
+    return closing;
+  }
+
+  void close() {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package newbank.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static newbank.utils.Config.NIO_WORKER_THREADS;
+
+/**
+ * A NewBank server multiplexing every client connection on a single selector thread.
+ *
+ * <p>Idle clients only cost a selection key and a small buffer instead of a thread. Complete
+ * request lines are handed to a small pool of worker threads, while reads and writes stay on the
+ * selector thread. The wire protocol is the same as the {@link NewBankServer}'s.
+ */
+public class NioNewBankServer extends Thread {
+  private final Selector selector;
+  private final ServerSocketChannel server;
+  private final ExecutorService workers;
+  private final Queue<NioConnection> writeRequests = new ConcurrentLinkedQueue<>();
+
+  public NioNewBankServer(int port) throws IOException {
+    selector = Selector.open();
+    server = ServerSocketChannel.open();
+    server.bind(new InetSocketAddress(port));
+    server.configureBlocking(false);
+    server.register(selector, SelectionKey.OP_ACCEPT);
+    workers =
+        Executors.newFixedThreadPool(
+            NIO_WORKER_THREADS,
+            task -> {
+              // the workers live as long as the server thread, which keeps the JVM running
+              Thread worker = new Thread(task);
+              worker.setDaemon(true);
+              return worker;
+            });
+  }
+
+  public int getPort() {
+    return server.socket().getLocalPort();
+  }
+
+  public void run() {
+    System.out.println("New Bank NIO Server listening on " + getPort());
+    try {
+      while (true) {
+        selector.select();
+        enableWrites();
+
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+
+          if (!key.isValid()) {
+            continue;
+          }
+
+          if (key.isAcceptable()) {
+            accept();
+            continue;
+          }
+
+          NioConnection connection = (NioConnection) key.attachment();
+          try {
+            if (key.isReadable()) {
+              read(key, connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+              write(key, connection);
+            }
+          } catch (IOException e) {
+            close(key, connection);
+          }
+        }
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      workers.shutdown();
+      try {
+        selector.close();
+        server.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel = server.accept();
+    if (channel == null) {
+      return;
+    }
+
+    channel.configureBlocking(false);
+    NioConnection connection = new NioConnection(channel, new ClientSession(NewBank.getBank()));
+    channel.register(selector, SelectionKey.OP_READ, connection);
+  }
+
+  private void read(final SelectionKey key, final NioConnection connection) throws IOException {
+    if (!connection.readRequests()) {
+      close(key, connection);
+      return;
+    }
+
+    if (connection.hasPendingRequests() && connection.trySchedule()) {
+      workers.execute(
+          () -> {
+            if (connection.processRequests()) {
+              writeRequests.add(connection);
+              selector.wakeup();
+            }
+          });
+    }
+  }
+
+  private void write(final SelectionKey key, final NioConnection connection) throws IOException {
+    if (!connection.writeResponses()) {
+      return; // socket buffer full, wait for the next write readiness
+    }
+
+    if (connection.isClosing()) {
+      close(key, connection);
+    } else {
+      key.interestOps(SelectionKey.OP_READ);
+    }
+  }
+
+  // register write interest for the connections which have responses queued by the workers
+  private void enableWrites() {
+    NioConnection connection;
+    while ((connection = writeRequests.poll()) != null) {
+      SelectionKey key = connection.getChannel().keyFor(selector);
+      if (key == null || !key.isValid()) {
+        continue;
+      }
+
+      // a session which has ended is not read from anymore
+      key.interestOps(
+          connection.isClosing()
+              ? SelectionKey.OP_WRITE
+              : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+  }
+
+  private void close(final SelectionKey key, final NioConnection connection) {
+    key.cancel();
+    connection.close();
+  }
+}
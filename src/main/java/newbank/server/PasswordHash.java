@@ -0,0 +1,77 @@
+package newbank.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * A salted SHA-256 hash of a customer's password, so that the password itself is neither kept in
+ * memory nor written to the journal or the snapshots.
+ *
+ * <p>It is encoded as <code>sha256$&lt;salt&gt;$&lt;hash&gt;</code>, both in Base64.
+ */
+final class PasswordHash {
+  private static final String PREFIX = "sha256$";
+  private static final int SALT_LENGTH = 16;
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final byte[] salt;
+  private final byte[] hash;
+
+  private PasswordHash(final byte[] salt, final byte[] hash) {
+    this.salt = salt;
+    this.hash = hash;
+  }
+
+  /** Hash a password with a new random salt. */
+  static PasswordHash of(final String password) {
+    byte[] salt = new byte[SALT_LENGTH];
+    RANDOM.nextBytes(salt);
+    return new PasswordHash(salt, digest(salt, password));
+  }
+
+  /**
+   * Decode a hash encoded by {@link #encode()}.
+   *
+   * @throws IllegalArgumentException if the value is not an encoded hash.
+   */
+  static PasswordHash decode(final String encoded) {
+    if (!isEncoded(encoded)) {
+      throw new IllegalArgumentException("Not a password hash");
+    }
+
+    String[] parts = encoded.substring(PREFIX.length()).split("\\$", -1);
+    if (parts.length != 2) {
+      throw new IllegalArgumentException("Not a password hash");
+    }
+    Base64.Decoder decoder = Base64.getDecoder();
+    return new PasswordHash(decoder.decode(parts[0]), decoder.decode(parts[1]));
+  }
+
+  /** @return true if the value is an encoded hash rather than a password */
+  static boolean isEncoded(final String value) {
+    return value.startsWith(PREFIX);
+  }
+
+  String encode() {
+    Base64.Encoder encoder = Base64.getEncoder();
+    return PREFIX + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+  }
+
+  /** @return true if the password is the one which was hashed */
+  boolean matches(final String password) {
+    return MessageDigest.isEqual(hash, digest(salt, password));
+  }
+
+  private static byte[] digest(final byte[] salt, final String password) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(salt);
+      return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package newbank.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Applies mutations one at a time, in the order they are published, on a single thread.
+ *
+ * <p>Publishing threads claim a sequence number and fill the matching slot of a pre-allocated ring,
+ * then wait for the slot to be completed. The sequencer thread applies every published mutation
+ * in sequence order, in batches of the consecutive slots ready, and runs a hook after each batch
+ * before completing its slots: the bank makes the batch's journal records durable there, with a
+ * single wait for all of them.
+ *
+ * <p>A mutation published by the sequencer thread itself is applied at once, as part of the
+ * mutation publishing it.
+ *
+ * <p>Whatever a mutation or the hook throws, errors included, completes the slots it concerns with
+ * the failure rather than ending the sequencer thread, so that no publisher is left waiting: a
+ * mutation's failure is its publisher's, and the hook's is that of every mutation of its batch
+ * which had not failed already, since their records might not be durable.
+ */
+public final class Sequencer {
+  /** A change to apply, returning the position of its journal record. */
+  public interface Mutation {
+    long apply() throws Exception;
+  }
+
+  /** The result of a mutation, with what it threw if it failed. */
+  public static final class Outcome {
+    final long entry;
+    final Throwable failure;
+
+    private Outcome(final long entry, final Throwable failure) {
+      this.entry = entry;
+      this.failure = failure;
+    }
+
+    /**
+     * Rethrow the failure if it is of a given type.
+     *
+     * @return the outcome, to rethrow the other types
+     */
+    public <E extends Exception> Outcome rethrow(final Class<E> type) throws E {
+      if (type.isInstance(failure)) {
+        throw type.cast(failure);
+      }
+      return this;
+    }
+
+    /**
+     * @return the position of the mutation's journal record
+     * @throws RuntimeException if the mutation failed with an exception not rethrown already.
+     * @throws Error if the mutation failed with an error.
+     */
+    public long getEntry() {
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+      if (failure != null) {
+        throw new IllegalStateException(failure);
+      }
+      return entry;
+    }
+  }
+
+  private static final class Slot {
+    // the sequence last published in, completed in, and released from the slot
+    private volatile long published;
+    private volatile long completed;
+    private volatile long released;
+    private Mutation mutation;
+    private Thread publisher;
+    private long entry;
+    private Throwable failure;
+  }
+
+  private final Slot[] slots;
+  private final int mask;
+  private final AtomicLong next = new AtomicLong();
+  private final LongConsumer afterBatch;
+  private final Thread thread;
+
+  /**
+   * @param size The number of slots, a power of two
+   * @param afterBatch Run on the sequencer thread after each batch of mutations, with the highest
+   *     journal position of the batch
+   */
+  public Sequencer(final int size, final LongConsumer afterBatch) {
+    if (Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("The size must be a power of two: " + size);
+    }
+
+    slots = new Slot[size];
+    for (int i = 0; i < size; i++) {
+      slots[i] = new Slot();
+      slots[i].published = slots[i].completed = slots[i].released = i - size;
+    }
+    mask = size - 1;
+    this.afterBatch = afterBatch;
+
+    thread = new Thread(this::run, "sequencer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Apply a mutation on the calling thread. */
+  static Outcome applyNow(final Mutation mutation) {
+    try {
+      return new Outcome(mutation.apply(), null);
+    } catch (Exception e) {
+      return new Outcome(0, e);
+    }
+  }
+
+  /**
+   * Apply a mutation after the ones published before it, and wait for its batch to be applied and
+   * for the hook to have run.
+   */
+  public Outcome apply(final Mutation mutation) {
+    if (Thread.currentThread() == thread) {
+      return applyNow(mutation);
+    }
+
+    long sequence = next.getAndIncrement();
+    Slot slot = slots[(int) sequence & mask];
+    // the ring is full until the previous publisher in the slot has taken its outcome
+    while (slot.released != sequence - slots.length) {
+      Thread.yield();
+    }
+
+    slot.mutation = mutation;
+    slot.publisher = Thread.currentThread();
+    slot.published = sequence;
+    LockSupport.unpark(thread);
+
+    while (slot.completed != sequence) {
+      LockSupport.park(this);
+    }
+    Outcome outcome = new Outcome(slot.entry, slot.failure);
+    slot.mutation = null;
+    slot.publisher = null;
+    slot.failure = null;
+    slot.released = sequence;
+    return outcome;
+  }
+
+  private void run() {
+    long cursor = 0;
+    while (true) {
+      long end = cursor;
+      long lastEntry = 0;
+      while (end - cursor < slots.length && slots[(int) end & mask].published == end) {
+        Slot slot = slots[(int) end & mask];
+        try {
+          slot.entry = slot.mutation.apply();
+          lastEntry = Math.max(lastEntry, slot.entry);
+        } catch (Throwable e) {
+          slot.entry = 0;
+          slot.failure = e;
+        }
+        end++;
+      }
+
+      if (end == cursor) {
+        LockSupport.park(this);
+        continue;
+      }
+
+      Throwable batchFailure = null;
+      try {
+        afterBatch.accept(lastEntry);
+      } catch (Throwable e) {
+        batchFailure = e;
+      }
+      for (; cursor < end; cursor++) {
+        Slot slot = slots[(int) cursor & mask];
+        if (batchFailure != null && slot.failure == null) {
+          slot.failure = batchFailure;
+        }
+        Thread publisher = slot.publisher;
+        slot.completed = cursor;
+        LockSupport.unpark(publisher);
+      }
+    }
+  }
+}
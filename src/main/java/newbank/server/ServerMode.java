@@ -0,0 +1,48 @@
+package newbank.server;
+
+import java.io.IOException;
+
+import newbank.utils.VirtualThreads;
+
+/** The ways a NewBank server can serve its client connections. */
+public enum ServerMode {
+  /** One blocking handler thread per client connection. */
+  THREAD {
+    @Override
+    public Thread createServer(final int port) throws IOException {
+      return new NewBankServer(port);
+    }
+  },
+
+  /** One blocking handler virtual thread per client connection, requires Java 21. */
+  VIRTUAL {
+    @Override
+    public Thread createServer(final int port) throws IOException {
+      return new NewBankServer(port, VirtualThreads.factory());
+    }
+  },
+
+  /** A single selector thread for all connections and a small pool of worker threads. */
+  NIO {
+    @Override
+    public Thread createServer(final int port) throws IOException {
+      return new NioNewBankServer(port);
+    }
+  };
+
+  /**
+   * Create a server listening on the supplied port. The server starts serving once started.
+   *
+   * @param port The port to listen on, 0 for any free port
+   */
+  public abstract Thread createServer(final int port) throws IOException;
+
+  /**
+   * Parse a server mode given on the command line, ignoring case.
+   *
+   * @throws IllegalArgumentException if there is no such mode
+   */
+  public static ServerMode parse(final String mode) {
+    return valueOf(mode.toUpperCase());
+  }
+}
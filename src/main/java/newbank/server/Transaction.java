@@ -0,0 +1,65 @@
+package newbank.server;
+
+import java.time.LocalDateTime;
+
+import newbank.utils.MinorUnits;
+
+/** A credit or a debit of an account, as recorded in its {@link TransactionHistory}. */
+public final class Transaction {
+  private final long id;
+  private final LocalDateTime time;
+  private final String counterparty;
+  private final long amount;
+  private final long balance;
+
+  Transaction(
+      final long id,
+      final LocalDateTime time,
+      final String counterparty,
+      final long amount,
+      final long balance) {
+    this.id = id;
+    this.time = time;
+    this.counterparty = counterparty;
+    this.amount = amount;
+    this.balance = balance;
+  }
+
+  /** @return the number of the transaction in its account, from 1 */
+  public long getId() {
+    return id;
+  }
+
+  public LocalDateTime getTime() {
+    return time;
+  }
+
+  /**
+   * @return the other account of a move, the other customer of a payment or a loan, or {@link
+   *     TransactionHistory#DEPOSIT} for a deposit
+   */
+  public String getCounterparty() {
+    return counterparty;
+  }
+
+  /** @return the amount credited, negative for a debit, in minor units */
+  public long getAmount() {
+    return amount;
+  }
+
+  /** @return the account's balance once the transaction was made, in minor units */
+  public long getBalance() {
+    return balance;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d %s %s %s %s",
+        id,
+        time,
+        counterparty,
+        MinorUnits.format(amount),
+        MinorUnits.format(balance));
+  }
+}
@@ -0,0 +1,349 @@
+package newbank.server;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import newbank.server.journal.HistoryLog;
+import newbank.server.journal.SnapshotWriter;
+import newbank.utils.Config;
+
+/**
+ * The transactions of an account, in the order they were made.
+ *
+ * <p>The transactions are kept by column, in chunks of {@link Config#TRANSACTION_CHUNK_SIZE}: adding
+ * one never copies the previous ones, except while the first chunk grows to its full size, so that
+ * the accounts with few transactions stay small. Their times never decrease, should the clock go
+ * back, so that a transaction is found by time with a binary search. The oldest transactions can
+ * be forgotten, see {@link #forget()}, the others keeping their index.
+ *
+ * <p>A history has its own lock, which adding a transaction takes, and which must be held to read
+ * it, see {@link #getLock()}: the snapshots and the statements read it without locking its
+ * customer.
+ *
+ * <p>The snapshots do not hold the transactions themselves: each one saves those made since the
+ * previous one in the {@link HistoryLog}, and only their number in the snapshot.
+ */
+public final class TransactionHistory {
+  /** The counterparty of a deposit. */
+  public static final String DEPOSIT = "<DEPOSIT>";
+
+  private static final int CHUNK_SHIFT =
+      Integer.numberOfTrailingZeros(Config.TRANSACTION_CHUNK_SIZE);
+  private static final int CHUNK_MASK = Config.TRANSACTION_CHUNK_SIZE - 1;
+  private static final int FIRST_CHUNK_SIZE = 4;
+
+  /** A chunk of transactions, one array per field. */
+  private static final class Chunk {
+    long[] times;
+    String[] counterparties;
+    long[] amounts;
+    long[] balances;
+
+    Chunk(final int size) {
+      times = new long[size];
+      counterparties = new String[size];
+      amounts = new long[size];
+      balances = new long[size];
+    }
+
+    void grow(final int size) {
+      times = Arrays.copyOf(times, size);
+      counterparties = Arrays.copyOf(counterparties, size);
+      amounts = Arrays.copyOf(amounts, size);
+      balances = Arrays.copyOf(balances, size);
+    }
+  }
+
+  private final List<Chunk> chunks = new ArrayList<>();
+  private int size;
+  // the index of the first slot of the first chunk, a multiple of the chunk size
+  private int base;
+  // the index of the oldest transaction kept
+  private int first;
+  private final Lock lock = new ReentrantLock();
+  // the number of transactions in the history log as of the latest snapshot, and the number as of
+  // a snapshot being taken at a journal position, only used by the snapshots
+  private int saved;
+  private int saving;
+  private long savingPosition = -1;
+
+  /** @return the lock to hold while reading the history */
+  public Lock getLock() {
+    return lock;
+  }
+
+  /** @return the number of transactions, including the ones forgotten */
+  public int size() {
+    return size;
+  }
+
+  /** @return the index of the oldest transaction kept */
+  public int first() {
+    return first;
+  }
+
+  /**
+   * Forget the transactions made so far, e.g. between the iterations of a benchmark, so that the
+   * history does not grow without bound. The next transaction keeps the next index.
+   */
+  public void forget() {
+    lock.lock();
+    try {
+      skipTo(size);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // only called with the history locked
+  private void skipTo(final int index) {
+    chunks.clear();
+    size = index;
+    base = index & ~CHUNK_MASK;
+    first = index;
+  }
+
+  private Chunk chunkAt(final int index) {
+    return chunks.get((index - base) >> CHUNK_SHIFT);
+  }
+
+  /**
+   * Record a transaction after the previous ones.
+   *
+   * @param time When it was made
+   * @param counterparty The other party, see {@link Transaction#getCounterparty()}
+   * @param amount The amount credited, negative for a debit, in minor units
+   * @param balance The account's balance once it was made, in minor units
+   */
+  void add(final LocalDateTime time, final String counterparty, final long amount, final long balance) {
+    lock.lock();
+    try {
+      append(time, counterparty, amount, balance);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // only called with the history locked
+  private void append(
+      final LocalDateTime time, final String counterparty, final long amount, final long balance) {
+    long millis = toMillis(time);
+    if (size > first) {
+      millis = Math.max(millis, timeAt(size - 1));
+    }
+
+    int offset = size & CHUNK_MASK;
+    Chunk chunk;
+    // the first chunk may start after its first slot, once the history was forgotten
+    if ((size - base) >> CHUNK_SHIFT == chunks.size()) {
+      chunk = new Chunk(chunks.isEmpty() ? FIRST_CHUNK_SIZE : Config.TRANSACTION_CHUNK_SIZE);
+      chunks.add(chunk);
+    } else {
+      chunk = chunkAt(size);
+    }
+    while (offset >= chunk.times.length) {
+      chunk.grow(Math.min(offset * 2, Config.TRANSACTION_CHUNK_SIZE));
+    }
+
+    chunk.times[offset] = millis;
+    chunk.counterparties[offset] = counterparty;
+    chunk.amounts[offset] = amount;
+    chunk.balances[offset] = balance;
+    size++;
+  }
+
+  /** Forget the latest transaction, which was undone. */
+  void removeLast() {
+    lock.lock();
+    try {
+      if (size == first) {
+        throw new IllegalStateException("No transaction to remove");
+      }
+      size--;
+      chunkAt(size).counterparties[size & CHUNK_MASK] = null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @param index The index of the transaction, from 0
+   * @return the transaction, whose id is its index plus 1
+   * @throws IndexOutOfBoundsException if there is no such transaction, or it was forgotten.
+   */
+  public Transaction get(final int index) {
+    if (index < first || index >= size) {
+      throw new IndexOutOfBoundsException("No transaction at " + index);
+    }
+
+    Chunk chunk = chunkAt(index);
+    int offset = index & CHUNK_MASK;
+    return new Transaction(
+        index + 1L,
+        toDateTime(chunk.times[offset]),
+        chunk.counterparties[offset],
+        chunk.amounts[offset],
+        chunk.balances[offset]);
+  }
+
+  private long timeAt(final int index) {
+    return chunkAt(index).times[index & CHUNK_MASK];
+  }
+
+  /**
+   * @return the index of the first transaction kept made at the supplied time or later, or the
+   *     size
+   */
+  public int indexAt(final LocalDateTime time) {
+    long millis = toMillis(time);
+    if (time.getNano() % 1_000_000 != 0) {
+      millis++; // the transactions are kept to the millisecond
+    }
+    int low = first;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (timeAt(middle) < millis) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @param from The index of the first transaction
+   * @param to The index past the last transaction
+   * @return the transactions between both indexes, in order
+   */
+  public List<Transaction> range(final int from, final int to) {
+    List<Transaction> transactions = new ArrayList<>(Math.max(0, to - from));
+    for (int i = from; i < to; i++) {
+      transactions.add(get(i));
+    }
+    return transactions;
+  }
+
+  /** @return the latest transactions, in order, at most the supplied count */
+  public List<Transaction> last(final int count) {
+    return range(Math.max(first, size - count), size);
+  }
+
+  /*
+   * The number of transactions in the history log: those saved by a snapshot count once it was
+   * completed, the latest completed one being at the supplied journal position.
+   */
+  private int savedAsOf(final long completedPosition) {
+    if (savingPosition >= 0 && savingPosition <= completedPosition) {
+      saved = saving;
+      savingPosition = -1;
+    }
+    return saved;
+  }
+
+  /**
+   * Append the transactions which are not in the history log yet, up to those made before a
+   * snapshot was started, in blocks of at most a chunk. Each block starts with the customer's and
+   * the account's names, then the index of its first transaction and their number. The history is
+   * only locked while a block is encoded: the transactions made before the snapshot started cannot
+   * change anymore, although they may be forgotten.
+   *
+   * @param count The number of transactions when the snapshot started
+   * @param position The journal position of the snapshot
+   * @param completedPosition The journal position of the latest completed snapshot
+   */
+  void writeTo(
+      final HistoryLog log,
+      final String username,
+      final String accountName,
+      final int count,
+      final long position,
+      final long completedPosition)
+      throws IOException {
+    int start = savedAsOf(completedPosition);
+    while (true) {
+      SnapshotWriter block = SnapshotWriter.section();
+      int end;
+      lock.lock();
+      try {
+        start = Math.max(start, first);
+        end = Math.min(count, start + Config.TRANSACTION_CHUNK_SIZE);
+        if (start < end) {
+          block.writeString(username);
+          block.writeString(accountName);
+          block.writeInt(start);
+          block.writeInt(end - start);
+          for (int i = start; i < end; i++) {
+            Chunk chunk = chunkAt(i);
+            int offset = i & CHUNK_MASK;
+            block.writeLong(chunk.times[offset]);
+            block.writeString(chunk.counterparties[offset]);
+            block.writeLong(chunk.amounts[offset]);
+            block.writeLong(chunk.balances[offset]);
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+      if (start >= end) {
+        break;
+      }
+      log.append(block.toByteArray());
+      start = end;
+    }
+    saving = count;
+    savingPosition = position;
+  }
+
+  /**
+   * Decode the transactions of a block written by {@link #writeTo(HistoryLog, String, String, int,
+   * long, long)}, past its names.
+   */
+  void readFrom(final HistoryLog.Block in) throws IOException {
+    int start = in.readInt();
+    if (start < size) {
+      throw new IOException("History log repeats the transactions from " + start);
+    }
+    // the transactions before were forgotten before they were saved
+    if (start > size) {
+      lock.lock();
+      try {
+        skipTo(start);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    for (int count = in.readInt(); count > 0; count--) {
+      add(toDateTime(in.readLong()), in.readString().intern(), in.readLong(), in.readLong());
+    }
+  }
+
+  /** Expect a number of transactions in the history log, as a snapshot recorded it. */
+  void expectSaved(final int count) {
+    saved = count;
+    savingPosition = -1;
+  }
+
+  /** @return true if the history log held the number of transactions the snapshot recorded */
+  boolean isComplete() {
+    return size == saved;
+  }
+
+  // the times are kept to the millisecond, the local time read as UTC as in the snapshots
+  private static long toMillis(final LocalDateTime time) {
+    return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+  }
+
+  private static LocalDateTime toDateTime(final long millis) {
+    return LocalDateTime.ofEpochSecond(
+        Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+  }
+}
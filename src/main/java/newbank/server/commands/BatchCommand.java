@@ -0,0 +1,164 @@
+package newbank.server.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import newbank.server.BatchOperation;
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+import newbank.utils.Config;
+
+/**
+ * Deposits, moves and payments sent together, from a BATCH request to an END request, and applied
+ * at once by {@link NewBank#applyBatch}. The batch answers once, with the response to each of its
+ * requests.
+ *
+ * <p>Every request is validated before any is applied. An atomic batch is applied only if all of
+ * its requests are valid, and is rolled back if any of them fails.
+ */
+public class BatchCommand extends Command {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("BATCH [ATOMIC]");
+  private static final ResponsibilityChain<BatchCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          BatchCommand::requestingHelp,
+          BatchCommand::mustLogIn,
+          BatchCommand::incorrectUsage,
+          BatchCommand::notAtomic);
+
+  private final List<String> requests = new ArrayList<>();
+  private int dropped;
+  private boolean atomic;
+
+  public BatchCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
+    super(bank, tokens, customerID);
+  }
+
+  @Override
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
+  }
+
+  /**
+   * Start collecting the requests of the batch.
+   *
+   * @return a failure message if the batch cannot start, otherwise an empty string.
+   */
+  public String open() {
+    String message = RESPONSIBILITIES.apply(this);
+    if (!message.isEmpty()) return message;
+
+    atomic = tokens.size() == 2;
+    return "";
+  }
+
+  /** @return true if a request ends the batch */
+  public static boolean isEnd(final String request) {
+    return request.trim().equalsIgnoreCase("END");
+  }
+
+  /** Add a request to the batch. The requests past the maximum size of a batch are dropped. */
+  public void add(final String request) {
+    if (requests.size() < Config.MAX_BATCH_REQUESTS) {
+      requests.add(request);
+    } else {
+      dropped++;
+    }
+  }
+
+  @Override
+  public String execute() {
+    if (dropped > 0) {
+      return String.format(
+          "FAIL: A batch holds at most %d requests, %d were sent.",
+          Config.MAX_BATCH_REQUESTS, requests.size() + dropped);
+    }
+    if (requests.isEmpty()) {
+      return "FAIL: The batch is empty.";
+    }
+
+    String[] responses = new String[requests.size()];
+    List<Batchable> commands = new ArrayList<>(requests.size());
+    List<BatchOperation> operations = new ArrayList<>(requests.size());
+    List<Integer> positions = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      // each command keeps its own tokens until the batch is applied
+      RequestTokens requestTokens = new RequestTokens();
+      requestTokens.tokenize(requests.get(i));
+      Command command =
+          CommandRegistry.get(requestTokens).makeCommand(bank, requestTokens, customerID);
+
+      if (!(command instanceof Batchable)) {
+        responses[i] =
+            String.format("FAIL: Request [%s] cannot be part of a batch.", requests.get(i));
+        continue;
+      }
+      Batchable batchable = (Batchable) command;
+      String message = batchable.validate();
+      if (!message.isEmpty()) {
+        responses[i] = message;
+        continue;
+      }
+
+      commands.add(batchable);
+      operations.add(batchable.toOperation());
+      positions.add(i);
+    }
+
+    int invalid = requests.size() - operations.size();
+    if (atomic && invalid > 0) {
+      for (int position : positions) {
+        responses[position] = "SKIPPED";
+      }
+      return format(
+          String.format(
+              "FAIL: Batch not executed, %d of %d requests are invalid.", invalid, responses.length),
+          responses);
+    }
+
+    boolean applied = bank.applyBatch(customerID, operations, atomic);
+    int succeeded = 0;
+    for (int i = 0; i < operations.size(); i++) {
+      BatchOperation operation = operations.get(i);
+      Batchable command = commands.get(i);
+      switch (operation.getStatus()) {
+        case APPLIED:
+          succeeded++;
+          responses[positions.get(i)] = command.describe(null);
+          break;
+        case FAILED:
+          responses[positions.get(i)] = command.describe(operation.getFailure());
+          break;
+        case ROLLED_BACK:
+          responses[positions.get(i)] = "ROLLED BACK";
+          break;
+        default:
+          responses[positions.get(i)] = "SKIPPED";
+      }
+    }
+
+    if (atomic && !applied) {
+      return format("FAIL: Batch rolled back, no request was applied.", responses);
+    }
+    return format(
+        String.format(
+            "SUCCESS: Batch executed, %d of %d requests succeeded.", succeeded, responses.length),
+        responses);
+  }
+
+  private static String format(final String summary, final String[] responses) {
+    StringBuilder builder = new StringBuilder(summary);
+    for (int i = 0; i < responses.length; i++) {
+      builder
+          .append(Config.MULTILINE_INFO_SEPARATOR)
+          .append(i + 1)
+          .append(": ")
+          .append(responses[i]);
+    }
+    return builder.toString();
+  }
+
+  private String notAtomic() {
+    if (tokens.size() == 1 || tokens.equalsIgnoreCase(1, "ATOMIC")) return "";
+    return String.format("FAIL: Usage: %s", getSyntax().getUsage());
+  }
+}
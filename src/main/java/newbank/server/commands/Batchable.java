@@ -0,0 +1,18 @@
+package newbank.server.commands;
+
+import newbank.server.BatchOperation;
+
+/** A command which can also be part of a {@link BatchCommand}. */
+interface Batchable {
+  /** @return a failure message if the request is invalid, otherwise an empty string. */
+  String validate();
+
+  /** @return the operation making a valid request */
+  BatchOperation toOperation();
+
+  /**
+   * @param failure The exception the request failed with, or null if it succeeded
+   * @return the response to the request
+   */
+  String describe(Exception failure);
+}
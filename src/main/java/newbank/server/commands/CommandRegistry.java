@@ -0,0 +1,108 @@
+package newbank.server.commands;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The commands supported by the bank, by name. The registry is built once and shared by every
+ * client session, along with the statistics of each command's executions.
+ */
+public final class CommandRegistry {
+  private static final RegisteredCommand[] COMMANDS;
+  private static final RegisteredCommand UNKNOWN;
+  private static final long STARTED = System.nanoTime();
+
+  // add supported commands here
+  static {
+    Map<String, CommandSupplier> commands = new LinkedHashMap<>();
+    commands.put("DEPOSIT", DepositCommand::new);
+    commands.put("LOGIN", LoginCommand::new);
+    commands.put("LOGOUT", LogoutCommand::new);
+    commands.put("NEWACCOUNT", NewAccountCommand::new);
+    commands.put("QUIT", QuitCommand::new);
+    commands.put("REGISTER", RegisterCommand::new);
+    commands.put("SHOWMYACCOUNTS", ShowAccountsCommand::new);
+    commands.put("MOVE", MoveMoneyCommand::new);
+    commands.put("DEFAULT", DefaultCommand::new);
+    commands.put("PAY", PayCommand::new);
+    commands.put("REQUESTLOAN", RequestLoanCommand::new);
+    commands.put("GRANTLOAN", GrantLoanCommand::new);
+    commands.put("OFFERLOAN", OfferLoanCommand::new);
+    commands.put("BATCH", BatchCommand::new);
+    commands.put("STATEMENT", StatementCommand::new);
+    commands.put("UNKNOWN", UnknownCommand::new);
+    commands.put("HELP", HelpCommand::new);
+    commands.put("STATS", StatsCommand::new);
+
+    List<RegisteredCommand> registered = new ArrayList<>();
+    RegisteredCommand unknown = null;
+    for (Map.Entry<String, CommandSupplier> command : commands.entrySet()) {
+      registered.add(new RegisteredCommand(command.getKey(), command.getValue()));
+      if (command.getKey().equals("UNKNOWN")) {
+        unknown = registered.get(registered.size() - 1);
+      }
+    }
+    COMMANDS = registered.toArray(new RegisteredCommand[0]);
+    UNKNOWN = unknown;
+  }
+
+  private CommandRegistry() {}
+
+  /**
+   * Find the command named by a request's first token, ignoring case. The token is compared in
+   * place: most names are told apart by their length alone.
+   *
+   * @return the named command, or {@link UnknownCommand} if there is none
+   */
+  public static RegisteredCommand get(final RequestTokens tokens) {
+    for (RegisteredCommand command : COMMANDS) {
+      if (tokens.equalsIgnoreCase(0, command.getName())) {
+        return command;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * @param separator The separator between the lines
+   * @return the statistics of the commands executed since the server started, one per line
+   */
+  public static String statistics(final String separator) {
+    double seconds = (System.nanoTime() - STARTED) / 1e9;
+    StringBuilder builder = new StringBuilder();
+    for (RegisteredCommand command : COMMANDS) {
+      if (command.getStats().getCount() == 0) {
+        continue;
+      }
+      if (builder.length() > 0) {
+        builder.append(separator);
+      }
+      builder.append(command.getStats().format(command.getName(), seconds));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Append the current statistics to a file, under a timestamp.
+   *
+   * @param file The file, created if it does not exist
+   * @throws IOException if the file cannot be written.
+   */
+  public static void appendStatisticsTo(final Path file) throws IOException {
+    String nl = System.lineSeparator();
+    String report = String.format("%s%s%s%s%s", LocalDateTime.now(), nl, statistics(nl), nl, nl);
+    Files.write(
+        file,
+        report.getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND);
+  }
+}
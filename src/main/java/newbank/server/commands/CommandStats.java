@@ -0,0 +1,57 @@
+package newbank.server.commands;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import newbank.utils.LatencyHistogram;
+
+/**
+ * The latencies and outcomes of the executions of a command. Recording is lock-free, so that
+ * sessions executing the same command do not contend.
+ */
+public class CommandStats {
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final LongAdder successes = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+
+  /**
+   * @param nanos The time taken to execute the command
+   * @param response The command's response
+   */
+  public void record(final long nanos, final String response) {
+    latencies.record(nanos);
+    if (response.startsWith("FAIL")) {
+      failures.increment();
+    } else {
+      successes.increment();
+    }
+  }
+
+  public long getCount() {
+    return successes.sum() + failures.sum();
+  }
+
+  /**
+   * @param name The command's name
+   * @param seconds The time over which the executions were recorded, to compute their rate
+   * @return a one line summary, with the latencies in microseconds
+   */
+  public String format(final String name, final double seconds) {
+    long count = getCount();
+    return String.format(
+        "%-15s count=%d ok=%d fail=%d rate=%.1f/s p50=%dus p99=%dus p999=%dus max=%dus",
+        name,
+        count,
+        successes.sum(),
+        failures.sum(),
+        seconds > 0 ? count / seconds : 0.0,
+        toMicros(latencies.getValueAtPercentile(50)),
+        toMicros(latencies.getValueAtPercentile(99)),
+        toMicros(latencies.getValueAtPercentile(99.9)),
+        toMicros(latencies.getMax()));
+  }
+
+  private static long toMicros(final long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+}
@@ -4,5 +4,6 @@ import newbank.server.CustomerID;
 import newbank.server.NewBank;
 
 public interface CommandSupplier {
-  public Command makeCommand(final NewBank bank, final String[] tokens, final CustomerID customer);
+  public Command makeCommand(
+      final NewBank bank, final RequestTokens tokens, final CustomerID customer);
 }
@@ -0,0 +1,88 @@
+package newbank.server.commands;
+
+/**
+ * A command's syntax, parsed once from its usage string such as <code>NEWACCOUNT &lt;Name&gt;
+ * [Default]</code>.
+ *
+ * <p>The usage is made of the command name, the mandatory arguments, and any optional arguments at
+ * the end. These are either optional literals, of the form "[OPT-LIT]", which must have the given
+ * value when supplied, or optional arguments of the form "[&lt;name&gt;]", which take any value.
+ */
+public final class CommandSyntax {
+  private final String usage;
+  private final int maxTokens;
+  private final int requiredTokens;
+  // the optional literals, indexed by their token position, null for the other tokens
+  private final String[] optionalLiterals;
+
+  private CommandSyntax(final String usage) {
+    this.usage = usage;
+
+    String[] expectedTokens = usage.split("\\s");
+    optionalLiterals = new String[expectedTokens.length];
+    int required = expectedTokens.length;
+    while (required > 0 && isOptional(expectedTokens[required - 1])) {
+      required--;
+      String value = expectedTokens[required].substring(1, expectedTokens[required].length() - 1);
+      if (!value.startsWith("<")) {
+        optionalLiterals[required] = value;
+      }
+    }
+
+    maxTokens = expectedTokens.length;
+    requiredTokens = required;
+  }
+
+  public static CommandSyntax parse(final String usage) {
+    return new CommandSyntax(usage);
+  }
+
+  private static boolean isOptional(final String token) {
+    return token.length() > 2 && token.startsWith("[") && token.endsWith("]");
+  }
+
+  public String getUsage() {
+    return usage;
+  }
+
+  /** @return the number of tokens, including the command name, when every argument is given */
+  public int getMaxTokens() {
+    return maxTokens;
+  }
+
+  /** @return the number of tokens, including the command name, which must be given */
+  public int getRequiredTokens() {
+    return requiredTokens;
+  }
+
+  /**
+   * <p>Determines whether a request does not follow the syntax, taking into account any
+   * optional arguments.</p>
+   *
+   * <p>Here is an example using the command <code>ADDACCOUNT &lt;name&gt; [DEFAULT]</code>:</p>
+   * <code>ADDACCOUNT Main DEFAULT</code>
+   * <p>Here "DEFAULT" is the optional-literal argument. If it is supplied, we
+   * must confirm that it has the expected value, "DEFAULT", which it does, so
+   * the command succeeds.</p>
+   *
+   * @return true if the user supplies too many arguments or omits a non-optional one, or if they
+   * supply an optional-literal argument other than the one specified. Otherwise returns false.
+   */
+  public boolean isIncorrectUsage(final RequestTokens tokens) {
+    if (tokens.size() > maxTokens || tokens.size() < requiredTokens) {
+      return true;
+    }
+
+    for (int i = requiredTokens; i < tokens.size(); i++) {
+      if (optionalLiterals[i] != null && !tokens.equalsIgnoreCase(i, optionalLiterals[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return usage;
+  }
+}
@@ -5,33 +5,34 @@ import newbank.server.NewBank;
 import newbank.server.exceptions.AccountInvalidException;
 import newbank.server.exceptions.AccountTypeInvalidException;
 
-import java.util.ArrayList;
-
 public class DefaultCommand extends Command {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("DEFAULT <Name>");
+  private static final ResponsibilityChain<DefaultCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          DefaultCommand::requestingHelp,
+          DefaultCommand::mustLogIn,
+          DefaultCommand::incorrectUsage);
 
-  public DefaultCommand(final NewBank bank, final String[] tokens, final CustomerID customerID) {
+  public DefaultCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
     super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::mustLogIn);
-    responsibilityChain.add(this::incorrectUsage);
   }
 
-  public String getSyntax() {
-    return "DEFAULT <Name>";
+  @Override
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = RESPONSIBILITIES.apply(this);
     if (!message.isEmpty()) return message;
-    final String accountName = tokens[1];
+    final String accountName = tokens.get(1);
     try {
       bank.setDefaultAccount(customerID, accountName);
     } catch (AccountInvalidException ex) {
-      return String.format("FAIL: Account [%s] does not exist.", tokens[1]);
+      return String.format("FAIL: Account [%s] does not exist.", tokens.get(1));
     } catch (AccountTypeInvalidException ex) {
-      return String.format("FAIL: Account [%s] cannot be default.", tokens[1]);
+      return String.format("FAIL: Account [%s] cannot be default.", tokens.get(1));
     }
     return String.format("SUCCESS: Account [%s] set as default.", accountName);
   }
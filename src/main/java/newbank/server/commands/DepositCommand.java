@@ -1,55 +1,81 @@
 package newbank.server.commands;
 
-import org.javamoney.moneta.Money;
-
+import newbank.server.BatchOperation;
 import newbank.server.CustomerID;
 import newbank.server.NewBank;
+import newbank.server.exceptions.AccountBalanceInvalidException;
 import newbank.server.exceptions.AccountInvalidException;
 import newbank.server.commands.responsibilities.SetsAmount;
 
-import java.util.ArrayList;
+public class DepositCommand extends Command implements SetsAmount, Batchable {
+  private static final CommandSyntax SYNTAX =
+      CommandSyntax.parse("DEPOSIT <account_name> <amount>");
+  private static final ResponsibilityChain<DepositCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          DepositCommand::requestingHelp,
+          DepositCommand::mustLogIn,
+          DepositCommand::incorrectUsage,
+          DepositCommand::invalidAmount);
 
-public class DepositCommand extends Command implements SetsAmount {
-  Money amount;
+  private long amount;
 
-  public DepositCommand(final NewBank bank, final String[] tokens, final CustomerID customerID) {
+  public DepositCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
     super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::mustLogIn);
-    responsibilityChain.add(this::incorrectUsage);
-    responsibilityChain.add(this::invalidAmount);
   }
 
-  public String getSyntax() {
-    return "DEPOSIT <account_name> <amount>";
+  @Override
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = validate();
     if (!message.isEmpty()) return message;
 
-    final String accountName = tokens[1];
-
     try {
-      bank.depositMoney(customerID, accountName, amount);
-    } catch (AccountInvalidException ex) {
+      bank.depositMoney(customerID, tokens.get(1), amount);
+    } catch (AccountInvalidException | AccountBalanceInvalidException ex) {
+      return describe(ex);
+    }
+
+    return describe(null);
+  }
+
+  //////////////////////////// Batchable overrides ////////////////////////////
+  @Override
+  public String validate() {
+    return RESPONSIBILITIES.apply(this);
+  }
+
+  @Override
+  public BatchOperation toOperation() {
+    return BatchOperation.deposit(tokens.get(1), amount);
+  }
+
+  @Override
+  public String describe(final Exception failure) {
+    final String accountName = tokens.get(1);
+
+    if (failure instanceof AccountInvalidException) {
       return String.format("FAIL: Account [%s] does not exist.", accountName);
     }
+    if (failure instanceof AccountBalanceInvalidException) {
+      return String.format("FAIL: Account [%s] cannot hold that much money.", accountName);
+    }
 
     return "SUCCESS: Account credited successfully.";
   }
 
   //////////////////////////// SetsAmount overrides ////////////////////////////
   @Override
-  public void setAmount(Money amount) {
+  public void setAmount(long amount) {
     this.amount = amount;
   }
 
   @Override
-  public String getAmountInput() {
-    return tokens[2];
+  public int getAmountPosition() {
+    return 2;
   }
 
   @Override
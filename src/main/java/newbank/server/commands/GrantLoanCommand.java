@@ -5,58 +5,58 @@ import newbank.server.CustomerID;
 import newbank.server.NewBank;
 import newbank.server.commands.responsibilities.SetsCustomer;
 import newbank.server.exceptions.AccountBalanceInsufficientException;
+import newbank.server.exceptions.AccountBalanceInvalidException;
 import newbank.server.exceptions.AccountInvalidException;
-import newbank.server.exceptions.CustomerInvalidException;
+import newbank.server.exceptions.LoanRequestInvalidException;
 import newbank.server.microloans.LoanProposals;
 import newbank.server.microloans.LoanRequest;
-import newbank.server.microloans.MicroLoan;
 
-import java.util.ArrayList;
 import java.util.Optional;
 
 public class GrantLoanCommand extends Command implements SetsCustomer {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("GRANTLOAN <loan-request-id>");
+  private static final ResponsibilityChain<GrantLoanCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          GrantLoanCommand::requestingHelp,
+          GrantLoanCommand::mustLogIn,
+          GrantLoanCommand::incorrectUsage,
+          GrantLoanCommand::retrieveCustomer,
+          GrantLoanCommand::setLoanRequest,
+          GrantLoanCommand::noDefaultAccount);
+
   Customer customer;
   private LoanRequest loanRequest;
 
-  public GrantLoanCommand(final NewBank bank, final String[] tokens, final CustomerID customer) {
+  public GrantLoanCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customer) {
     super(bank, tokens, customer);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::mustLogIn);
-    responsibilityChain.add(this::incorrectUsage);
-    responsibilityChain.add(this::retrieveCustomer);
-    responsibilityChain.add(this::setLoanRequest);
-    responsibilityChain.add(this::noDefaultAccount);
   }
 
   @Override
-  public String getSyntax() {
-    return "GRANTLOAN <loan-request-id>";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = RESPONSIBILITIES.apply(this);
     if (!message.isEmpty()) return message;
 
     try {
-      NewBank.getBank().payCustomer(
-          customerID, loanRequest.getBorrower().getUsername(), loanRequest.getProposedAmount()
-      );
-    } catch (AccountInvalidException | CustomerInvalidException | AccountBalanceInsufficientException e) {
-      // The first 2 exceptions can't be thrown in practice because we've validated the arguments already
+      bank.grantLoan(customerID, loanRequest.getID());
+    } catch (AccountInvalidException | LoanRequestInvalidException | AccountBalanceInsufficientException e) {
+      // The first exception can't be thrown in practice because we've validated the arguments already
       return e.getMessage();
+    } catch (AccountBalanceInvalidException e) {
+      return "FAIL: The borrower cannot receive that much money.";
     }
 
-    customer.getLoanHistory().addLoan(new MicroLoan(customer, loanRequest));
-    loanRequest.accept();
     return "SUCCESS: Loan request accepted.";
   }
 
   private String setLoanRequest() {
-    Optional<LoanRequest> possRequest = new LoanProposals().getCurrentRequest(tokens[1]);
+    Optional<LoanRequest> possRequest = new LoanProposals().getCurrentRequest(tokens.get(1));
     if (!possRequest.isPresent())
-      return String.format("FAIL: loan-request with id [%s] not found.", tokens[1]);
+      return String.format("FAIL: loan-request with id [%s] not found.", tokens.get(1));
     
     loanRequest = possRequest.get();
     if (!loanRequest.getBorrower().equals(customer)) return "";
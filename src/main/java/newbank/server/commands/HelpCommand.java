@@ -4,24 +4,25 @@ import newbank.server.CustomerID;
 import newbank.server.NewBank;
 import newbank.utils.Config;
 
-import java.util.ArrayList;
-
 public class HelpCommand extends Command {
-  public HelpCommand(final NewBank bank, final String[] tokens, final CustomerID customerID) {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("HELP");
+  private static final ResponsibilityChain<HelpCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          HelpCommand::requestingHelp,
+          HelpCommand::incorrectUsage);
+
+  public HelpCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
     super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::incorrectUsage);
   }
 
   @Override
-  public String getSyntax() {
-    return "HELP";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = RESPONSIBILITIES.apply(this);
     if (!message.isEmpty()) return message;
 
     return new StringBuilder()
@@ -66,6 +67,14 @@ public class HelpCommand extends Command {
             String.format(
                 "%-15s%s", "PAY", "Credit a specified customer's default current account"))
         .append(Config.MULTILINE_INFO_SEPARATOR)
+        .append(
+            String.format(
+                "%-15s%s", "STATEMENT", "Display the latest transactions of an account, or those between two dates"))
+        .append(Config.MULTILINE_INFO_SEPARATOR)
+        .append(
+            String.format(
+                "%-15s%s", "BATCH", "Send several deposits, moves and payments, up to END"))
+        .append(Config.MULTILINE_INFO_SEPARATOR)
         .append(Config.MULTILINE_INFO_SEPARATOR)
         .append("Use '<commnad> help' for information on a specific command.")
         .append(Config.MULTILINE_INFO_SEPARATOR)
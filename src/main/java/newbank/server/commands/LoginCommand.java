@@ -3,24 +3,24 @@ package newbank.server.commands;
 import newbank.server.CustomerID;
 import newbank.server.NewBank;
 
-import java.util.ArrayList;
-
 public class LoginCommand extends Command {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("LOGIN <username> <password>");
+  private static final ResponsibilityChain<LoginCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          LoginCommand::requestingHelp,
+          LoginCommand::incorrectUsage);
 
-  public LoginCommand(final NewBank bank, final String[] tokens, final CustomerID customerID) {
+  public LoginCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
     super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::incorrectUsage);
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = RESPONSIBILITIES.apply(this);
     if (!message.isEmpty()) return message;
 
-    String username = tokens[1];
-    String password = tokens[2];
+    String username = tokens.get(1);
+    String password = tokens.get(2);
     CustomerID tempCustomer = bank.checkLogInDetails(username, password);
 
     if (tempCustomer == null) return "FAIL: Log In Failed";
@@ -31,7 +31,7 @@ public class LoginCommand extends Command {
   }
   
   @Override
-  public String getSyntax() {
-    return "LOGIN <username> <password>";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 }
@@ -3,26 +3,26 @@ package newbank.server.commands;
 import newbank.server.CustomerID;
 import newbank.server.NewBank;
 
-import java.util.ArrayList;
-
 public class LogoutCommand extends Command {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("LOGOUT");
+  private static final ResponsibilityChain<LogoutCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          LogoutCommand::requestingHelp,
+          LogoutCommand::mustLogIn,
+          LogoutCommand::incorrectUsage);
 
-  public LogoutCommand(final NewBank bank, final String[] tokens, final CustomerID customerID) {
+  public LogoutCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
     super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::mustLogIn);
-    responsibilityChain.add(this::incorrectUsage);
   }
 
   @Override
-  public String getSyntax() {
-    return "LOGOUT";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = RESPONSIBILITIES.apply(this);
     if (!message.isEmpty()) return message;
 
     customerID.setKey("");
@@ -1,68 +1,100 @@
 package newbank.server.commands;
 
-import java.util.ArrayList;
-
-import org.javamoney.moneta.Money;
-
+import newbank.server.BatchOperation;
 import newbank.server.CustomerID;
 import newbank.server.NewBank;
 import newbank.server.exceptions.AccountBalanceInsufficientException;
+import newbank.server.exceptions.AccountBalanceInvalidException;
 import newbank.server.exceptions.AccountInvalidException;
 import newbank.server.commands.responsibilities.SetsAmount;
 
-public class MoveMoneyCommand extends Command implements SetsAmount {
-  private Money amount;
+public class MoveMoneyCommand extends Command implements SetsAmount, Batchable {
+  private static final CommandSyntax SYNTAX =
+      CommandSyntax.parse("MOVE <account_name_from> <account_name_to> <amount>");
+  private static final ResponsibilityChain<MoveMoneyCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          MoveMoneyCommand::requestingHelp,
+          MoveMoneyCommand::mustLogIn,
+          MoveMoneyCommand::incorrectUsage,
+          MoveMoneyCommand::invalidAmount);
+
+  private long amount;
 
-  public MoveMoneyCommand(final NewBank bank, final String[] tokens, final CustomerID customerID) {
+  public MoveMoneyCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
     super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::mustLogIn);
-    responsibilityChain.add(this::incorrectUsage);
-    responsibilityChain.add(this::invalidAmount);
   }
 
   @Override
-  public String getSyntax() {
-    return "MOVE <account_name_from> <account_name_to> <amount>";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = validate();
     if (!message.isEmpty()) return message;
 
-    final String accountNameFrom = tokens[1];
-    final String accountNameTo = tokens[2];
+    try {
+      bank.moveMoney(customerID, tokens.get(1), tokens.get(2), amount);
+    } catch (AccountInvalidException
+        | AccountBalanceInsufficientException
+        | AccountBalanceInvalidException ex) {
+      return describe(ex);
+    }
+
+    return describe(null);
+  }
+
+  //////////////////////////// Batchable overrides ////////////////////////////
+  @Override
+  public String validate() {
+    String message = RESPONSIBILITIES.apply(this);
+    if (!message.isEmpty()) return message;
 
-    if (accountNameFrom.equals(accountNameTo)) {
+    if (tokens.get(1).equals(tokens.get(2))) {
       return "FAIL: The accounts must be different to complete a transfer.";
     }
+    return "";
+  }
 
-    try {
-      bank.moveMoney(customerID, accountNameFrom, accountNameTo, amount);
+  @Override
+  public BatchOperation toOperation() {
+    return BatchOperation.move(tokens.get(1), tokens.get(2), amount);
+  }
 
+  @Override
+  public String describe(final Exception failure) {
+    final String accountNameFrom = tokens.get(1);
+    final String accountNameTo = tokens.get(2);
+
+    if (failure instanceof AccountInvalidException) {
       return String.format(
-          "SUCCESS: Money transferred from [%s] to [%s] successfully.",
-          accountNameFrom, accountNameTo);
-    } catch (AccountInvalidException ex) {
-      return String.format("FAIL: Account [%s] does not exist.", ex.getAccountName());
-    } catch (AccountBalanceInsufficientException ex) {
+          "FAIL: Account [%s] does not exist.",
+          ((AccountInvalidException) failure).getAccountName());
+    }
+    if (failure instanceof AccountBalanceInsufficientException) {
       return String.format(
           "FAIL: Insufficient balance in [%s], missing: [%s].",
-          accountNameFrom, ex.getMissingBalance());
+          accountNameFrom, ((AccountBalanceInsufficientException) failure).getMissingBalance());
     }
+    if (failure instanceof AccountBalanceInvalidException) {
+      return String.format("FAIL: Account [%s] cannot hold that much money.", accountNameTo);
+    }
+
+    return String.format(
+        "SUCCESS: Money transferred from [%s] to [%s] successfully.",
+        accountNameFrom, accountNameTo);
   }
 
   //////////////////////////// SetsAmount overrides ////////////////////////////
   @Override
-  public void setAmount(Money amount) {
+  public void setAmount(long amount) {
     this.amount = amount;
   }
 
   @Override
-  public String getAmountInput() {
-    return tokens[3];
+  public int getAmountPosition() {
+    return 3;
   }
 
   @Override
@@ -4,30 +4,30 @@ import newbank.server.Account;
 import newbank.server.CustomerID;
 import newbank.server.NewBank;
 
-import java.util.ArrayList;
-
 public class NewAccountCommand extends Command {
-
-  public NewAccountCommand(final NewBank bank, final String[] tokens, final CustomerID customerID) {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("NEWACCOUNT <Name> [Default]");
+  private static final ResponsibilityChain<NewAccountCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          NewAccountCommand::requestingHelp,
+          NewAccountCommand::mustLogIn,
+          NewAccountCommand::incorrectUsage);
+
+  public NewAccountCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
     super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::mustLogIn);
-    responsibilityChain.add(this::incorrectUsage);
   }
 
   @Override
-  public String getSyntax() {
-    return "NEWACCOUNT <Name> [Default]";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = RESPONSIBILITIES.apply(this);
     if (!message.isEmpty()) return message;
 
-    final String accountName = tokens[1];
-    boolean isDefault = tokens.length == 3 || isFirstNonSavingsAccount(accountName);
+    final String accountName = tokens.get(1);
+    boolean isDefault = tokens.size() == 3 || isFirstNonSavingsAccount(accountName);
 
     return bank.newAccount(customerID, accountName, isDefault);
   }
@@ -0,0 +1,160 @@
+package newbank.server.commands;
+
+import java.math.BigDecimal;
+
+import newbank.server.Customer;
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+import newbank.server.commands.responsibilities.SetsAmount;
+import newbank.server.commands.responsibilities.SetsCustomer;
+import newbank.utils.MinorUnits;
+
+import static newbank.utils.Config.*;
+
+/**
+ * Post an offer to lend up to an amount, at a yearly interest rate given as a percentage, for
+ * repayment terms up to a maximum. The offer is lent at once to the current requests it matches,
+ * and to the ones submitted while it is current.
+ */
+public class OfferLoanCommand extends Command implements SetsAmount, SetsCustomer {
+  private static final CommandSyntax SYNTAX =
+      CommandSyntax.parse("OFFERLOAN <amount> <interest-rate> <max-repayment-term-days>");
+  private static final ResponsibilityChain<OfferLoanCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          OfferLoanCommand::requestingHelp,
+          OfferLoanCommand::mustLogIn,
+          OfferLoanCommand::incorrectUsage,
+          OfferLoanCommand::retrieveCustomer,
+          OfferLoanCommand::alreadyOfferedLoan,
+          OfferLoanCommand::alreadyRequestedLoan,
+          OfferLoanCommand::invalidAmount,
+          OfferLoanCommand::amountTooLarge,
+          OfferLoanCommand::invalidInterestRate,
+          OfferLoanCommand::invalidRepaymentTerm,
+          OfferLoanCommand::noDefaultAccount);
+
+  private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+  long amount;
+  BigDecimal interestRate;
+  int maxRepaymentTerm;
+  Customer customer;
+
+  public OfferLoanCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customer) {
+    super(bank, tokens, customer);
+  }
+
+  @Override
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
+  }
+
+  @Override
+  public String execute() {
+    String message = RESPONSIBILITIES.apply(this);
+    if (!message.isEmpty()) return message;
+
+    bank.offerLoan(customerID, amount, interestRate, maxRepaymentTerm);
+    return "SUCCESS: Loan offer submitted.";
+  }
+
+  private String alreadyOfferedLoan() {
+    if (!customer.getLoanHistory().hasCurrentLoanOffer()) return "";
+
+    return "FAIL: You already have a current loan offer";
+  }
+
+  private String alreadyRequestedLoan() {
+    if (!customer.getLoanHistory().hasCurrentLoanRequest()) return "";
+
+    return "FAIL: You may not offer a loan while you have a current loan request";
+  }
+
+  private String amountTooLarge() {
+    if (amount > MinorUnits.of(MAX_MICROLOAN))
+      return String.format(
+          "FAIL: Offered loan of [%s] (%s) exceeds maximum of %s",
+          getAmountInput(), DEFAULT_CURRENCY, MAX_MICROLOAN.toString()
+      );
+    return "";
+  }
+
+  /**
+   * Raises a failure message if the interest rate is not a percentage between 0 and 100, and
+   * otherwise sets the `interestRate` field as a fraction
+   */
+  private String invalidInterestRate() {
+    BigDecimal percentage;
+    try {
+      percentage = new BigDecimal(tokens.get(2));
+    } catch (NumberFormatException ex) {
+      return String.format("FAIL: Interest rate [%s] is invalid.", tokens.get(2));
+    }
+
+    if (percentage.signum() < 0 || percentage.compareTo(HUNDRED) > 0)
+      return String.format(
+          "FAIL: Interest rate of [%s]%% must be between 0 and 100.", tokens.get(2)
+      );
+
+    interestRate = percentage.divide(HUNDRED).stripTrailingZeros();
+    return "";
+  }
+
+  /**
+   * Raises a failure message if the maximum repayment term is invalid and otherwise sets the
+   * `maxRepaymentTerm` field
+   */
+  private String invalidRepaymentTerm() {
+    try {
+      maxRepaymentTerm = Integer.parseInt(tokens.get(3));
+    } catch (NumberFormatException ex) {
+      return String.format(
+          "FAIL: Repayment term [%s] is invalid.", tokens.get(3)
+      );
+    }
+
+    if (maxRepaymentTerm <= 0)
+      return String.format(
+          "FAIL: Repayment term of [%d] days invalid.", maxRepaymentTerm
+      );
+
+    if (maxRepaymentTerm > MAX_REPAYMENT_PERIOD_DAYS)
+      return String.format(
+          "FAIL: Repayment term [%d] exceeds maximum of %d days",
+          maxRepaymentTerm, MAX_REPAYMENT_PERIOD_DAYS
+      );
+    return "";
+  }
+
+  //////////////////////////// SetsAmount overrides ////////////////////////////
+  @Override
+  public void setAmount(long amount) {
+    this.amount = amount;
+  }
+
+  @Override
+  public int getAmountPosition() {
+    return 1;
+  }
+
+  @Override
+  public String getAmountName() {
+    return "Loan";
+  }
+
+  ///////////////////////// SetsCustomer overrides ////////////////////////////
+  @Override
+  public void setCustomer(Customer customer) {
+    this.customer = customer;
+  }
+
+  @Override
+  public CustomerID getCustomerID() {
+    return customerID;
+  }
+
+  @Override
+  public NewBank getBank() {
+    return bank;
+  }
+}
@@ -2,59 +2,90 @@ package newbank.server.commands;
 
 import newbank.server.commands.responsibilities.SetsAmount;
 import newbank.server.exceptions.AccountBalanceInsufficientException;
-import org.javamoney.moneta.Money;
-
+import newbank.server.exceptions.AccountBalanceInvalidException;
+import newbank.server.BatchOperation;
 import newbank.server.CustomerID;
 import newbank.server.NewBank;
 import newbank.server.exceptions.AccountInvalidException;
 import newbank.server.exceptions.CustomerInvalidException;
 
-import java.util.ArrayList;
+public class PayCommand extends Command implements SetsAmount, Batchable {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("PAY <person> <amount>");
+  private static final ResponsibilityChain<PayCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          PayCommand::requestingHelp,
+          PayCommand::mustLogIn,
+          PayCommand::incorrectUsage,
+          PayCommand::invalidAmount);
 
-public class PayCommand extends Command implements SetsAmount {
-  private Money amount;
+  private long amount;
 
-  public PayCommand(final NewBank bank, final String[] tokens, final CustomerID customerID) {
+  public PayCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
     super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::mustLogIn);
-    responsibilityChain.add(this::incorrectUsage);
-    responsibilityChain.add(this::invalidAmount);
   }
 
-  public String getSyntax() {
-    return "PAY <person> <amount>";
+  @Override
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = validate();
     if (!message.isEmpty()) return message;
 
     try {
-      bank.payCustomer(customerID, tokens[1], amount);
+      bank.payCustomer(customerID, tokens.get(1), amount);
+    } catch (AccountInvalidException
+        | CustomerInvalidException
+        | AccountBalanceInsufficientException
+        | AccountBalanceInvalidException e) {
+      return describe(e);
+    }
+
+    return describe(null);
+  }
+
+  //////////////////////////// Batchable overrides ////////////////////////////
+  @Override
+  public String validate() {
+    return RESPONSIBILITIES.apply(this);
+  }
 
-      return String.format("Default account for customer [%s] credited successfully.", tokens[1]);
-    } catch (AccountInvalidException e) {
+  @Override
+  public BatchOperation toOperation() {
+    return BatchOperation.pay(tokens.get(1), amount);
+  }
+
+  @Override
+  public String describe(final Exception failure) {
+    if (failure instanceof AccountInvalidException) {
       return String.format(
-          "FAIL: No default current account found for customer [%s].", e.getOwner());
-    } catch (CustomerInvalidException e) {
-      return String.format("FAIL: Customer [%s] does not exist.", tokens[1]);
-    } catch (AccountBalanceInsufficientException e) {
-      return e.getMessage();
+          "FAIL: No default current account found for customer [%s].",
+          ((AccountInvalidException) failure).getOwner());
     }
+    if (failure instanceof CustomerInvalidException) {
+      return String.format("FAIL: Customer [%s] does not exist.", tokens.get(1));
+    }
+    if (failure instanceof AccountBalanceInsufficientException) {
+      return failure.getMessage();
+    }
+    if (failure instanceof AccountBalanceInvalidException) {
+      return String.format("FAIL: Customer [%s] cannot receive that much money.", tokens.get(1));
+    }
+
+    return String.format("Default account for customer [%s] credited successfully.", tokens.get(1));
   }
 
   //////////////////////////// SetsAmount overrides ////////////////////////////
   @Override
-  public void setAmount(Money amount) {
+  public void setAmount(long amount) {
     this.amount = amount;
   }
 
   @Override
-  public String getAmountInput() {
-    return tokens[2];
+  public int getAmountPosition() {
+    return 2;
   }
 
   @Override
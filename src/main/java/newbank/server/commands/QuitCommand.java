@@ -3,24 +3,25 @@ package newbank.server.commands;
 import newbank.server.CustomerID;
 import newbank.server.NewBank;
 
-import java.util.ArrayList;
-
 public class QuitCommand extends Command {
-  public QuitCommand(final NewBank bank, final String[] tokens, CustomerID customerID) {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("QUIT");
+  private static final ResponsibilityChain<QuitCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          QuitCommand::requestingHelp,
+          QuitCommand::incorrectUsage);
+
+  public QuitCommand(final NewBank bank, final RequestTokens tokens, CustomerID customerID) {
       super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::incorrectUsage);
   }
 
   @Override
-  public String getSyntax() {
-    return "QUIT";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = RESPONSIBILITIES.apply(this);
     return message.isEmpty() ? "SUCCESS: Good bye." : message;
   }
 }
@@ -6,30 +6,30 @@ import newbank.server.exceptions.DuplicateCustomerException;
 import newbank.server.exceptions.PasswordInvalidException;
 import newbank.server.exceptions.UsernameInvalidException;
 
-import java.util.ArrayList;
-
 public class RegisterCommand extends Command {
-
-  public RegisterCommand(final NewBank bank, final String[] tokens, final CustomerID customerID) {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("REGISTER <username> <password>");
+  private static final ResponsibilityChain<RegisterCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          RegisterCommand::requestingHelp,
+          RegisterCommand::incorrectUsage,
+          RegisterCommand::mustLogOut);
+
+  public RegisterCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
     super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::incorrectUsage);
-    responsibilityChain.add(this::mustLogOut);
   }
 
   @Override
-  public String getSyntax() {
-    return "REGISTER <username> <password>";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = RESPONSIBILITIES.apply(this);
     if (!message.isEmpty()) return message;
 
-    String username = tokens[1];
-    String password = tokens[2];
+    String username = tokens.get(1);
+    String password = tokens.get(2);
     try {
       bank.addCustomer(username, password);
 
@@ -0,0 +1,30 @@
+package newbank.server.commands;
+
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+
+/** A command of the {@link CommandRegistry}, with the statistics of its executions. */
+public final class RegisteredCommand implements CommandSupplier {
+  private final String name;
+  private final CommandSupplier supplier;
+  private final CommandStats stats = new CommandStats();
+
+  RegisteredCommand(final String name, final CommandSupplier supplier) {
+    this.name = name;
+    this.supplier = supplier;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public CommandStats getStats() {
+    return stats;
+  }
+
+  @Override
+  public Command makeCommand(
+      final NewBank bank, final RequestTokens tokens, final CustomerID customer) {
+    return supplier.makeCommand(bank, tokens, customer);
+  }
+}
@@ -1,51 +1,63 @@
 package newbank.server.commands;
 
+import java.math.BigDecimal;
+
 import newbank.server.Customer;
 import newbank.server.CustomerID;
 import newbank.server.NewBank;
 import newbank.server.commands.responsibilities.SetsAmount;
 import newbank.server.commands.responsibilities.SetsCustomer;
-import newbank.server.microloans.LoanRequest;
-import org.javamoney.moneta.Money;
-
-import java.util.ArrayList;
+import newbank.utils.MinorUnits;
 
 import static newbank.utils.Config.*;
 
+/**
+ * Submit a request to borrow an amount over a repayment term, at a yearly interest rate up to a
+ * maximum given as a percentage, {@link newbank.utils.Config#ACCRUAL_RATE} by default. The request
+ * is funded at once from the current offers it matches, and from the ones posted while it is
+ * current.
+ */
 public class RequestLoanCommand extends Command implements SetsAmount, SetsCustomer {
-  Money amount;
+  private static final CommandSyntax SYNTAX =
+      CommandSyntax.parse("REQUESTLOAN <amount> <repayment-term-days> [<max-interest-rate>]");
+  private static final ResponsibilityChain<RequestLoanCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          RequestLoanCommand::requestingHelp,
+          RequestLoanCommand::mustLogIn,
+          RequestLoanCommand::incorrectUsage,
+          RequestLoanCommand::retrieveCustomer,
+          RequestLoanCommand::hasDefaultedPreviously,
+          RequestLoanCommand::alreadyHas3Loans,
+          RequestLoanCommand::alreadyRequestedLoan,
+          RequestLoanCommand::alreadyOfferedLoan,
+          RequestLoanCommand::invalidAmount,
+          RequestLoanCommand::amountTooLarge,
+          RequestLoanCommand::invalidRepaymentTerm,
+          RequestLoanCommand::invalidInterestRate,
+          RequestLoanCommand::noDefaultAccount);
+
+  private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+  long amount;
   int repaymentTerm;
+  BigDecimal maxInterestRate = ACCRUAL_RATE;
   Customer customer;
 
-  public RequestLoanCommand(final NewBank bank, final String[] tokens, final CustomerID customer) {
+  public RequestLoanCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customer) {
     super(bank, tokens, customer);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::mustLogIn);
-    responsibilityChain.add(this::incorrectUsage);
-    responsibilityChain.add(this::retrieveCustomer);
-    responsibilityChain.add(this::hasDefaultedPreviously);
-    responsibilityChain.add(this::alreadyHas3Loans);
-    responsibilityChain.add(this::alreadyRequestedLoan);
-    responsibilityChain.add(this::invalidAmount);
-    responsibilityChain.add(this::amountTooLarge);
-    responsibilityChain.add(this::invalidRepaymentTerm);
-    responsibilityChain.add(this::noDefaultAccount);
   }
 
   @Override
-  public String getSyntax() {
-    return "REQUESTLOAN <amount> <repayment-term-days>";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = RESPONSIBILITIES.apply(this);
     if (!message.isEmpty()) return message;
 
-    customer.getLoanHistory().addLoanRequest(
-        new LoanRequest(amount, customer, repaymentTerm)
-    );
+    bank.requestLoan(customerID, amount, repaymentTerm, maxInterestRate);
     return "SUCCESS: Loan request submitted.";
   }
 
@@ -65,16 +77,22 @@ public class RequestLoanCommand extends Command implements SetsAmount, SetsCusto
     return "FAIL: You already have a current loan request";
   }
 
+  private String alreadyOfferedLoan() {
+    if (!customer.getLoanHistory().hasCurrentLoanOffer()) return "";
+
+    return "FAIL: You may not request a loan while you have a current loan offer";
+  }
+
   /**
    * Raises a failure message if the requested repayment term is invalid or
    * inappropriate and otherwise sets the `repaymentTerm` field
    */
   private String invalidRepaymentTerm() {
     try {
-      repaymentTerm = Integer.parseInt(tokens[2]);
+      repaymentTerm = Integer.parseInt(tokens.get(2));
     } catch (NumberFormatException ex) {
       return String.format(
-          "FAIL: Repayment term [%s] is invalid.", tokens[2]
+          "FAIL: Repayment term [%s] is invalid.", tokens.get(2)
       );
     }
 
@@ -91,8 +109,31 @@ public class RequestLoanCommand extends Command implements SetsAmount, SetsCusto
     return "";
   }
   
+  /**
+   * Raises a failure message if the maximum interest rate is given but is not a percentage between
+   * 0 and 100, and otherwise sets the `maxInterestRate` field as a fraction
+   */
+  private String invalidInterestRate() {
+    if (tokens.size() < 4) return "";
+
+    BigDecimal percentage;
+    try {
+      percentage = new BigDecimal(tokens.get(3));
+    } catch (NumberFormatException ex) {
+      return String.format("FAIL: Interest rate [%s] is invalid.", tokens.get(3));
+    }
+
+    if (percentage.signum() < 0 || percentage.compareTo(HUNDRED) > 0)
+      return String.format(
+          "FAIL: Interest rate of [%s]%% must be between 0 and 100.", tokens.get(3)
+      );
+
+    maxInterestRate = percentage.divide(HUNDRED).stripTrailingZeros();
+    return "";
+  }
+
   private String amountTooLarge() {
-    if (amount.isGreaterThan(MAX_MICROLOAN))
+    if (amount > MinorUnits.of(MAX_MICROLOAN))
       return String.format(
           "FAIL: Requested loan of [%s] (%s) exceeds maximum of %s",
           getAmountInput(), DEFAULT_CURRENCY, MAX_MICROLOAN.toString()
@@ -102,13 +143,13 @@ public class RequestLoanCommand extends Command implements SetsAmount, SetsCusto
 
   //////////////////////////// SetsAmount overrides ////////////////////////////
   @Override
-  public void setAmount(Money amount) {
+  public void setAmount(long amount) {
     this.amount = amount;
   }
 
   @Override
-  public String getAmountInput() {
-    return tokens[1];
+  public int getAmountPosition() {
+    return 1;
   }
 
   @Override
@@ -0,0 +1,96 @@
+package newbank.server.commands;
+
+import java.util.Arrays;
+
+import newbank.utils.MinorUnits;
+
+/**
+ * The tokens of a request line, separated by whitespace.
+ *
+ * <p>The line is scanned once into the start and end offset of each token, in slots which are
+ * reused for the session's next request. A token is only copied into a String when a command asks
+ * for it, and can be compared or parsed in place.
+ */
+public final class RequestTokens {
+  private String line = "";
+  private int[] starts = new int[8];
+  private int[] ends = new int[8];
+  private int size;
+
+  /** Split a request line, replacing the tokens of the previous one. */
+  public void tokenize(final String line) {
+    this.line = line;
+    size = 0;
+
+    int length = line.length();
+    int i = 0;
+    while (true) {
+      while (i < length && isWhitespace(line.charAt(i))) {
+        i++;
+      }
+      if (i == length) {
+        return;
+      }
+
+      if (size == starts.length) {
+        starts = Arrays.copyOf(starts, size * 2);
+        ends = Arrays.copyOf(ends, size * 2);
+      }
+
+      starts[size] = i;
+      while (i < length && !isWhitespace(line.charAt(i))) {
+        i++;
+      }
+      ends[size++] = i;
+    }
+  }
+
+  // the characters String.trim() removes
+  private static boolean isWhitespace(final char c) {
+    return c <= ' ';
+  }
+
+  /** @return the number of tokens, including the command name */
+  public int size() {
+    return size;
+  }
+
+  /** @return a copy of the token at the supplied index */
+  public String get(final int index) {
+    checkIndex(index);
+    return line.substring(starts[index], ends[index]);
+  }
+
+  /** @return true if there is such a token and it equals the supplied value, ignoring case */
+  public boolean equalsIgnoreCase(final int index, final String value) {
+    if (index >= size) {
+      return false;
+    }
+
+    int length = ends[index] - starts[index];
+    return length == value.length()
+        && line.regionMatches(true, starts[index], value, 0, length);
+  }
+
+  /**
+   * Parse the token at the supplied index as a plain amount, see {@link
+   * MinorUnits#parse(CharSequence, int, int)}.
+   *
+   * @throws NumberFormatException if the token is not a plain amount.
+   */
+  public long parseMinorUnits(final int index) {
+    checkIndex(index);
+    return MinorUnits.parse(line, starts[index], ends[index]);
+  }
+
+  private void checkIndex(final int index) {
+    if (index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return line;
+  }
+}
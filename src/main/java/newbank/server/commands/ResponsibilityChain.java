@@ -0,0 +1,47 @@
+package newbank.server.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The checks a command applies, in order, before executing a request.
+ *
+ * <p>A chain is built once per command class from unbound method references, and applied to every
+ * instance of that class.
+ *
+ * @param <C> The command class
+ */
+public final class ResponsibilityChain<C extends Command> {
+  private final List<Function<? super C, String>> responsibilities;
+
+  private ResponsibilityChain(final List<Function<? super C, String>> responsibilities) {
+    this.responsibilities = responsibilities;
+  }
+
+  @SafeVarargs
+  public static <C extends Command> ResponsibilityChain<C> of(
+      final Function<? super C, String>... responsibilities) {
+    List<Function<? super C, String>> chain = new ArrayList<>(responsibilities.length);
+    for (Function<? super C, String> responsibility : responsibilities) {
+      chain.add(responsibility);
+    }
+    return new ResponsibilityChain<>(chain);
+  }
+
+  /**
+   * Apply each of the functions in the responsibility chain. If any of them
+   * return a failure message, stop processing.
+   *
+   * @return An empty string if success. Otherwise a failure message.
+   */
+  public String apply(final C command) {
+    for (Function<? super C, String> responsibility : responsibilities) {
+      String message = responsibility.apply(command);
+      if (!message.isEmpty()) {
+        return message;
+      }
+    }
+    return "";
+  }
+}
@@ -4,25 +4,25 @@ import newbank.server.CustomerID;
 import newbank.server.NewBank;
 import newbank.utils.Config;
 
-import java.util.ArrayList;
-
 public class ShowAccountsCommand extends Command {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("SHOWMYACCOUNTS");
+  private static final ResponsibilityChain<ShowAccountsCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          ShowAccountsCommand::requestingHelp,
+          ShowAccountsCommand::mustLogIn);
 
-  public ShowAccountsCommand(final NewBank bank, final String[] tokens, CustomerID customerID) {
+  public ShowAccountsCommand(final NewBank bank, final RequestTokens tokens, CustomerID customerID) {
       super(bank, tokens, customerID);
-    responsibilityChain = new ArrayList<>();
-    responsibilityChain.add(this::requestingHelp);
-    responsibilityChain.add(this::mustLogIn);
   }
 
   @Override
-  public String getSyntax() {
-      return "SHOWMYACCOUNTS";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 
   @Override
   public String execute() {
-    String message = applyResponsibilityChain();
+    String message = RESPONSIBILITIES.apply(this);
     if (!message.isEmpty()) return message;
 
     return String.format(
@@ -0,0 +1,121 @@
+package newbank.server.commands;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+import newbank.server.Transaction;
+import newbank.server.exceptions.AccountInvalidException;
+import newbank.utils.Config;
+
+/**
+ * Show the latest transactions of an account, or those made between two times. A time is a date,
+ * such as 2021-03-01, or a date and time, such as 2021-03-01T09:30; the second one is excluded.
+ * Without the second time, the transactions made since the first one are shown.
+ */
+public class StatementCommand extends Command {
+  private static final CommandSyntax SYNTAX =
+      CommandSyntax.parse("STATEMENT <account_name> [<count>|<from>] [<to>]");
+  private static final ResponsibilityChain<StatementCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          StatementCommand::requestingHelp,
+          StatementCommand::mustLogIn,
+          StatementCommand::incorrectUsage,
+          StatementCommand::invalidCount,
+          StatementCommand::invalidTimes);
+
+  private int count = Config.STATEMENT_DEFAULT_TRANSACTIONS;
+  private LocalDateTime from;
+  private LocalDateTime to;
+
+  public StatementCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
+    super(bank, tokens, customerID);
+  }
+
+  @Override
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
+  }
+
+  @Override
+  public String execute() {
+    String message = RESPONSIBILITIES.apply(this);
+    if (!message.isEmpty()) return message;
+
+    final String accountName = tokens.get(1);
+    try {
+      return bank.readHistory(
+          customerID,
+          accountName,
+          history -> {
+            int first = from == null ? 0 : history.indexAt(from);
+            int end = to == null ? history.size() : Math.max(first, history.indexAt(to));
+            if (from == null) {
+              first = Math.max(history.first(), end - count);
+            }
+            List<Transaction> transactions =
+                history.range(first, Math.min(end, first + Config.STATEMENT_MAX_TRANSACTIONS));
+            return format(accountName, transactions, from == null ? history.size() : end - first);
+          });
+    } catch (AccountInvalidException e) {
+      return String.format("FAIL: Account [%s] does not exist.", accountName);
+    }
+  }
+
+  private static String format(
+      final String accountName, final List<Transaction> transactions, final int total) {
+    StringBuilder builder =
+        new StringBuilder(
+            String.format(
+                "SUCCESS: Statement of [%s], %d of %d transactions.",
+                accountName, transactions.size(), total));
+    for (Transaction transaction : transactions) {
+      builder.append(Config.MULTILINE_INFO_SEPARATOR).append(transaction);
+    }
+    return builder.toString();
+  }
+
+  private String invalidCount() {
+    if (tokens.size() != 3) return "";
+
+    try {
+      count = Integer.parseInt(tokens.get(2));
+    } catch (NumberFormatException e) {
+      count = 0;
+      // not a count, but the time to show the transactions from
+      try {
+        from = parseTime(tokens.get(2));
+        return "";
+      } catch (DateTimeParseException notATime) {
+        // neither
+      }
+    }
+    if (count > 0 && count <= Config.STATEMENT_MAX_TRANSACTIONS) return "";
+
+    return String.format(
+        "FAIL: Count [%s] must be between 1 and %d.",
+        tokens.get(2), Config.STATEMENT_MAX_TRANSACTIONS);
+  }
+
+  private String invalidTimes() {
+    if (tokens.size() != 4) return "";
+
+    try {
+      from = parseTime(tokens.get(2));
+      to = parseTime(tokens.get(3));
+    } catch (DateTimeParseException e) {
+      return String.format("FAIL: Time [%s] is invalid.", e.getParsedString());
+    }
+    return "";
+  }
+
+  private static LocalDateTime parseTime(final String time) {
+    if (time.indexOf('T') < 0) {
+      return LocalDate.parse(time).atStartOfDay();
+    }
+    return LocalDateTime.parse(time);
+  }
+}
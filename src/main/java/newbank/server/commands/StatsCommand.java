@@ -0,0 +1,35 @@
+package newbank.server.commands;
+
+import newbank.server.CustomerID;
+import newbank.server.NewBank;
+import newbank.utils.Config;
+
+public class StatsCommand extends Command {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("STATS");
+  private static final ResponsibilityChain<StatsCommand> RESPONSIBILITIES =
+      ResponsibilityChain.of(
+          StatsCommand::requestingHelp,
+          StatsCommand::mustLogIn,
+          StatsCommand::mustBeAdmin,
+          StatsCommand::incorrectUsage);
+
+  public StatsCommand(final NewBank bank, final RequestTokens tokens, final CustomerID customerID) {
+    super(bank, tokens, customerID);
+  }
+
+  @Override
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
+  }
+
+  @Override
+  public String execute() {
+    String message = RESPONSIBILITIES.apply(this);
+    if (!message.isEmpty()) return message;
+
+    return String.format(
+        "SUCCESS: %s%s",
+        Config.MULTILINE_INFO_SEPARATOR,
+        CommandRegistry.statistics(Config.MULTILINE_INFO_SEPARATOR));
+  }
+}
@@ -4,7 +4,9 @@ import newbank.server.CustomerID;
 import newbank.server.NewBank;
 
 public class UnknownCommand extends Command {
-  public UnknownCommand(final NewBank bank, final String[] tokens, CustomerID customerID) {
+  private static final CommandSyntax SYNTAX = CommandSyntax.parse("");
+
+  public UnknownCommand(final NewBank bank, final RequestTokens tokens, CustomerID customerID) {
       super(bank, tokens, customerID);
   }
 
@@ -14,7 +16,7 @@ public class UnknownCommand extends Command {
   }
 
   @Override
-  public String getSyntax() {
-    return "";
+  public CommandSyntax getSyntax() {
+    return SYNTAX;
   }
 }
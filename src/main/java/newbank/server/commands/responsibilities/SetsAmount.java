@@ -1,30 +1,50 @@
 package newbank.server.commands.responsibilities;
 
-import org.javamoney.moneta.Money;
+import newbank.server.commands.RequestTokens;
+import newbank.utils.MinorUnits;
 
-import javax.money.Monetary;
 import java.math.BigDecimal;
 
 import static newbank.utils.Config.DEFAULT_CURRENCY;
 
 public interface SetsAmount {
-  void setAmount(Money amount);
+  /** @param amount the amount, in minor units of the bank's currency */
+  void setAmount(long amount);
 
-  String getAmountInput();
+  RequestTokens getTokens();
+
+  /** @return the position of the amount among the request's tokens */
+  int getAmountPosition();
+
+  default String getAmountInput() {
+    return getTokens().get(getAmountPosition());
+  }
 
   /**
    * The word that appears in error messages. i.e. "FAIL: [NAME] amount is invalid"
    */
   String getAmountName();
 
-  default BigDecimal getMinimumAmount() {
-    return BigDecimal.ZERO;
+  /** @return the amount which the requested one must exceed, in minor units */
+  default long getMinimumAmount() {
+    return 0;
   }
 
   /**
    * Raises a failure message if the requested amount is inappropriate and sets the `amount` field
    */
   default String invalidAmount() {
+    try {
+      // plain amounts such as "10" or "10.25" are converted in place
+      long amount = getTokens().parseMinorUnits(getAmountPosition());
+      if (amount > getMinimumAmount()) {
+        setAmount(amount);
+        return "";
+      }
+    } catch (NumberFormatException ex) {
+      // any other amount goes through BigDecimal, which tells what is wrong with it
+    }
+
     String amountInput = getAmountInput();
     BigDecimal rawAmount;
     try {
@@ -33,19 +53,26 @@ public interface SetsAmount {
       return String.format("FAIL: %s amount [%s] is invalid.", getAmountName(), amountInput);
     }
 
-    if (rawAmount.compareTo(getMinimumAmount()) <= 0)
+    BigDecimal minimumAmount = MinorUnits.toBigDecimal(getMinimumAmount()).stripTrailingZeros();
+    if (rawAmount.compareTo(minimumAmount) <= 0)
       return String.format(
           "FAIL: %s amount [%s] must be greater than %s.",
-          getAmountName(), amountInput, getMinimumAmount().toString()
+          getAmountName(), amountInput, minimumAmount.toPlainString()
       );
 
-    if(rawAmount.stripTrailingZeros().scale() > Monetary.getCurrency(DEFAULT_CURRENCY).getDefaultFractionDigits())
+    if(rawAmount.stripTrailingZeros().scale() > MinorUnits.FRACTION_DIGITS)
       return String.format(
           "FAIL: %s amount [%s] has more decimal places than allowed in currency %s",
           getAmountName(), amountInput, DEFAULT_CURRENCY
       );
 
-    Money amount = Money.of(rawAmount, DEFAULT_CURRENCY);
+    long amount;
+    try {
+      amount = MinorUnits.of(rawAmount);
+    } catch (ArithmeticException ex) {
+      return String.format("FAIL: %s amount [%s] is too large.", getAmountName(), amountInput);
+    }
+
     setAmount(amount);
     return "";
   }
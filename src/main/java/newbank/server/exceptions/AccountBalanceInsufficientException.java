@@ -1,18 +1,20 @@
 package newbank.server.exceptions;
 
 import newbank.server.Account;
+import newbank.utils.MinorUnits;
 import org.javamoney.moneta.Money;
 
 public class AccountBalanceInsufficientException extends Exception {
   private static final long serialVersionUID = 8234423235864929105L;
 
-  private Money requiredBalance;
-  private Money currentBalance;
+  // in minor units
+  private final long requiredBalance;
+  private final long currentBalance;
   private final String accountName;
 
-  public AccountBalanceInsufficientException(Money requiredBalance, Account account) {
+  public AccountBalanceInsufficientException(long requiredBalance, Account account) {
     this.requiredBalance = requiredBalance;
-    this.currentBalance = account.getBalance();
+    this.currentBalance = account.getBalanceMinorUnits();
     this.accountName = account.getName();
   }
   
@@ -24,14 +26,14 @@ public class AccountBalanceInsufficientException extends Exception {
   }
 
   public Money getRequiredBalance() {
-    return requiredBalance;
+    return MinorUnits.toMoney(requiredBalance);
   }
 
   public Money getCurrentBalance() {
-    return currentBalance;
+    return MinorUnits.toMoney(currentBalance);
   }
 
   public Money getMissingBalance() {
-    return requiredBalance.subtract(currentBalance);
+    return MinorUnits.toMoney(requiredBalance - currentBalance);
   }
 }
@@ -0,0 +1,9 @@
+package newbank.server.exceptions;
+
+public class LoanRequestInvalidException extends Exception {
+  private static final long serialVersionUID = 3862144390187261025L;
+
+  public LoanRequestInvalidException(final String id) {
+    super(String.format("FAIL: loan-request with id [%s] not found.", id));
+  }
+}
@@ -0,0 +1,195 @@
+package newbank.server.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A journal appending to segment files, with group commit.
+ *
+ * <p>A single writer thread takes every record queued since its last write, writes them together
+ * and forces them to the disk with one {@link FileChannel#force(boolean)}. While it waits for the
+ * disk, the records of other sessions pile up for the next batch, so the number of syncs does not
+ * grow with the number of concurrent requests.
+ *
+ * <p>A new segment is started whenever a snapshot is taken, so that the segments older than the
+ * snapshot can be deleted, see {@link JournalFiles}.
+ *
+ * <p>If the journal cannot be written the server stops: the bank has already applied changes
+ * which it can no longer make durable.
+ */
+public class FileJournal implements Journal {
+  private final Path directory;
+  private final Thread writer;
+
+  private final Lock lock = new ReentrantLock();
+  private final Condition appended = lock.newCondition();
+  private final Condition written = lock.newCondition();
+  private List<byte[]> pending = new ArrayList<>();
+  private FileChannel channel;
+  private long segment;
+  private long appendedPosition;
+  private long durablePosition;
+  private boolean closed = false;
+
+  /**
+   * Open a journal segment for appending, creating it if needed.
+   *
+   * @param directory The journal directory
+   * @param segment The position of the segment's first record
+   * @param validLength The length of the segment's valid records, anything after it is discarded
+   * @param position The position of the next record
+   */
+  public FileJournal(
+      final Path directory, final long segment, final long validLength, final long position)
+      throws IOException {
+    this.directory = directory;
+    this.segment = segment;
+    channel = open(segment);
+    channel.truncate(validLength);
+    channel.position(validLength);
+    appendedPosition = durablePosition = position;
+
+    writer = new Thread(this::writeBatches, "journal-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public long append(final JournalRecord record) {
+    byte[] bytes = record.encode();
+    lock.lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("Journal is closed");
+      }
+
+      pending.add(bytes);
+      appended.signal();
+      return ++appendedPosition;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void awaitDurable(final long position) {
+    lock.lock();
+    try {
+      while (durablePosition < position) {
+        written.awaitUninterruptibly();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long startSegment() throws IOException {
+    lock.lock();
+    try {
+      while (durablePosition < appendedPosition) {
+        written.awaitUninterruptibly();
+      }
+
+      if (segment != appendedPosition) {
+        FileChannel next = open(appendedPosition);
+        channel.close();
+        channel = next;
+        segment = appendedPosition;
+      }
+      return segment;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private FileChannel open(final long first) throws IOException {
+    return FileChannel.open(
+        JournalFiles.segment(directory, first),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE);
+  }
+
+  /** Write the records already appended, then close the file. */
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      closed = true;
+      appended.signal();
+    } finally {
+      lock.unlock();
+    }
+
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    channel.close();
+  }
+
+  private void writeBatches() {
+    List<byte[]> batch = new ArrayList<>();
+    while (true) {
+      long batchEnd;
+      FileChannel target;
+      lock.lock();
+      try {
+        while (pending.isEmpty() && !closed) {
+          appended.awaitUninterruptibly();
+        }
+        if (pending.isEmpty()) {
+          return;
+        }
+
+        // swap the lists so that sessions can keep appending while this batch is written
+        List<byte[]> full = pending;
+        pending = batch;
+        batch = full;
+        batchEnd = appendedPosition;
+        target = channel;
+      } finally {
+        lock.unlock();
+      }
+
+      try {
+        write(target, batch);
+      } catch (IOException e) {
+        System.err.println("FAIL: Cannot write the journal: " + e.getMessage());
+        System.exit(1);
+      }
+      batch.clear();
+
+      lock.lock();
+      try {
+        durablePosition = batchEnd;
+        written.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private static void write(final FileChannel channel, final List<byte[]> batch)
+      throws IOException {
+    ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+    long remaining = 0;
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = ByteBuffer.wrap(batch.get(i));
+      remaining += buffers[i].remaining();
+    }
+
+    while (remaining > 0) {
+      remaining -= channel.write(buffers);
+    }
+    channel.force(false);
+  }
+}
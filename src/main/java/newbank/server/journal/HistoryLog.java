@@ -0,0 +1,155 @@
+package newbank.server.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The transaction histories of the accounts, kept out of the snapshots.
+ *
+ * <p>The log is a file only appended to, in blocks each holding a checksum. Every snapshot appends
+ * the transactions made since the previous one, then makes them durable and records the length of
+ * the log, so that restoring it reads the log up to that length. Whatever lies past the length of
+ * the latest snapshot was appended by a snapshot which did not complete, and is truncated.
+ */
+public class HistoryLog implements Closeable {
+  private final FileChannel channel;
+  private long length;
+
+  /** Open the history log of a journal directory, created if needed. */
+  public HistoryLog(final Path directory) throws IOException {
+    channel =
+        FileChannel.open(
+            JournalFiles.history(directory),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    length = channel.size();
+  }
+
+  /** @return the length of the log, including the blocks which are not durable yet */
+  public long length() {
+    return length;
+  }
+
+  /** Discard the blocks past a length, which no snapshot refers to. */
+  public void truncate(final long length) throws IOException {
+    if (length < this.length) {
+      channel.truncate(length);
+      this.length = length;
+    }
+  }
+
+  /**
+   * Append a block encoded by a {@link SnapshotWriter#section()} writer.
+   *
+   * @param block The block, which must not refer to names
+   */
+  public void append(final byte[] block) throws IOException {
+    CRC32 crc = new CRC32();
+    crc.update(block);
+    ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + block.length + Long.BYTES);
+    buffer.putInt(block.length).put(block).putLong(crc.getValue()).flip();
+    while (buffer.hasRemaining()) {
+      length += channel.write(buffer, length);
+    }
+  }
+
+  /**
+   * Make the blocks appended so far durable.
+   *
+   * @return the length of the log, to be recorded by the snapshot
+   */
+  public long force() throws IOException {
+    channel.force(false);
+    return length;
+  }
+
+  /** Reads a block of the log. */
+  public interface BlockReader {
+    void read(Block block) throws IOException;
+  }
+
+  /**
+   * Read the blocks of the log up to a length, in the order they were appended.
+   *
+   * @throws IOException if the log is shorter, or a block is corrupted.
+   */
+  public void read(final long end, final BlockReader reader) throws IOException {
+    if (end > length) {
+      throw new IOException("History log is truncated before " + end);
+    }
+
+    ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    long position = 0;
+    while (position < end) {
+      header.clear();
+      readFully(header, position);
+      int size = header.flip().getInt();
+      if (size < 0 || position + Integer.BYTES + size + Long.BYTES > end) {
+        throw new IOException("History log has a corrupted block at " + position);
+      }
+
+      ByteBuffer block = ByteBuffer.allocate(size + Long.BYTES);
+      readFully(block, position + Integer.BYTES);
+      block.flip();
+      CRC32 crc = new CRC32();
+      crc.update(block.array(), 0, size);
+      if (crc.getValue() != block.getLong(size)) {
+        throw new IOException("History log checksum mismatch at " + position);
+      }
+
+      block.limit(size);
+      reader.read(new Block(block));
+      position += Integer.BYTES + size + Long.BYTES;
+    }
+  }
+
+  private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+    long offset = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, offset);
+      if (read < 0) {
+        throw new IOException("History log ends at " + offset);
+      }
+      offset += read;
+    }
+  }
+
+  /** A block of the log, decoded as {@link SnapshotWriter} encoded it. */
+  public static final class Block {
+    private final ByteBuffer buffer;
+
+    private Block(final ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    public int readInt() {
+      return buffer.getInt();
+    }
+
+    public long readLong() {
+      return buffer.getLong();
+    }
+
+    public String readString() throws IOException {
+      int length = buffer.getInt();
+      if (length < 0 || length > buffer.remaining()) {
+        throw new IOException("History log has a string of invalid length");
+      }
+      byte[] encoded = new byte[length];
+      buffer.get(encoded);
+      return new String(encoded, StandardCharsets.UTF_8);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
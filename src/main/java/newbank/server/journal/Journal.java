@@ -0,0 +1,47 @@
+package newbank.server.journal;
+
+import java.io.IOException;
+
+/**
+ * Where the bank records its changes before acknowledging them.
+ *
+ * <p>Appending only queues a record. The caller appends while it still holds the locks of the
+ * customers it changed, so that the journal orders the changes of a customer the way they were
+ * applied, then releases the locks and waits for the record to be durable before replying.
+ */
+public interface Journal {
+  /** A journal which records nothing, used when the bank's state is not persisted. */
+  Journal NONE =
+      new Journal() {
+        @Override
+        public long append(final JournalRecord record) {
+          return 0;
+        }
+
+        @Override
+        public void awaitDurable(final long position) {}
+
+        @Override
+        public long startSegment() {
+          return 0;
+        }
+      };
+
+  /**
+   * Queue a record to be written.
+   *
+   * @return the position of the record, to wait for with {@link #awaitDurable(long)}
+   */
+  long append(JournalRecord record);
+
+  /** Wait until the record at the supplied position, and all records before it, are durable. */
+  void awaitDurable(long position);
+
+  /**
+   * Make the records appended so far durable, and append the next ones to a new segment. There must
+   * be no concurrent appends.
+   *
+   * @return the position of the new segment's first record
+   */
+  long startSegment() throws IOException;
+}
@@ -0,0 +1,100 @@
+package newbank.server.journal;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The files of a journal directory.
+ *
+ * <p>The journal is split in segments, each named after the position of its first record. A
+ * snapshot is named after the position of the first record it does not include, so that it is
+ * restored by replaying the segments from that position on. The snapshots share a single {@link
+ * HistoryLog}.
+ */
+public final class JournalFiles {
+  private static final Pattern SEGMENT = Pattern.compile("journal-(\\d{20})\\.log");
+  private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d{20})\\.bin");
+
+  private JournalFiles() {}
+
+  public static Path segment(final Path directory, final long position) {
+    return directory.resolve(String.format("journal-%020d.log", position));
+  }
+
+  public static Path snapshot(final Path directory, final long position) {
+    return directory.resolve(String.format("snapshot-%020d.bin", position));
+  }
+
+  public static Path history(final Path directory) {
+    return directory.resolve("history.log");
+  }
+
+  /** @return the positions of the journal segments, in ascending order */
+  public static List<Long> segments(final Path directory) throws IOException {
+    return positions(directory, SEGMENT);
+  }
+
+  /** @return the positions of the snapshots, in ascending order */
+  public static List<Long> snapshots(final Path directory) throws IOException {
+    return positions(directory, SNAPSHOT);
+  }
+
+  private static List<Long> positions(final Path directory, final Pattern pattern)
+      throws IOException {
+    List<Long> positions = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        Matcher matcher = pattern.matcher(file.getFileName().toString());
+        if (matcher.matches()) {
+          positions.add(Long.parseLong(matcher.group(1)));
+        }
+      }
+    }
+    Collections.sort(positions);
+    return positions;
+  }
+
+  /**
+   * Make the creations, renames and deletions of files in a directory durable. Some platforms
+   * cannot open a directory, their file systems make these changes durable on their own.
+   */
+  public static void forceDirectory(final Path directory) throws IOException {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(directory, StandardOpenOption.READ);
+    } catch (AccessDeniedException e) {
+      return;
+    }
+    try {
+      channel.force(true);
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Delete the segments and the snapshots made obsolete by the snapshot at the supplied position.
+   */
+  public static void deleteBefore(final Path directory, final long position) throws IOException {
+    for (long segment : segments(directory)) {
+      if (segment < position) {
+        Files.deleteIfExists(segment(directory, segment));
+      }
+    }
+    for (long snapshot : snapshots(directory)) {
+      if (snapshot < position) {
+        Files.deleteIfExists(snapshot(directory, snapshot));
+      }
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package newbank.server.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Read back the records of a journal file, in the order they were written.
+ *
+ * <p>A crash can leave the last record partly written. Such a record, without its newline or with
+ * a wrong checksum, is ignored if nothing follows it; {@link #getValidLength()} then tells where
+ * the journal must be truncated before appending to it again. An invalid record anywhere else means
+ * the journal is corrupted.
+ */
+public class JournalReader implements Closeable {
+  private final InputStream in;
+  private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+  private long validLength = 0;
+
+  public JournalReader(final Path file) throws IOException {
+    in = new BufferedInputStream(Files.newInputStream(file));
+  }
+
+  /**
+   * @return the next record, or null at the end of the journal
+   * @throws IOException if the journal is corrupted.
+   */
+  public JournalRecord next() throws IOException {
+    line.reset();
+    int b;
+    while ((b = in.read()) != -1 && b != '\n') {
+      line.write(b);
+    }
+
+    if (b == -1) {
+      // the end of the journal, possibly a partly written last record
+      return null;
+    }
+
+    JournalRecord record;
+    try {
+      record = JournalRecord.decode(new String(line.toByteArray(), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      if (in.read() == -1) {
+        return null;
+      }
+      throw new IOException("Journal is corrupted after byte " + validLength, e);
+    }
+
+    validLength += line.size() + 1;
+    return record;
+  }
+
+  /** @return the length of the records read so far */
+  public long getValidLength() {
+    return validLength;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
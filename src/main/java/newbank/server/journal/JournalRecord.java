@@ -0,0 +1,157 @@
+package newbank.server.journal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A change to the bank's state, as written to the journal.
+ *
+ * <p>A record is encoded as a single line: its CRC-32 checksum in hexadecimal, the time of the
+ * change, the record type and the type's arguments, all separated by spaces. None of the arguments
+ * (usernames, password hashes, account names and amounts) can contain whitespace.
+ */
+public final class JournalRecord {
+  /**
+   * The kinds of changes, with the number of arguments each one takes, and how many more it takes
+   * optionally.
+   */
+  public enum Type {
+    /** username, password hash */
+    REGISTER(2),
+    /** username, account name, whether the account is the default one */
+    NEWACCOUNT(3),
+    /** username, account name, amount in minor units */
+    DEPOSIT(3),
+    /** username, account name from, account name to, amount in minor units */
+    MOVE(4),
+    /** originator's username, recipient's username, amount in minor units */
+    PAY(3),
+    /** username, account name */
+    DEFAULT(2),
+    /**
+     * borrower's username, amount in minor units, repayment period in days, highest yearly interest
+     * rate, which older records leave out
+     */
+    REQUESTLOAN(3, 1),
+    /** lender's username, loan request id */
+    GRANTLOAN(2),
+    /** lender's username, amount in minor units, yearly interest rate, maximum repayment period */
+    OFFERLOAN(4),
+    /** lender's username, borrower's username, amount lent from the offer to the request */
+    MATCHLOAN(3),
+    /** username, OFFER or REQUEST: the customer's current loan proposal which cannot be funded */
+    WITHDRAWLOAN(2);
+
+    private final int argumentCount;
+    private final int optionalCount;
+
+    Type(final int argumentCount) {
+      this(argumentCount, 0);
+    }
+
+    Type(final int argumentCount, final int optionalCount) {
+      this.argumentCount = argumentCount;
+      this.optionalCount = optionalCount;
+    }
+  }
+
+  private final LocalDateTime time;
+  private final Type type;
+  private final String[] arguments;
+
+  public JournalRecord(final LocalDateTime time, final Type type, final String... arguments) {
+    if (arguments.length < type.argumentCount
+        || arguments.length > type.argumentCount + type.optionalCount) {
+      throw new IllegalArgumentException(
+          String.format("%s takes %d arguments, got %d", type, type.argumentCount, arguments.length));
+    }
+
+    this.time = time;
+    this.type = type;
+    this.arguments = arguments;
+  }
+
+  public LocalDateTime getTime() {
+    return time;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getArgument(final int index) {
+    return arguments[index];
+  }
+
+  /** @return the number of arguments, including the optional ones given */
+  public int getArgumentCount() {
+    return arguments.length;
+  }
+
+  public long getLongArgument(final int index) {
+    return Long.parseLong(arguments[index]);
+  }
+
+  /** @return the record as a journal line, including the terminating newline */
+  public byte[] encode() {
+    String payload = payload();
+    return String.format("%08x %s\n", checksum(payload), payload).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decode a journal line, without its terminating newline.
+   *
+   * @throws IOException if the line is not a valid record.
+   */
+  public static JournalRecord decode(final String line) throws IOException {
+    int separator = line.indexOf(' ');
+    if (separator != 8) {
+      throw new IOException("Journal record has no checksum: " + line);
+    }
+
+    String payload = line.substring(separator + 1);
+    long checksum;
+    try {
+      checksum = Long.parseLong(line.substring(0, separator), 16);
+    } catch (NumberFormatException e) {
+      throw new IOException("Journal record has an invalid checksum: " + line, e);
+    }
+    if (checksum != checksum(payload)) {
+      throw new IOException("Journal record checksum mismatch: " + line);
+    }
+
+    String[] tokens = payload.split(" ");
+    try {
+      return new JournalRecord(
+          LocalDateTime.parse(tokens[0]),
+          Type.valueOf(tokens[1]),
+          Arrays.copyOfRange(tokens, 2, tokens.length));
+    } catch (ArrayIndexOutOfBoundsException | DateTimeParseException | IllegalArgumentException e) {
+      throw new IOException("Journal record is malformed: " + line, e);
+    }
+  }
+
+  private String payload() {
+    StringBuilder payload = new StringBuilder();
+    payload.append(time).append(' ').append(type);
+    for (String argument : arguments) {
+      payload.append(' ').append(argument);
+    }
+    return payload.toString();
+  }
+
+  private static long checksum(final String payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload.getBytes(StandardCharsets.UTF_8));
+    return crc.getValue();
+  }
+
+  @Override
+  public String toString() {
+    return payload();
+  }
+}
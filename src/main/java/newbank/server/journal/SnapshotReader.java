@@ -0,0 +1,143 @@
+package newbank.server.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Decode a snapshot written by {@link SnapshotWriter}.
+ *
+ * <p>The file is memory-mapped, so that loading it does not copy it through a stream buffer and the
+ * operating system can read it ahead. It is mapped a window at a time, so that a snapshot can be
+ * larger than a single mapping allows.
+ */
+public class SnapshotReader implements Closeable {
+  private static final int WINDOW_SIZE = 1 << 26;
+
+  private final int windowSize;
+  private final FileChannel channel;
+  // the length of the state, before the checksum
+  private final long end;
+  private final long position;
+  private final List<String> names = new ArrayList<>();
+  // the mapped window, and the offset of its start in the file
+  private ByteBuffer window;
+  private long windowStart;
+
+  /**
+   * Open a snapshot file and check its header and checksum.
+   *
+   * @throws IOException if the file cannot be read or is not a valid snapshot.
+   */
+  public SnapshotReader(final Path file) throws IOException {
+    this(file, WINDOW_SIZE);
+  }
+
+  /** Open a snapshot file, mapping windows of the supplied size. */
+  SnapshotReader(final Path file, final int windowSize) throws IOException {
+    this.windowSize = windowSize;
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      if (size < 24) {
+        throw new IOException("Snapshot is truncated: " + file);
+      }
+
+      end = size - 8;
+      CRC32 crc = new CRC32();
+      for (long start = 0; start < end; start += windowSize) {
+        crc.update(
+            channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, end - start)));
+      }
+      if (crc.getValue() != channel.map(FileChannel.MapMode.READ_ONLY, end, 8).getLong()) {
+        throw new IOException("Snapshot checksum mismatch: " + file);
+      }
+
+      window = ByteBuffer.allocate(0);
+      windowStart = 0;
+      if (readInt() != SnapshotWriter.MAGIC || readInt() != SnapshotWriter.VERSION) {
+        throw new IOException("Not a snapshot, or of an unknown version: " + file);
+      }
+      position = readLong();
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** @return the position of the first journal record the snapshot does not include */
+  public long getPosition() {
+    return position;
+  }
+
+  // map the next window if the current one holds fewer bytes than needed
+  private ByteBuffer window(final int needed) throws IOException {
+    if (window.remaining() >= needed) {
+      return window;
+    }
+
+    long start = windowStart + window.position();
+    long size = Math.min(Math.max(windowSize, needed), end - start);
+    if (size < needed) {
+      throw new IOException("Snapshot is truncated");
+    }
+    window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    windowStart = start;
+    return window;
+  }
+
+  public int readInt() throws IOException {
+    return window(Integer.BYTES).getInt();
+  }
+
+  public long readLong() throws IOException {
+    return window(Long.BYTES).getLong();
+  }
+
+  public boolean readBoolean() throws IOException {
+    return window(1).get() != 0;
+  }
+
+  public String readString() throws IOException {
+    int length = readInt();
+    if (length < 0) {
+      throw new IOException("Snapshot has a string of negative length");
+    }
+    byte[] encoded = new byte[length];
+    window(length).get(encoded);
+    return new String(encoded, StandardCharsets.UTF_8);
+  }
+
+  /** Read a string written by {@link SnapshotWriter#writeName(String)}. */
+  public String readName() throws IOException {
+    int index = readInt();
+    if (index >= 0 && index < names.size()) {
+      return names.get(index);
+    }
+    if (index != -1) {
+      throw new IOException("Snapshot has an unknown name " + index);
+    }
+
+    String name = readString();
+    names.add(name);
+    return name;
+  }
+
+  public LocalDateTime readDateTime() throws IOException {
+    return LocalDateTime.ofEpochSecond(readLong(), readInt(), ZoneOffset.UTC);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
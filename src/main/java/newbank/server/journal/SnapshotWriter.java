@@ -0,0 +1,192 @@
+package newbank.server.journal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Encode the bank's state in the snapshot format read by {@link SnapshotReader}.
+ *
+ * <p>The state is streamed to a temporary file as it is encoded, so that a snapshot is never held
+ * in memory whole, and the file is only renamed to its final name once it is complete and durable.
+ * A snapshot is a header with the journal position it was taken at, the state, and a CRC-32 of
+ * both.
+ *
+ * <p>Parts of the state which must be copied at once can be encoded in memory first, by a {@link
+ * #section()} writer, then copied into the snapshot with {@link #writeSection(byte[])}.
+ */
+public class SnapshotWriter implements Closeable {
+  static final int MAGIC = 0x4e42534e; // "NBSN"
+  static final int VERSION = 5;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final DataOutputStream out;
+  private final long position;
+  private final Map<String, Integer> names;
+  // the snapshot's file, or null for a section
+  private final Path directory;
+  private final Path temporary;
+  private final FileChannel channel;
+  private final CRC32 crc;
+  private final ByteArrayOutputStream section;
+  private boolean committed = false;
+
+  /**
+   * Start writing a snapshot to a temporary file in the supplied directory.
+   *
+   * @param directory The journal directory
+   * @param position The position of the first journal record the snapshot does not include
+   */
+  public SnapshotWriter(final Path directory, final long position) throws IOException {
+    this.directory = directory;
+    this.position = position;
+    Path file = JournalFiles.snapshot(directory, position);
+    temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    channel =
+        FileChannel.open(
+            temporary,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+    crc = new CRC32();
+    section = null;
+    names = new HashMap<>();
+    out =
+        new DataOutputStream(
+            new BufferedOutputStream(
+                new CheckedOutputStream(Channels.newOutputStream(channel), crc), BUFFER_SIZE));
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeLong(position);
+  }
+
+  private SnapshotWriter() {
+    directory = null;
+    position = -1;
+    temporary = null;
+    channel = null;
+    crc = null;
+    names = null;
+    section = new ByteArrayOutputStream(BUFFER_SIZE);
+    out = new DataOutputStream(section);
+  }
+
+  /**
+   * @return a writer encoding a part of a snapshot in memory. It cannot write names, which are
+   *     numbered in the order the snapshot itself writes them.
+   */
+  public static SnapshotWriter section() {
+    return new SnapshotWriter();
+  }
+
+  /** @return the encoded section */
+  public byte[] toByteArray() {
+    if (section == null) {
+      throw new IllegalStateException("Not a section");
+    }
+    return section.toByteArray();
+  }
+
+  public long getPosition() {
+    return position;
+  }
+
+  public void writeInt(final int value) throws IOException {
+    out.writeInt(value);
+  }
+
+  public void writeLong(final long value) throws IOException {
+    out.writeLong(value);
+  }
+
+  public void writeBoolean(final boolean value) throws IOException {
+    out.writeBoolean(value);
+  }
+
+  public void writeString(final String value) throws IOException {
+    byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(encoded.length);
+    out.write(encoded);
+  }
+
+  /**
+   * Write a string which many entries share, such as an account name. It is only encoded the first
+   * time, and referenced afterwards, which also lets the reader share a single copy of it.
+   */
+  public void writeName(final String value) throws IOException {
+    if (names == null) {
+      throw new IllegalStateException("A section cannot write names");
+    }
+
+    Integer index = names.get(value);
+    if (index != null) {
+      out.writeInt(index);
+      return;
+    }
+
+    names.put(value, names.size());
+    out.writeInt(-1);
+    writeString(value);
+  }
+
+  public void writeDateTime(final LocalDateTime value) throws IOException {
+    out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+    out.writeInt(value.getNano());
+  }
+
+  /** Copy a section encoded by a {@link #section()} writer. */
+  public void writeSection(final byte[] encoded) throws IOException {
+    out.write(encoded);
+  }
+
+  /**
+   * Complete the snapshot: write its checksum, make it durable, give it its final name, and make
+   * the name durable too, so that the journal segments it replaces can be deleted.
+   *
+   * @return the snapshot file
+   */
+  public Path commit() throws IOException {
+    if (channel == null) {
+      throw new IllegalStateException("A section is not a snapshot");
+    }
+
+    out.flush();
+    // the checksum is not part of what it checks
+    new DataOutputStream(Channels.newOutputStream(channel)).writeLong(crc.getValue());
+    channel.force(true);
+    channel.close();
+
+    Path file =
+        Files.move(
+            temporary, JournalFiles.snapshot(directory, position), StandardCopyOption.ATOMIC_MOVE);
+    JournalFiles.forceDirectory(directory);
+    committed = true;
+    return file;
+  }
+
+  /** Discard the snapshot unless it was committed. */
+  @Override
+  public void close() throws IOException {
+    if (channel == null || committed) {
+      return;
+    }
+
+    channel.close();
+    Files.deleteIfExists(temporary);
+  }
+}
@@ -1,13 +1,33 @@
 package newbank.server.microloans;
 
+import java.time.LocalDateTime;
+
 /**
  * The event of a loan's amount changing because of the accrual of interest
  */
 public class Accrual implements LoanBalanceChange {
-  private RepaymentPlan plan;
+  private final RepaymentPlan plan;
+  private final LocalDateTime date;
+  // in minor units
+  private final long amount;
+
+  Accrual(RepaymentPlan plan, LocalDateTime date, long amount) {
+    this.plan = plan;
+    this.date = date;
+    this.amount = amount;
+  }
 
   @Override
   public RepaymentPlan getRepaymentPlan() {
     return plan;
   }
+
+  public LocalDateTime getDate() {
+    return date;
+  }
+
+  /** @return the interest accrued, in minor units */
+  public long getAmount() {
+    return amount;
+  }
 }
@@ -0,0 +1,93 @@
+package newbank.server.microloans;
+
+import java.time.LocalDateTime;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Accrue the interest of every open loan at the end of each accrual period, every midnight.
+ *
+ * <p>A run splits the current loans between the threads of a fork/join pool. Each loan is only
+ * locked while its own interest is computed, so the bank is never paused. Interest is computed in
+ * minor units with fixed-point rates, and each loan remembers the last period it accrued: a run
+ * which is interrupted, or repeated after a restart, accrues each period exactly once.
+ */
+public class AccrualEngine {
+  // the number of loans below which a run is not split further
+  private static final int BATCH_SIZE = 4096;
+
+  private final ForkJoinPool pool;
+
+  public AccrualEngine(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  public AccrualEngine() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Accrue the interest of the periods which ended up to a date.
+   *
+   * @param date The date to accrue interest up to
+   * @return the number of loans which accrued any period
+   */
+  public int accrue(LocalDateTime date) {
+    return pool.invoke(new Batch(AllLoans.getInstance().currentLoans(), date));
+  }
+
+  /**
+   * Accrue the periods which ended while the bank was stopped, then accrue interest every midnight
+   * on the loan timers.
+   */
+  public void start() {
+    pool.execute(() -> accrue(LocalDateTime.now()));
+    scheduleNextRun();
+  }
+
+  private void scheduleNextRun() {
+    LocalDateTime midnight = LocalDateTime.now().toLocalDate().plusDays(1).atStartOfDay();
+    // the run itself is too long for the timers' thread
+    LoanTimers.WHEEL.schedule(
+        midnight,
+        () ->
+            pool.execute(
+                () -> {
+                  scheduleNextRun();
+                  accrue(LocalDateTime.now());
+                }));
+  }
+
+  private static final class Batch extends RecursiveTask<Integer> {
+    private static final long serialVersionUID = 1L;
+
+    private final Spliterator<MicroLoan> loans;
+    private final LocalDateTime date;
+
+    Batch(Spliterator<MicroLoan> loans, LocalDateTime date) {
+      this.loans = loans;
+      this.date = date;
+    }
+
+    @Override
+    protected Integer compute() {
+      Spliterator<MicroLoan> half;
+      if (loans.estimateSize() > BATCH_SIZE && (half = loans.trySplit()) != null) {
+        Batch left = new Batch(half, date);
+        left.fork();
+        int right = compute();
+        return left.join() + right;
+      }
+
+      int[] accrued = {0};
+      loans.forEachRemaining(
+          loan -> {
+            if (loan.accrueInterest(date)) {
+              accrued[0]++;
+            }
+          });
+      return accrued[0];
+    }
+  }
+}
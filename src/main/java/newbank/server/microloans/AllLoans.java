@@ -0,0 +1,148 @@
+package newbank.server.microloans;
+
+import newbank.server.Customer;
+import newbank.server.journal.SnapshotReader;
+import newbank.server.journal.SnapshotWriter;
+import newbank.utils.MinorUnits;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Every loan of the bank, shared by all the sessions. The loans are also indexed by lender and by
+ * borrower, so that finding a customer's loans does not scan the loans of everyone else, and the
+ * current loans are kept apart, so that accruing interest does not go through the closed ones.
+ */
+enum AllLoans {
+  INSTANCE;
+
+  // in the order the loans were made
+  private final Queue<MicroLoan> loans;
+  private final ConcurrentHashMap<Customer, Queue<MicroLoan>> loansByLender;
+  private final ConcurrentHashMap<Customer, Queue<MicroLoan>> loansByBorrower;
+  private final Set<MicroLoan> currentLoans;
+
+  public static AllLoans getInstance() {
+    return INSTANCE;
+  }
+
+  AllLoans() {
+    loans = new ConcurrentLinkedQueue<>();
+    loansByLender = new ConcurrentHashMap<>();
+    loansByBorrower = new ConcurrentHashMap<>();
+    currentLoans = ConcurrentHashMap.newKeySet();
+  }
+
+  public Stream<MicroLoan> getCredits(Customer customer) {
+    return loansOf(loansByLender, customer);
+  }
+
+  public Stream<MicroLoan> getDebts(Customer customer) {
+    return loansOf(loansByBorrower, customer);
+  }
+
+  private static Stream<MicroLoan> loansOf(
+      ConcurrentHashMap<Customer, Queue<MicroLoan>> index, Customer customer) {
+    Queue<MicroLoan> customerLoans = index.get(customer);
+    return customerLoans == null ? Stream.empty() : customerLoans.stream();
+  }
+
+  public void addLoan(MicroLoan loan) {
+    loans.add(loan);
+    loansByLender.computeIfAbsent(loan.getLender(), c -> new ConcurrentLinkedQueue<>()).add(loan);
+    loansByBorrower
+        .computeIfAbsent(loan.getBorrower(), c -> new ConcurrentLinkedQueue<>())
+        .add(loan);
+    // the loan may be closed meanwhile, and then removed before it is added
+    currentLoans.add(loan);
+    if (!loan.getPlan().isCurrent()) {
+      currentLoans.remove(loan);
+    }
+    loan.getPlan().open();
+  }
+
+  // called by the repayment plan once the loan is closed
+  void closed(MicroLoan loan) {
+    currentLoans.remove(loan);
+  }
+
+  // the current loans, which can be split between threads without copying them
+  Spliterator<MicroLoan> currentLoans() {
+    return currentLoans.spliterator();
+  }
+
+  public void writeTo(SnapshotWriter out) throws IOException {
+    out.writeInt(loans.size());
+    for (MicroLoan loan : loans) {
+      RepaymentPlan plan = loan.getPlan();
+      out.writeString(loan.getLender().getUsername());
+      out.writeString(loan.getBorrower().getUsername());
+      out.writeLong(MinorUnits.of(loan.getOriginalAmount()));
+      // the loan may be accruing interest
+      loan.getLock().lock();
+      try {
+        out.writeLong(loan.getOutstandingMinorUnits());
+        out.writeLong(loan.getAccruedFraction());
+        out.writeDateTime(loan.getLastAccrualDate());
+      } finally {
+        loan.getLock().unlock();
+      }
+      out.writeString(plan.getInterestRate().toString());
+      out.writeInt(plan.getRepaymentPeriod());
+      out.writeDateTime(plan.getCreationDate());
+      out.writeBoolean(plan.isCurrent());
+    }
+  }
+
+  public void readFrom(SnapshotReader in, Function<String, Customer> customers)
+      throws IOException {
+    for (MicroLoan loan : loans) {
+      loan.getPlan().cancelDeadlines();
+    }
+    loans.clear();
+    loansByLender.clear();
+    loansByBorrower.clear();
+    currentLoans.clear();
+    for (int count = in.readInt(); count > 0; count--) {
+      Customer lender = customer(customers, in.readString());
+      Customer borrower = customer(customers, in.readString());
+      long originalAmount = in.readLong();
+      long outstandingAmount = in.readLong();
+      long accruedFraction = in.readLong();
+      LocalDateTime lastAccrualDate = in.readDateTime();
+      BigDecimal interestRate = new BigDecimal(in.readString());
+      int repaymentPeriod = in.readInt();
+
+      MicroLoan loan = new MicroLoan(
+          lender,
+          borrower,
+          MinorUnits.toMoney(originalAmount),
+          interestRate,
+          repaymentPeriod,
+          in.readDateTime()
+      );
+      loan.restoreOutstanding(outstandingAmount, accruedFraction, lastAccrualDate);
+      if (!in.readBoolean()) {
+        loan.getPlan().close();
+      }
+      addLoan(loan);
+    }
+  }
+
+  private static Customer customer(Function<String, Customer> customers, String username)
+      throws IOException {
+    Customer customer = customers.apply(username);
+    if (customer == null) {
+      throw new IOException("Snapshot has a loan of unknown customer " + username);
+    }
+    return customer;
+  }
+}
@@ -0,0 +1,198 @@
+package newbank.server.microloans;
+
+import newbank.server.Customer;
+import newbank.server.journal.SnapshotReader;
+import newbank.server.journal.SnapshotWriter;
+import newbank.utils.MinorUnits;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The current loan requests and offers, by id, and the order book matching them. A proposal leaves
+ * them once taken or withdrawn, or once it expires: a timer of the {@link LoanTimers} evicts it
+ * then, so that only live proposals are ever looked up.
+ */
+enum AllProposals {
+  INSTANCE;
+
+  private final ConcurrentHashMap<String, LoanRequest> loanRequests;
+  private final ConcurrentHashMap<String, LoanOffer> loanOffers;
+  private final LoanOrderBook orderBook;
+  private volatile boolean expirySuspended;
+
+  public static AllProposals getInstance() {
+    return INSTANCE;
+  }
+
+  AllProposals() {
+    loanRequests = new ConcurrentHashMap<>();
+    loanOffers = new ConcurrentHashMap<>();
+    orderBook = new LoanOrderBook();
+  }
+
+  public Stream<LoanRequest> getRequests() {
+    return loanRequests.values().stream();
+  }
+
+  public LoanRequest getRequest(String id) {
+    return loanRequests.get(id);
+  }
+
+  public LoanOffer getOffer(String id) {
+    return loanOffers.get(id);
+  }
+
+  public LoanOrderBook getOrderBook() {
+    return orderBook;
+  }
+
+  // replaces the customer's previous proposal of the same kind, which cannot be current anymore
+  public void addProposal(LoanProposal proposal) {
+    orderBook.getLock().lock();
+    try {
+      if (proposal instanceof LoanOffer) {
+        LoanOffer offer = (LoanOffer) proposal;
+        loanOffers.put(offer.getID(), offer);
+        orderBook.add(offer);
+      } else {
+        LoanRequest request = (LoanRequest) proposal;
+        loanRequests.put(request.getID(), request);
+        orderBook.add(request);
+      }
+    } finally {
+      orderBook.getLock().unlock();
+    }
+    proposal.proposer.getLoanHistory().proposalAdded(proposal);
+    scheduleExpiry(proposal);
+  }
+
+  // the order book drops the proposals which are not current by itself
+  public void remove(LoanProposal proposal) {
+    proposal.proposer.getLoanHistory().proposalRemoved(proposal);
+    if (proposals(proposal).remove(proposal.getID(), proposal) && proposal.getExpiry() != null) {
+      proposal.getExpiry().cancel();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private ConcurrentHashMap<String, LoanProposal> proposals(LoanProposal proposal) {
+    return (ConcurrentHashMap<String, LoanProposal>)
+        (proposal instanceof LoanOffer ? loanOffers : loanRequests);
+  }
+
+  private void scheduleExpiry(LoanProposal proposal) {
+    proposal.setExpiry(
+        LoanTimers.WHEEL.schedule(
+            proposal.getExpiryDate(),
+            () -> {
+              if (!expirySuspended) {
+                evict(proposal);
+              }
+            }));
+  }
+
+  private void evict(LoanProposal proposal) {
+    proposal.proposer.getLoanHistory().proposalRemoved(proposal);
+    orderBook.getLock().lock();
+    try {
+      proposals(proposal).remove(proposal.getID(), proposal);
+      if (proposal instanceof LoanOffer) {
+        orderBook.remove((LoanOffer) proposal);
+      } else {
+        orderBook.remove((LoanRequest) proposal);
+      }
+    } finally {
+      orderBook.getLock().unlock();
+    }
+  }
+
+  public void setExpirySuspended(boolean suspended) {
+    expirySuspended = suspended;
+    if (!suspended) {
+      LocalDateTime now = LocalDateTime.now();
+      List<LoanProposal> expired = new ArrayList<>();
+      loanRequests.values().stream().filter(request -> !request.isCurrent(now)).forEach(expired::add);
+      loanOffers.values().stream().filter(offer -> !offer.isCurrent(now)).forEach(expired::add);
+      expired.forEach(this::evict);
+    }
+  }
+
+  public void writeTo(SnapshotWriter out) throws IOException {
+    // proposals may expire while they are written
+    List<LoanRequest> requests = new ArrayList<>(loanRequests.values());
+    out.writeInt(requests.size());
+    for (LoanRequest request : requests) {
+      out.writeString(request.getBorrower().getUsername());
+      out.writeLong(request.getProposedMinorUnits());
+      out.writeInt(request.getRepaymentPeriod());
+      out.writeString(request.getAccrualRate().toString());
+      out.writeDateTime(request.getCreationDate());
+    }
+
+    List<LoanOffer> offers = new ArrayList<>(loanOffers.values());
+    out.writeInt(offers.size());
+    for (LoanOffer offer : offers) {
+      out.writeString(offer.getLender().getUsername());
+      out.writeLong(offer.getProposedMinorUnits());
+      out.writeInt(offer.getRepaymentPeriod());
+      out.writeString(offer.getAccrualRate().toString());
+      out.writeDateTime(offer.getCreationDate());
+    }
+  }
+
+  public void readFrom(SnapshotReader in, Function<String, Customer> customers)
+      throws IOException {
+    orderBook.getLock().lock();
+    try {
+      for (LoanProposal proposal : loanRequests.values()) {
+        proposal.getExpiry().cancel();
+      }
+      for (LoanProposal proposal : loanOffers.values()) {
+        proposal.getExpiry().cancel();
+      }
+      loanRequests.clear();
+      loanOffers.clear();
+      orderBook.clear();
+
+      for (int count = in.readInt(); count > 0; count--) {
+        Customer borrower = customer(customers, in.readString());
+        long amount = in.readLong();
+        int repaymentPeriod = in.readInt();
+        BigDecimal accrualRate = new BigDecimal(in.readString());
+        LoanRequest request = new LoanRequest(
+            MinorUnits.toMoney(amount), borrower, repaymentPeriod, in.readDateTime()
+        );
+        request.setAccrualRate(accrualRate);
+        addProposal(request);
+      }
+
+      for (int count = in.readInt(); count > 0; count--) {
+        Customer lender = customer(customers, in.readString());
+        long amount = in.readLong();
+        int maxRepaymentPeriod = in.readInt();
+        BigDecimal accrualRate = new BigDecimal(in.readString());
+        addProposal(new LoanOffer(
+            MinorUnits.toMoney(amount), lender, accrualRate, maxRepaymentPeriod, in.readDateTime()
+        ));
+      }
+    } finally {
+      orderBook.getLock().unlock();
+    }
+  }
+
+  private static Customer customer(Function<String, Customer> customers, String username)
+      throws IOException {
+    Customer customer = customers.apply(username);
+    if (customer == null) {
+      throw new IOException("Snapshot has a loan proposal of unknown customer " + username);
+    }
+    return customer;
+  }
+}
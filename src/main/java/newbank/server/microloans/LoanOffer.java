@@ -0,0 +1,64 @@
+package newbank.server.microloans;
+
+import newbank.server.Customer;
+import org.javamoney.moneta.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import newbank.utils.MinorUnits;
+
+import static newbank.utils.Config.MICROLOAN_OFFER_EXPIRY_DAYS;
+
+/**
+ * An offer to lend up to an amount, at a yearly interest rate, for repayment periods up to a
+ * maximum. An offer can fund several requests.
+ */
+public class LoanOffer extends LoanProposal {
+    public LoanOffer(
+        Money proposedAmount,
+        Customer lender,
+        BigDecimal accrualRate,
+        int maxRepaymentPeriod
+    ) {
+        this(proposedAmount, lender, accrualRate, maxRepaymentPeriod, LocalDateTime.now());
+    }
+
+    public LoanOffer(
+        Money proposedAmount,
+        Customer lender,
+        BigDecimal accrualRate,
+        int maxRepaymentPeriod,
+        LocalDateTime creationDate
+    ) {
+        super(proposedAmount, lender, maxRepaymentPeriod, creationDate);
+        this.accrualRate = accrualRate;
+        this.expiryDate = creationDate.plusDays(MICROLOAN_OFFER_EXPIRY_DAYS);
+    }
+
+    public Customer getLender() {
+        return proposer;
+    }
+
+    /**
+     * Lend part of the offer to a request, at the offer's rate and for the request's period.
+     *
+     * @param request The request taking the amount
+     * @param amount The amount lent, in minor units, available in both the offer and the request
+     * @param creationDate The date of the loan
+     * @return the loan
+     */
+    public MicroLoan fund(LoanRequest request, long amount, LocalDateTime creationDate) {
+        MicroLoan loan = new MicroLoan(
+            proposer,
+            request.getBorrower(),
+            MinorUnits.toMoney(amount),
+            accrualRate,
+            request.getRepaymentPeriod(),
+            creationDate
+        );
+        fill(amount);
+        request.fill(amount);
+        return loan;
+    }
+}
@@ -0,0 +1,162 @@
+package newbank.server.microloans;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import static newbank.utils.Config.LOAN_TERM_BUCKET_DAYS;
+import static newbank.utils.Config.MAX_REPAYMENT_PERIOD_DAYS;
+
+/**
+ * The current loan offers and requests in price-time priority, to match the ones which cross.
+ *
+ * <p>Offers come first by lowest rate and requests by highest rate, then both by age. An offer
+ * crosses a request if its rate is not higher than the request's, and if its maximum repayment
+ * period covers the request's. A customer's own proposals are never matched with each other.
+ *
+ * <p>The books are split by repayment period, in buckets of {@value
+ * newbank.utils.Config#LOAN_TERM_BUCKET_DAYS} days. Every offer of a bucket covers every request
+ * of the buckets below, so that finding the best counterpart of an order only looks at the first
+ * entry of each bucket, but for the order's own bucket where the periods are compared.
+ *
+ * <p>The book is not thread-safe: its users hold {@link #getLock()}.
+ */
+public final class LoanOrderBook {
+  private static final int BUCKETS = MAX_REPAYMENT_PERIOD_DAYS / LOAN_TERM_BUCKET_DAYS + 1;
+
+  private static final Comparator<LoanProposal> OFFER_PRIORITY =
+      Comparator.comparing(LoanProposal::getAccrualRate)
+          .thenComparing(LoanProposal::getCreationDate)
+          .thenComparingLong(LoanProposal::getSequence);
+  private static final Comparator<LoanProposal> REQUEST_PRIORITY =
+      Comparator.comparing(LoanProposal::getAccrualRate, Comparator.reverseOrder())
+          .thenComparing(LoanProposal::getCreationDate)
+          .thenComparingLong(LoanProposal::getSequence);
+
+  private final Lock lock = new ReentrantLock();
+  private final List<TreeSet<LoanOffer>> offers = new ArrayList<>(BUCKETS);
+  private final List<TreeSet<LoanRequest>> requests = new ArrayList<>(BUCKETS);
+  // tells apart the proposals made at the same time, including the stale ones left in the buckets
+  private long sequence;
+
+  LoanOrderBook() {
+    for (int i = 0; i < BUCKETS; i++) {
+      offers.add(new TreeSet<>(OFFER_PRIORITY));
+      requests.add(new TreeSet<>(REQUEST_PRIORITY));
+    }
+  }
+
+  public Lock getLock() {
+    return lock;
+  }
+
+  private static int bucket(int repaymentPeriod) {
+    return Math.min(repaymentPeriod / LOAN_TERM_BUCKET_DAYS, BUCKETS - 1);
+  }
+
+  void add(LoanOffer offer) {
+    offer.setSequence(++sequence);
+    offers.get(bucket(offer.getRepaymentPeriod())).add(offer);
+  }
+
+  void add(LoanRequest request) {
+    request.setSequence(++sequence);
+    requests.get(bucket(request.getRepaymentPeriod())).add(request);
+  }
+
+  void remove(LoanOffer offer) {
+    offers.get(bucket(offer.getRepaymentPeriod())).remove(offer);
+  }
+
+  void remove(LoanRequest request) {
+    requests.get(bucket(request.getRepaymentPeriod())).remove(request);
+  }
+
+  void clear() {
+    for (int i = 0; i < BUCKETS; i++) {
+      offers.get(i).clear();
+      requests.get(i).clear();
+    }
+  }
+
+  /**
+   * @param request The request to fund
+   * @param date The date of the match
+   * @return the best current offer of another customer crossing the request, or null if there is
+   *     none
+   */
+  public LoanOffer bestOfferFor(LoanRequest request, LocalDateTime date) {
+    int period = request.getRepaymentPeriod();
+    Predicate<LoanOffer> crosses =
+        offer -> offer.getAccrualRate().compareTo(request.getAccrualRate()) <= 0;
+    Predicate<LoanOffer> otherLender = offer -> offer.getLender() != request.getBorrower();
+
+    LoanOffer best =
+        first(
+            offers.get(bucket(period)),
+            date,
+            crosses,
+            otherLender.and(offer -> offer.getRepaymentPeriod() >= period));
+    for (int i = bucket(period) + 1; i < BUCKETS; i++) {
+      LoanOffer offer = first(offers.get(i), date, crosses, otherLender);
+      if (offer != null && (best == null || OFFER_PRIORITY.compare(offer, best) < 0)) {
+        best = offer;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @param offer The offer to match
+   * @param date The date of the match
+   * @return the best current request of another customer crossing the offer, or null if there is
+   *     none
+   */
+  public LoanRequest bestRequestFor(LoanOffer offer, LocalDateTime date) {
+    int maxPeriod = offer.getRepaymentPeriod();
+    Predicate<LoanRequest> crosses =
+        request -> request.getAccrualRate().compareTo(offer.getAccrualRate()) >= 0;
+    Predicate<LoanRequest> otherBorrower = request -> request.getBorrower() != offer.getLender();
+
+    LoanRequest best =
+        first(
+            requests.get(bucket(maxPeriod)),
+            date,
+            crosses,
+            otherBorrower.and(request -> request.getRepaymentPeriod() <= maxPeriod));
+    for (int i = bucket(maxPeriod) - 1; i >= 0; i--) {
+      LoanRequest request = first(requests.get(i), date, crosses, otherBorrower);
+      if (request != null && (best == null || REQUEST_PRIORITY.compare(request, best) < 0)) {
+        best = request;
+      }
+    }
+    return best;
+  }
+
+  /*
+   * The first current proposal of a bucket which crosses the order to match and can fill it,
+   * dropping the proposals taken or withdrawn since they were added. The proposals after the first
+   * one which does not cross cannot cross either.
+   */
+  private static <T extends LoanProposal> T first(
+      TreeSet<T> bucket, LocalDateTime date, Predicate<T> crosses, Predicate<T> fills) {
+    Iterator<T> proposals = bucket.iterator();
+    while (proposals.hasNext()) {
+      T proposal = proposals.next();
+      if (!proposal.isCurrent(date)) {
+        proposals.remove();
+      } else if (!crosses.test(proposal)) {
+        return null;
+      } else if (fills.test(proposal)) {
+        return proposal;
+      }
+    }
+    return null;
+  }
+}
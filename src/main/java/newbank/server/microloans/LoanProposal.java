@@ -5,31 +5,45 @@ import org.javamoney.moneta.Money;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import newbank.utils.MinorUnits;
+import newbank.utils.TimingWheel;
 
 import static newbank.utils.Config.ACCRUAL_RATE;
 
 /**
  * Parent class of loan-offers and -requests
+ *
+ * <p>A proposal is taken with its proposer locked, by the matching and the granting of loans, but
+ * read by other threads: by the sessions looking it up, and by the expiry timers. Its state is
+ * volatile and the amount not lent yet is atomic, so that they see its latest changes.
  */
 abstract class LoanProposal {
   protected final Customer proposer;
   protected final LocalDateTime creationDate;
   private int repaymentPeriod;
-  protected Money proposedAmount;
+  // the amount not lent yet, in minor units
+  private final AtomicLong proposedAmount;
   protected BigDecimal accrualRate;
   protected LocalDateTime expiryDate;
-  protected boolean accepted = false;
+  private volatile boolean accepted = false;
+  private volatile boolean withdrawn = false;
+  private volatile TimingWheel.Timeout expiry;
+  // set by the order book when the proposal is added, with the book locked
+  private volatile long sequence;
 
-  protected LoanProposal(Money proposedAmount, Customer proposer, int repaymentPeriod) {
-    this.proposedAmount = proposedAmount;
+  protected LoanProposal(
+      Money proposedAmount, Customer proposer, int repaymentPeriod, LocalDateTime creationDate) {
+    this.proposedAmount = new AtomicLong(MinorUnits.of(proposedAmount));
     this.proposer = proposer;
     this.repaymentPeriod = repaymentPeriod;
     this.accrualRate = ACCRUAL_RATE;
-    this.creationDate = LocalDateTime.now();
+    this.creationDate = creationDate;
   }
 
   public Money getProposedAmount() {
-    return proposedAmount;
+    return MinorUnits.toMoney(proposedAmount.get());
   }
 
   public BigDecimal getAccrualRate() {
@@ -45,14 +59,65 @@ abstract class LoanProposal {
   }
 
   public boolean isCurrent() {
-    return !accepted && LocalDateTime.now().isBefore(expiryDate);
+    return isCurrent(LocalDateTime.now());
+  }
+
+  public boolean isCurrent(LocalDateTime date) {
+    return !accepted && !withdrawn && date.isBefore(expiryDate);
   }
 
   public String getID() {
     return proposer.getUsername();
   }
   
+  LocalDateTime getCreationDate() {
+    return creationDate;
+  }
+
+  LocalDateTime getExpiryDate() {
+    return expiryDate;
+  }
+
+  TimingWheel.Timeout getExpiry() {
+    return expiry;
+  }
+
+  void setExpiry(TimingWheel.Timeout expiry) {
+    this.expiry = expiry;
+  }
+
+  long getSequence() {
+    return sequence;
+  }
+
+  void setSequence(long sequence) {
+    this.sequence = sequence;
+  }
+
+  /** @return the amount which has not been lent yet, in minor units */
+  public long getProposedMinorUnits() {
+    return proposedAmount.get();
+  }
+
+  /**
+   * Take part of the proposed amount for a loan. The proposal is accepted once all of it is taken.
+   *
+   * @param amount The amount lent, in minor units
+   */
+  void fill(long amount) {
+    if (proposedAmount.updateAndGet(proposed -> MinorUnits.subtract(proposed, amount)) == 0) {
+      accept();
+    }
+  }
+
   public void accept() {
     accepted = true;
+    AllProposals.getInstance().remove(this);
+  }
+
+  /** Withdraw the proposal, when the customer cannot honour it anymore. */
+  public void withdraw() {
+    withdrawn = true;
+    AllProposals.getInstance().remove(this);
   }
 }
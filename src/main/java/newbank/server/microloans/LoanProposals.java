@@ -1,10 +1,13 @@
 package newbank.server.microloans;
 
 import newbank.server.Customer;
+import newbank.server.journal.SnapshotReader;
+import newbank.server.journal.SnapshotWriter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 public class LoanProposals {
@@ -14,50 +17,69 @@ public class LoanProposals {
     proposalSource = AllProposals.getInstance();
   }
   
+  /** @return the loan requests which have been neither accepted nor evicted since they expired */
   public Stream<LoanRequest> getRequests() {
     return proposalSource.getRequests();
   }
 
   public Stream<LoanRequest> getRequests(Customer customer) {
-    return proposalSource.getRequests(customer);
+    return getRequest(customer.getUsername()).map(Stream::of).orElseGet(Stream::empty);
   }
 
   public Optional<LoanRequest> getCurrentRequest(String id) {
-    return proposalSource.getRequests()
-        .filter(request -> request.getID().equals(id) && request.isCurrent())
-        .findFirst();
+    return getCurrentRequest(id, LocalDateTime.now());
   }
-  
-  public void addProposal(LoanProposal proposal) {
-    proposalSource.addProposal(proposal);
+
+  public Optional<LoanRequest> getCurrentRequest(String id, LocalDateTime date) {
+    return getRequest(id).filter(request -> request.isCurrent(date));
+  }
+
+  private Optional<LoanRequest> getRequest(String id) {
+    return Optional.ofNullable(proposalSource.getRequest(id));
   }
-}
 
-enum AllProposals {
-  INSTANCE;
+  public Optional<LoanOffer> getCurrentOffer(String id) {
+    return getCurrentOffer(id, LocalDateTime.now());
+  }
 
-  private final List<LoanRequest> loanRequests;
+  public Optional<LoanOffer> getCurrentOffer(String id, LocalDateTime date) {
+    return Optional.ofNullable(proposalSource.getOffer(id)).filter(offer -> offer.isCurrent(date));
+  }
+
+  /** @return the book matching the offers with the requests */
+  public LoanOrderBook getOrderBook() {
+    return proposalSource.getOrderBook();
+  }
   
-  public static AllProposals getInstance() {
-    return INSTANCE;
+  public void addProposal(LoanProposal proposal) {
+    proposalSource.addProposal(proposal);
   }
 
-  AllProposals() {
-    loanRequests = new ArrayList<>();
+  /** Encode every current loan request and offer into a snapshot. */
+  public void writeTo(SnapshotWriter out) throws IOException {
+    proposalSource.writeTo(out);
   }
 
-  public Stream<LoanRequest> getRequests() {
-    return loanRequests.stream();
+  /**
+   * Replace every loan request and offer with the ones of a snapshot.
+   *
+   * @param customers Finds the customers by their username
+   */
+  public void readFrom(SnapshotReader in, Function<String, Customer> customers)
+      throws IOException {
+    proposalSource.readFrom(in, customers);
   }
 
-  public Stream<LoanRequest> getRequests(Customer customer) {
-    return loanRequests
-        .stream()
-        .filter(loanRequest -> loanRequest.getBorrower().equals(customer));
+  /**
+   * Stop evicting the proposals as they expire, while the journal is replayed: the proposals must
+   * be found by the records made before they expired.
+   */
+  public void suspendExpiry() {
+    proposalSource.setExpirySuspended(true);
   }
 
-  public void addProposal(LoanProposal request) {
-    loanRequests.add((LoanRequest) request);
-    // TODO handle LoanOffer
+  /** Resume evicting the proposals as they expire, and evict those which expired meanwhile. */
+  public void resumeExpiry() {
+    proposalSource.setExpirySuspended(false);
   }
 }
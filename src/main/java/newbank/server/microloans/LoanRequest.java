@@ -3,6 +3,8 @@ package newbank.server.microloans;
 import newbank.server.Customer;
 import org.javamoney.moneta.Money;
 
+import java.time.LocalDateTime;
+
 import static newbank.utils.Config.MICROLOAN_REQUEST_EXPIRY_DAYS;
 
 public class LoanRequest extends LoanProposal {
@@ -11,7 +13,16 @@ public class LoanRequest extends LoanProposal {
         Customer borrower, 
         int repaymentPeriod
     ) {
-        super(proposedAmount, borrower, repaymentPeriod);
+        this(proposedAmount, borrower, repaymentPeriod, LocalDateTime.now());
+    }
+
+    public LoanRequest(
+        Money proposedAmount,
+        Customer borrower,
+        int repaymentPeriod,
+        LocalDateTime creationDate
+    ) {
+        super(proposedAmount, borrower, repaymentPeriod, creationDate);
         this.expiryDate = creationDate.plusDays(MICROLOAN_REQUEST_EXPIRY_DAYS);
     }
 
@@ -0,0 +1,12 @@
+package newbank.server.microloans;
+
+import newbank.utils.TimingWheel;
+
+import static newbank.utils.Config.LOAN_TIMER_TICK_MILLIS;
+
+/** The timer shared by the loans and the loan requests, for their deadlines and expiry dates. */
+final class LoanTimers {
+  static final TimingWheel WHEEL = new TimingWheel(LOAN_TIMER_TICK_MILLIS, "loan-timers");
+
+  private LoanTimers() {}
+}
@@ -1,9 +1,11 @@
 package newbank.server.microloans;
 
 import newbank.server.Customer;
+import newbank.server.journal.SnapshotReader;
+import newbank.server.journal.SnapshotWriter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 public class Loans {
@@ -24,34 +26,24 @@ public class Loans {
   public void addLoan(MicroLoan loan) {
     loanSource.addLoan(loan);
   }
-}
-
-enum AllLoans {
-  INSTANCE;
-
-  private final List<MicroLoan> loans;
-
-  public static AllLoans getInstance() {
-    return INSTANCE;
-  }
 
-  AllLoans() {
-    loans = new ArrayList<>();
+  /** @return true if the customer has a current loan past its repayment deadline. */
+  public boolean hasDefaulted(Customer customer) {
+    return customer.getLoanHistory().hasDefaultedOnADebt();
   }
 
-  public Stream<MicroLoan> getCredits(Customer customer) {
-    return loans
-        .stream()
-        .filter(loan -> loan.getLender().equals(customer));
+  /** Encode every loan into a snapshot. */
+  public void writeTo(SnapshotWriter out) throws IOException {
+    loanSource.writeTo(out);
   }
 
-  public Stream<MicroLoan> getDebts(Customer customer) {
-    return loans
-        .stream()
-        .filter(loan -> loan.getBorrower().equals(customer));
-  }
-
-  public void addLoan(MicroLoan loan) {
-    loans.add(loan);
+  /**
+   * Replace every loan with the ones of a snapshot.
+   *
+   * @param customers Finds the customers by their username
+   */
+  public void readFrom(SnapshotReader in, Function<String, Customer> customers)
+      throws IOException {
+    loanSource.readFrom(in, customers);
   }
 }
@@ -4,11 +4,22 @@ import newbank.server.Customer;
 import org.javamoney.moneta.Money;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import newbank.utils.MinorUnits;
 
 public class MicroLoan {
-  static private double ACCRUAL_RATE;
   private final Money originalAmount;
-  private Money outstandingAmount;
+  // guards the outstanding amount, without pinning the virtual threads which wait for it
+  private final Lock lock = new ReentrantLock();
+  // in minor units, guarded by the lock
+  private long outstandingAmount;
+  // the interest accrued but not added yet, in units of 1 / RepaymentPlan.RATE_SCALE minor unit
+  private long accruedFraction;
+  private LocalDateTime lastAccrualDate;
   private final Customer lender;
   private final Customer borrower;
   private final RepaymentPlan plan;
@@ -20,19 +31,37 @@ public class MicroLoan {
       BigDecimal interestRate,
       int repaymentPeriod
   ) {
-    this.originalAmount = this.outstandingAmount = amount;
+    this(lender, borrower, amount, interestRate, repaymentPeriod, LocalDateTime.now());
+  }
+
+  public MicroLoan(
+      Customer lender,
+      Customer borrower,
+      Money amount,
+      BigDecimal interestRate,
+      int repaymentPeriod,
+      LocalDateTime creationDate
+  ) {
+    this.originalAmount = amount;
+    this.outstandingAmount = MinorUnits.of(amount);
+    this.lastAccrualDate = creationDate;
     this.lender = lender;
     this.borrower = borrower;
-    this.plan = new RepaymentPlan(this, interestRate, repaymentPeriod);
+    this.plan = new RepaymentPlan(this, interestRate, repaymentPeriod, creationDate);
   }
 
   public MicroLoan(Customer lender, LoanRequest acceptedRequest) {
+    this(lender, acceptedRequest, LocalDateTime.now());
+  }
+
+  public MicroLoan(Customer lender, LoanRequest acceptedRequest, LocalDateTime creationDate) {
     this(
         lender, 
         acceptedRequest.getBorrower(), 
         acceptedRequest.getProposedAmount(), 
         acceptedRequest.getAccrualRate(),
-        acceptedRequest.getRepaymentPeriod()
+        acceptedRequest.getRepaymentPeriod(),
+        creationDate
     );
   }
   
@@ -44,6 +73,118 @@ public class MicroLoan {
     return lender;
   }
 
+  Money getOriginalAmount() {
+    return originalAmount;
+  }
+
+  Money getOutstandingAmount() {
+    lock.lock();
+    try {
+      return MinorUnits.toMoney(outstandingAmount);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** @return the outstanding amount, in minor units */
+  long getOutstandingMinorUnits() {
+    lock.lock();
+    try {
+      return outstandingAmount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  long getAccruedFraction() {
+    lock.lock();
+    try {
+      return accruedFraction;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  LocalDateTime getLastAccrualDate() {
+    lock.lock();
+    try {
+      return lastAccrualDate;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void restoreOutstanding(
+      long outstandingAmount, long accruedFraction, LocalDateTime lastAccrualDate) {
+    lock.lock();
+    try {
+      this.outstandingAmount = outstandingAmount;
+      this.accruedFraction = accruedFraction;
+      this.lastAccrualDate = lastAccrualDate;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Compound the interest of every accrual period which ended since the last accrual. Accruing
+   * again as of the same date has no effect, so that the accrual can be retried at any time.
+   *
+   * <p>Fractions of a minor unit are carried over to the next period rather than rounded, so that
+   * small loans accrue interest too.
+   *
+   * @param date The date to accrue interest up to
+   * @return true if any period was accrued, false otherwise.
+   */
+  boolean accrueInterest(LocalDateTime date) {
+    lock.lock();
+    try {
+      return accrue(date);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // only called with the loan locked
+  private boolean accrue(LocalDateTime date) {
+    if (!plan.isCurrent()) {
+      return false;
+    }
+
+    // a period ends every midnight
+    long periods = ChronoUnit.DAYS.between(lastAccrualDate.toLocalDate(), date.toLocalDate());
+    if (periods <= 0) {
+      return false;
+    }
+
+    long rate = plan.getScaledInterestRate();
+    long interest = 0;
+    for (long i = 0; i < periods; i++) {
+      // split the amount so that the products cannot overflow for any sensible rate
+      long high = outstandingAmount / RepaymentPlan.RATE_SCALE;
+      long low = outstandingAmount % RepaymentPlan.RATE_SCALE;
+      long scaled = low * rate + accruedFraction;
+      long periodInterest =
+          MinorUnits.add(Math.multiplyExact(high, rate), scaled / RepaymentPlan.RATE_SCALE);
+      accruedFraction = scaled % RepaymentPlan.RATE_SCALE;
+
+      outstandingAmount = MinorUnits.add(outstandingAmount, periodInterest);
+      interest += periodInterest;
+    }
+    lastAccrualDate = date.toLocalDate().atStartOfDay();
+    plan.addBalanceChange(new Accrual(plan, lastAccrualDate, interest));
+    return true;
+  }
+
+  /** @return the lock guarding the outstanding amount, to read it consistently */
+  Lock getLock() {
+    return lock;
+  }
+
+  RepaymentPlan getPlan() {
+    return plan;
+  }
+
   public boolean hasDefaulted() {
     return plan.hasDefaulted();
   }
@@ -51,4 +192,8 @@ public class MicroLoan {
   public boolean isCurrent() {
     return plan.isCurrent();
   }
+
+  public boolean isDueSoon() {
+    return plan.isDueSoon();
+  }
 }
@@ -5,7 +5,7 @@ package newbank.server.microloans;
  */
 public class Repayment implements LoanBalanceChange {
   private RepaymentPlan plan;
-  // TODO use whatever class is introduced in the 22-pay-someone branch
+  // the repayment's transaction in the borrower's default account, see Transaction#getId()
   private long transaction;
 
   @Override
@@ -1,32 +1,170 @@
 package newbank.server.microloans;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import newbank.utils.TimingWheel;
+
+import static newbank.utils.Config.ACCRUAL_PERIODS_PER_YEAR;
+import static newbank.utils.Config.REPAYMENT_REMINDER_DAYS;
 
 public class RepaymentPlan {
+  private static final int RATE_SCALE_DIGITS = 9;
+  static final long RATE_SCALE = 1_000_000_000L;
   private final LocalDateTime creationDate;
   private final LocalDateTime repaymentDeadline;
+  private final int repaymentPeriod;
   private final MicroLoan loan;
   // TODO variable-rates. Probably introduce an abstract parent class.
   private final BigDecimal interestRate;
+  // the yearly interest rate split over the accrual periods, in fixed point
+  private final long scaledInterestRate;
   private final List<LoanBalanceChange> balanceChanges;
-  private boolean closed = false;
+  // guards the deadlines, which the loan timers fire on their own thread
+  private final Lock lock = new ReentrantLock();
+  private volatile boolean closed = false;
+  // once counted in the borrower's loan history
+  private boolean opened = false;
+  // set by the loan timers when the deadlines pass
+  private volatile boolean dueSoon = false;
+  private volatile boolean defaulted = false;
+  private TimingWheel.Timeout reminder;
+  private TimingWheel.Timeout deadline;
 
   public RepaymentPlan(MicroLoan microLoan, BigDecimal interestRate, int repaymentPeriod) {
+    this(microLoan, interestRate, repaymentPeriod, LocalDateTime.now());
+  }
+
+  public RepaymentPlan(
+      MicroLoan microLoan, BigDecimal interestRate, int repaymentPeriod, LocalDateTime creationDate) {
     this.loan = microLoan;
     this.interestRate = interestRate;
-    this.creationDate = LocalDateTime.now();
+    this.scaledInterestRate =
+        interestRate
+            .movePointRight(RATE_SCALE_DIGITS)
+            .divide(BigDecimal.valueOf(ACCRUAL_PERIODS_PER_YEAR), 0, RoundingMode.HALF_UP)
+            .longValueExact();
+    this.creationDate = creationDate;
+    this.repaymentPeriod = repaymentPeriod;
     this.repaymentDeadline = creationDate.plusDays(repaymentPeriod);
     this.balanceChanges = new ArrayList<>();
   }
 
   public boolean hasDefaulted() {
-    return isCurrent() && repaymentDeadline.isBefore(LocalDateTime.now());
+    return isCurrent() && defaulted;
+  }
+
+  /** @return true if the loan is still current and its deadline is close. */
+  public boolean isDueSoon() {
+    return isCurrent() && dueSoon;
   }
   
   public boolean isCurrent() {
     return !closed;
   }
+
+  /** @return the interest rate per accrual period, in units of 1 / {@link #RATE_SCALE} */
+  long getScaledInterestRate() {
+    return scaledInterestRate;
+  }
+
+  // only called with the loan locked
+  void addBalanceChange(LoanBalanceChange change) {
+    balanceChanges.add(change);
+  }
+
+  LocalDateTime getCreationDate() {
+    return creationDate;
+  }
+
+  BigDecimal getInterestRate() {
+    return interestRate;
+  }
+
+  int getRepaymentPeriod() {
+    return repaymentPeriod;
+  }
+
+  /**
+   * Count the loan as a current debt of its borrower, and have the reminder and the default fired
+   * by the loan timers when their dates pass.
+   */
+  void open() {
+    lock.lock();
+    try {
+      if (closed || opened) {
+        return;
+      }
+
+      opened = true;
+      loan.getBorrower().getLoanHistory().debtOpened(repaymentDeadline);
+      reminder =
+          LoanTimers.WHEEL.schedule(
+              repaymentDeadline.minusDays(REPAYMENT_REMINDER_DAYS), this::remind);
+      deadline = LoanTimers.WHEEL.schedule(repaymentDeadline, this::markDefaulted);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void cancelDeadlines() {
+    lock.lock();
+    try {
+      if (reminder != null) {
+        reminder.cancel();
+        deadline.cancel();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void remind() {
+    lock.lock();
+    try {
+      if (!closed) {
+        dueSoon = true;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void markDefaulted() {
+    lock.lock();
+    try {
+      if (!closed) {
+        defaulted = true;
+        loan.getBorrower().getLoanHistory().debtDefaulted();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void close() {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+
+      closed = true;
+      cancelDeadlines();
+      if (opened) {
+        loan.getBorrower().getLoanHistory().debtClosed(repaymentDeadline);
+      }
+      if (defaulted) {
+        loan.getBorrower().getLoanHistory().defaultSettled();
+      }
+    } finally {
+      lock.unlock();
+    }
+    AllLoans.getInstance().closed(loan);
+  }
 }
@@ -1,11 +1,35 @@
 package newbank.server.microloans;
 
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import newbank.server.Customer;
 
+import static newbank.utils.Config.REPAYMENT_REMINDER_DAYS;
+
+/**
+ * The summary of a customer's loans, kept by the customer.
+ *
+ * <p>The summary is updated as the customer's loans are made, default and close, and as the
+ * customer's loan proposals are added and leave the current ones, so that checking a customer's
+ * standing only reads it. The current debts are indexed by their repayment deadline, so that
+ * the closest one is found without going through the customer's loans.
+ */
 public class UserLoanHistory {
   private final LoanProposals loanProposals;
   private final Loans loans;
   private final Customer customer;
+  private final AtomicInteger currentDebts = new AtomicInteger();
+  // the number of current debts due at each repayment deadline
+  private final ConcurrentNavigableMap<LocalDateTime, Integer> debtDeadlines =
+      new ConcurrentSkipListMap<>();
+  private final AtomicInteger defaultedDebts = new AtomicInteger();
+  private final AtomicReference<LoanRequest> currentRequest = new AtomicReference<>();
+  private final AtomicReference<LoanOffer> currentOffer = new AtomicReference<>();
 
   public UserLoanHistory(Customer customer) {
     this.customer = customer;
@@ -13,24 +37,80 @@ public class UserLoanHistory {
     loans = new Loans();
   }
 
+  /** @return true if the customer has a current loan past its repayment deadline. */
   public boolean hasDefaultedOnADebt() {
-    return loans.getDebts(customer).anyMatch(MicroLoan::hasDefaulted);
+    return defaultedDebts.get() > 0;
+  }
+
+  /** @return true if the customer has a current loan whose repayment deadline is close. */
+  public boolean hasDebtDueSoon() {
+    return hasDebtDueBy(LocalDateTime.now().plusDays(REPAYMENT_REMINDER_DAYS));
+  }
+
+  /** @return true if the customer has a current loan due by the date, or past its deadline. */
+  public boolean hasDebtDueBy(LocalDateTime date) {
+    Map.Entry<LocalDateTime, Integer> closest = debtDeadlines.firstEntry();
+    return closest != null && !closest.getKey().isAfter(date);
   }
 
   public int currentDebtCount() {
-    return (int) loans.getDebts(customer).filter(MicroLoan::isCurrent).count();
+    return currentDebts.get();
   }
-  
+
   public boolean hasCurrentLoanRequest() {
-    return loanProposals.getRequests(customer)
-        .anyMatch(LoanProposal::isCurrent);
+    LoanRequest request = currentRequest.get();
+    return request != null && request.isCurrent();
+  }
+
+  public boolean hasCurrentLoanOffer() {
+    LoanOffer offer = currentOffer.get();
+    return offer != null && offer.isCurrent();
   }
 
   public void addLoanRequest(LoanRequest loanRequest) {
     loanProposals.addProposal(loanRequest);
   }
-  
+
+  public void addLoanOffer(LoanOffer loanOffer) {
+    loanProposals.addProposal(loanOffer);
+  }
+
   public void addLoan(MicroLoan loan) {
     loans.addLoan(loan);
   }
+
+  void proposalAdded(LoanProposal proposal) {
+    if (proposal instanceof LoanOffer) {
+      currentOffer.set((LoanOffer) proposal);
+    } else {
+      currentRequest.set((LoanRequest) proposal);
+    }
+  }
+
+  // unless the customer has made a new proposal since
+  void proposalRemoved(LoanProposal proposal) {
+    if (proposal instanceof LoanOffer) {
+      currentOffer.compareAndSet((LoanOffer) proposal, null);
+    } else {
+      currentRequest.compareAndSet((LoanRequest) proposal, null);
+    }
+  }
+
+  void debtOpened(LocalDateTime deadline) {
+    debtDeadlines.merge(deadline, 1, Integer::sum);
+    currentDebts.incrementAndGet();
+  }
+
+  void debtClosed(LocalDateTime deadline) {
+    debtDeadlines.computeIfPresent(deadline, (date, count) -> count > 1 ? count - 1 : null);
+    currentDebts.decrementAndGet();
+  }
+
+  void debtDefaulted() {
+    defaultedDebts.incrementAndGet();
+  }
+
+  void defaultSettled() {
+    defaultedDebts.decrementAndGet();
+  }
 }
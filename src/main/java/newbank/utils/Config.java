@@ -7,13 +7,30 @@ public class Config {
     public static final String MULTILINE_INFO_SEPARATOR = "~~";
     public static final int DEFAULT_PORT = 14002;
     public static final String DEFAULT_IP = "localhost";
+    public static final int MAX_REQUEST_LENGTH = 8192;
+    public static final int MAX_BATCH_REQUESTS = 1000;
+    public static final int NIO_WORKER_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int SNAPSHOT_INTERVAL_MINUTES = 10;
+    public static final String ADMIN_USERNAME = "Admin";
+    // the environment variable holding the administrator's password, there is no administrator without it
+    public static final String ADMIN_PASSWORD_VARIABLE = "NEWBANK_ADMIN_PASSWORD";
+    public static final String STATS_FILE = "stats.log";
+    public static final int STATS_INTERVAL_SECONDS = 60;
 
     public static final String DEFAULT_CURRENCY = "GBP";
     public static final int MAX_ACCOUNTS = 5;
+    public static final int SEQUENCER_RING_SIZE = 1024;
+    public static final int TRANSACTION_CHUNK_SIZE = 4096;
+    public static final int STATEMENT_DEFAULT_TRANSACTIONS = 10;
+    public static final int STATEMENT_MAX_TRANSACTIONS = 100;
 
     public static final Money MAX_MICROLOAN = Money.of(1000, "GBP");
     public static final BigDecimal ACCRUAL_RATE = BigDecimal.valueOf(0.01);
+    public static final int ACCRUAL_PERIODS_PER_YEAR = 365;
     public static final int MICROLOAN_OFFER_EXPIRY_DAYS = 7;
     public static final int MICROLOAN_REQUEST_EXPIRY_DAYS = 7;
+    public static final int REPAYMENT_REMINDER_DAYS = 3;
+    public static final long LOAN_TIMER_TICK_MILLIS = 1000;
     public static final int MAX_REPAYMENT_PERIOD_DAYS = 730;
+    public static final int LOAN_TERM_BUCKET_DAYS = 7;
 }
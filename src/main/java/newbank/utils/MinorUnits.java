@@ -0,0 +1,106 @@
+package newbank.utils;
+
+import java.math.BigDecimal;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+
+import org.javamoney.moneta.Money;
+
+import static newbank.utils.Config.DEFAULT_CURRENCY;
+
+/**
+ * Fixed-point amounts of the bank's currency, held in a <code>long</code> counting minor units
+ * (pence for GBP).
+ *
+ * <p>Balances are kept in this form so that crediting and debiting an account is plain integer
+ * arithmetic. {@link Money} objects are only created at the edges, to display an amount.
+ */
+public final class MinorUnits {
+  public static final CurrencyUnit CURRENCY = Monetary.getCurrency(DEFAULT_CURRENCY);
+  public static final int FRACTION_DIGITS = CURRENCY.getDefaultFractionDigits();
+  // few enough digits for any plain amount to fit, whatever the currency's fraction digits
+  private static final int MAX_PLAIN_DIGITS = 15;
+
+  private MinorUnits() {}
+
+  /**
+   * Convert a decimal amount of the bank's currency.
+   *
+   * @throws ArithmeticException if the amount has too many decimal places or does not fit.
+   */
+  public static long of(final BigDecimal amount) {
+    return amount.movePointRight(FRACTION_DIGITS).longValueExact();
+  }
+
+  /**
+   * Convert an amount of money in the bank's currency.
+   *
+   * @throws ArithmeticException if the amount has too many decimal places or does not fit.
+   */
+  public static long of(final Money amount) {
+    return of(amount.getNumberStripped());
+  }
+
+  /**
+   * Convert a plain decimal amount, such as "10" or "10.25", without creating any object.
+   *
+   * @param text The text holding the amount
+   * @param start The index of the amount's first character
+   * @param end The index after the amount's last character
+   * @throws NumberFormatException if the text is not made of at most {@value #MAX_PLAIN_DIGITS}
+   *     digits with an optional decimal point followed by up to {@link #FRACTION_DIGITS} digits.
+   *     Use {@link #of(BigDecimal)} for any other amount.
+   */
+  public static long parse(final CharSequence text, final int start, final int end) {
+    long amount = 0;
+    int digits = 0;
+    int fractionDigits = -1;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (c == '.' && fractionDigits < 0 && digits > 0) {
+        fractionDigits = 0;
+        continue;
+      }
+      if (c < '0' || c > '9' || ++digits > MAX_PLAIN_DIGITS || fractionDigits == FRACTION_DIGITS) {
+        throw new NumberFormatException("Not a plain amount");
+      }
+
+      amount = amount * 10 + (c - '0');
+      if (fractionDigits >= 0) {
+        fractionDigits++;
+      }
+    }
+
+    if (digits == 0 || fractionDigits == 0) {
+      throw new NumberFormatException("Not a plain amount");
+    }
+    for (int i = Math.max(fractionDigits, 0); i < FRACTION_DIGITS; i++) {
+      amount *= 10;
+    }
+    return amount;
+  }
+
+  public static BigDecimal toBigDecimal(final long amount) {
+    return BigDecimal.valueOf(amount, FRACTION_DIGITS);
+  }
+
+  public static Money toMoney(final long amount) {
+    return Money.of(toBigDecimal(amount), CURRENCY);
+  }
+
+  /** @throws ArithmeticException if the result overflows. */
+  public static long add(final long a, final long b) {
+    return Math.addExact(a, b);
+  }
+
+  /** @throws ArithmeticException if the result overflows. */
+  public static long subtract(final long a, final long b) {
+    return Math.subtractExact(a, b);
+  }
+
+  /** @return the amount as a plain decimal number, e.g. "1000.00" */
+  public static String format(final long amount) {
+    return toBigDecimal(amount).toPlainString();
+  }
+}
@@ -0,0 +1,210 @@
+package newbank.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hierarchical timing wheel, running tasks at their deadlines on a single background thread.
+ *
+ * <p>Time is cut into ticks. The finest wheel has a slot per tick for the next {@value
+ * #WHEEL_SIZE} ticks, and each coarser wheel has a slot per turn of the previous one, so that
+ * {@value #WHEELS} wheels cover billions of ticks. A task waits in a slot of the finest wheel
+ * covering its deadline, and moves down to finer wheels as the deadline gets closer. Scheduling and
+ * cancelling a task are O(1) whatever the number of tasks, and cost no more than a queue insertion
+ * for the calling thread.
+ *
+ * <p>Tasks run up to a tick late, never early. They must be short since they share the thread.
+ */
+public class TimingWheel {
+  private static final int WHEEL_BITS = 8;
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  private static final int WHEELS = 4;
+
+  private static final int WAITING = 0;
+  private static final int CANCELLED = 1;
+  private static final int EXPIRED = 2;
+
+  private final long tickMillis;
+  private final long startMillis;
+  // handed over to the wheel's thread
+  private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+  // only used by the wheel's thread: the first timeout of each slot, and the last tick processed
+  private final Timeout[][] slots = new Timeout[WHEELS][WHEEL_SIZE];
+  private long currentTick;
+
+  /** A task waiting for its deadline. */
+  public static final class Timeout {
+    private final long deadlineTick;
+    private final Runnable task;
+    private final TimingWheel wheel;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+    // the slot holding the timeout, only used by the wheel's thread
+    private int wheelIndex = -1;
+    private int slotIndex;
+    private Timeout previous;
+    private Timeout next;
+
+    private Timeout(final TimingWheel wheel, final long deadlineTick, final Runnable task) {
+      this.wheel = wheel;
+      this.deadlineTick = deadlineTick;
+      this.task = task;
+    }
+
+    /**
+     * Cancel the task, unless it has already run.
+     *
+     * @return true if the task will not run, false if it has run or is running.
+     */
+    public boolean cancel() {
+      if (state.compareAndSet(WAITING, CANCELLED)) {
+        wheel.cancelled.add(this);
+        return true;
+      }
+      return state.get() == CANCELLED;
+    }
+
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+
+    public boolean isExpired() {
+      return state.get() == EXPIRED;
+    }
+  }
+
+  /**
+   * @param tickMillis The duration of a tick, in milliseconds
+   * @param name The name of the wheel's thread
+   */
+  public TimingWheel(final long tickMillis, final String name) {
+    this.tickMillis = tickMillis;
+    this.startMillis = System.currentTimeMillis();
+
+    Thread thread = new Thread(this::run, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Run a task at a given time.
+   *
+   * @param deadlineMillis The time, in milliseconds since the epoch. A time which has passed
+   *     already runs the task on the next tick.
+   * @param task The task to run
+   * @return the timeout, to cancel the task
+   */
+  public Timeout schedule(final long deadlineMillis, final Runnable task) {
+    long delay = deadlineMillis - startMillis;
+    long deadlineTick = delay <= 0 ? 0 : (delay + tickMillis - 1) / tickMillis;
+    Timeout timeout = new Timeout(this, deadlineTick, task);
+    scheduled.add(timeout);
+    return timeout;
+  }
+
+  /** Run a task at a given local date and time, see {@link #schedule(long, Runnable)}. */
+  public Timeout schedule(final LocalDateTime deadline, final Runnable task) {
+    return schedule(deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), task);
+  }
+
+  private void run() {
+    while (true) {
+      long sleep = startMillis + (currentTick + 1) * tickMillis - System.currentTimeMillis();
+      if (sleep > 0) {
+        try {
+          Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+          return;
+        }
+        continue;
+      }
+
+      Timeout timeout;
+      while ((timeout = cancelled.poll()) != null) {
+        unlink(timeout);
+      }
+      while ((timeout = scheduled.poll()) != null) {
+        if (timeout.state.get() == WAITING) {
+          // deadlines which have passed are due on the next tick
+          link(timeout, Math.max(timeout.deadlineTick, currentTick + 1));
+        }
+      }
+
+      tick(++currentTick);
+    }
+  }
+
+  private void tick(final long tick) {
+    // move the timeouts of the coarser wheels down when the finer wheels complete a turn
+    for (int wheel = WHEELS - 1; wheel > 0; wheel--) {
+      if ((tick & ((1L << (wheel * WHEEL_BITS)) - 1)) == 0) {
+        int slot = (int) (tick >>> (wheel * WHEEL_BITS)) & WHEEL_MASK;
+        Timeout timeout = slots[wheel][slot];
+        slots[wheel][slot] = null;
+        while (timeout != null) {
+          Timeout next = timeout.next;
+          link(timeout, timeout.deadlineTick);
+          timeout = next;
+        }
+      }
+    }
+
+    int slot = (int) tick & WHEEL_MASK;
+    Timeout timeout = slots[0][slot];
+    slots[0][slot] = null;
+    while (timeout != null) {
+      Timeout next = timeout.next;
+      timeout.wheelIndex = -1;
+      timeout.previous = timeout.next = null;
+      if (timeout.state.compareAndSet(WAITING, EXPIRED)) {
+        try {
+          timeout.task.run();
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+        }
+      }
+      timeout = next;
+    }
+  }
+
+  // add a timeout to the slot of its deadline in the finest wheel covering it
+  private void link(final Timeout timeout, final long deadlineTick) {
+    long delay = Math.max(deadlineTick - currentTick, 0);
+    int wheel = 0;
+    while (wheel < WHEELS - 1 && delay >= 1L << ((wheel + 1) * WHEEL_BITS)) {
+      wheel++;
+    }
+    int slot = (int) (deadlineTick >>> (wheel * WHEEL_BITS)) & WHEEL_MASK;
+
+    Timeout first = slots[wheel][slot];
+    timeout.wheelIndex = wheel;
+    timeout.slotIndex = slot;
+    timeout.previous = null;
+    timeout.next = first;
+    if (first != null) {
+      first.previous = timeout;
+    }
+    slots[wheel][slot] = timeout;
+  }
+
+  private void unlink(final Timeout timeout) {
+    if (timeout.wheelIndex < 0) {
+      return; // still queued, it will be dropped
+    }
+
+    if (timeout.previous == null) {
+      slots[timeout.wheelIndex][timeout.slotIndex] = timeout.next;
+    } else {
+      timeout.previous.next = timeout.next;
+    }
+    if (timeout.next != null) {
+      timeout.next.previous = timeout.previous;
+    }
+    timeout.wheelIndex = -1;
+    timeout.previous = timeout.next = null;
+  }
+}
@@ -0,0 +1,62 @@
+package newbank.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to JDK 21 virtual threads from code compiled for older Java versions.
+ *
+ * <p>The API is looked up reflectively so that the application still builds and runs on the
+ * Java 8 baseline. Build with the <code>jdk21</code> Maven profile to target the newer runtime.
+ */
+public final class VirtualThreads {
+  private static final MethodHandle NEW_FACTORY = findFactoryMethod();
+
+  private VirtualThreads() {}
+
+  private static MethodHandle findFactoryMethod() {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+
+      MethodHandle ofVirtual =
+          lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualClass));
+      MethodHandle factory =
+          lookup
+              .findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class))
+              .asType(MethodType.methodType(ThreadFactory.class, ofVirtualClass));
+
+      // Thread.ofVirtual().factory()
+      return MethodHandles.filterReturnValue(ofVirtual, factory);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /** @return true if the running JVM supports virtual threads. */
+  public static boolean isSupported() {
+    return NEW_FACTORY != null;
+  }
+
+  /**
+   * Create a factory starting each new thread as a virtual thread.
+   *
+   * @throws UnsupportedOperationException if the running JVM does not support virtual threads.
+   */
+  public static ThreadFactory factory() {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException(
+          "Virtual threads require Java 21 or later, running "
+              + System.getProperty("java.version"));
+    }
+
+    try {
+      return (ThreadFactory) NEW_FACTORY.invoke();
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot create a virtual thread factory", e);
+    }
+  }
+}
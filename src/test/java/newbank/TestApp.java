@@ -6,10 +6,12 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.matchesPattern;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 
 import java.io.IOException;
 import java.io.PipedReader;
 import java.io.PipedWriter;
+import java.time.LocalDate;
 import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -81,6 +83,14 @@ public class TestApp {
     return display.getLine();
   }
 
+  @Disabled
+  private String testBatch(final String... requests) throws IOException {
+    writer.write(String.join("\n", requests) + "\nEND\n");
+    display.discardLinesUntil("request [END]");
+
+    return display.getLine();
+  }
+
   private void checkAccountBalance(final String account, final String balance) throws IOException {
     String result = testCommand("SHOWMYACCOUNTS\n");
     String[] info = result.split(MULTILINE_INFO_SEPARATOR);
@@ -547,4 +557,190 @@ public class TestApp {
     response = testCommand(String.format("GRANTLOAN %s\n", loanID)).toLowerCase();
     assertThat(response, matchesPattern("fail:.+insufficient funds.+"));
   }
+
+  @Test
+  public void matchingLoanOfferFundsLoanRequest() throws IOException {
+    String lenderName = "matchingOfferLender";
+    setupCustomerWithAccount(lenderName, "Password0", "Main");
+    String response = testCommand("DEPOSIT main 150\n");
+    assertThat(response, containsString("SUCCESS"));
+    response = testCommand("OFFERLOAN 100 0.5 30\n");
+    assertThat(response, containsString("SUCCESS"));
+    response = testCommand("LOGOUT\n");
+    assertThat(response, containsString("SUCCESS"));
+
+    String borrowerName = "matchingOfferBorrower";
+    setupCustomerWithAccount(borrowerName, "Password0", "Main");
+    response = testCommand("REQUESTLOAN 100 30\n");
+    assertThat(response, containsString("SUCCESS"));
+
+    Customer borrower = getCustomer(borrowerName);
+    Customer lender = getCustomer(lenderName);
+    assertThat(borrower.getLoanHistory().currentDebtCount(), equalTo(1));
+    assertThat(borrower.getLoanHistory().hasCurrentLoanRequest(), equalTo(false));
+    assertThat(lender.getLoanHistory().hasCurrentLoanOffer(), equalTo(false));
+    assertThat(
+        getAndAssertOptional(borrower::getDefaultAccount).getBalance(),
+        equalTo(Money.of(100, "GBP")));
+    assertThat(
+        getAndAssertOptional(lender::getDefaultAccount).getBalance(),
+        equalTo(Money.of(50, "GBP")));
+  }
+
+  private static Stream<Arguments> badLoanOfferParams() {
+    return Stream.of(
+        Arguments.of("loan.+0", "0", "0.5", "30"),
+        Arguments.of("rate.+invalid", "100", "half", "30"),
+        Arguments.of("rate.+between", "100", "-1", "30"),
+        Arguments.of("rate.+between", "100", "101", "30"),
+        Arguments.of("term.+invalid", "100", "0.5", "0")
+    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("badLoanOfferParams")
+  public void invalidLoanOfferFails(String failReason, String amount, String rate, String term)
+      throws IOException {
+    int hash = Math.abs(String.format("%s#%s#%s#%s", failReason, amount, rate, term).hashCode());
+    setupCustomerWithAccount(
+        String.format("TestLender%d", hash),
+        String.format("Password%d", hash),
+        "Main"
+    );
+
+    String response =
+        testCommand(String.format("OFFERLOAN %s %s %s\n", amount, rate, term)).toLowerCase();
+    assertThat(response, matchesPattern(String.format("fail:.+%s.+", failReason)));
+  }
+
+  @Test
+  public void canExecuteBatch() throws IOException {
+    setupCustomerWithAccount("BatchCustomer1", "Password1", "Main");
+    String response = testCommand("NEWACCOUNT Savings\n");
+    assertThat(response, containsString("SUCCESS"));
+
+    response =
+        testBatch(
+            "BATCH",
+            "DEPOSIT Main 100",
+            "MOVE Main Savings 30",
+            "PAY John 200",
+            "SHOWMYACCOUNTS");
+    String[] lines = response.split(MULTILINE_INFO_SEPARATOR);
+    assertThat(lines.length, equalTo(5));
+    assertThat(lines[0], equalTo("SUCCESS: Batch executed, 2 of 4 requests succeeded."));
+    assertThat(lines[1], equalTo("1: SUCCESS: Account credited successfully."));
+    assertThat(
+        lines[2], equalTo("2: SUCCESS: Money transferred from [Main] to [Savings] successfully."));
+    assertThat(lines[3], startsWith("3: FAIL: Insufficient funds in [Main]"));
+    assertThat(lines[4], equalTo("4: FAIL: Request [SHOWMYACCOUNTS] cannot be part of a batch."));
+
+    testShowMyAccountsOutput(new String[] {"\\*Main: 70.00 GBP", "Savings: 30.00 GBP"});
+  }
+
+  @Test
+  public void atomicBatchRollsBackOnFailure() throws IOException {
+    setupCustomerWithAccount("BatchCustomer2", "Password2", "Main");
+    long johnBalance = getCustomer("John").getDefaultAccount().get().getBalanceMinorUnits();
+
+    String response = testBatch("BATCH ATOMIC", "DEPOSIT Main 100", "MOVE Main Main 10");
+    assertThat(response, startsWith("FAIL: Batch not executed, 1 of 2 requests are invalid."));
+    assertThat(response, containsString(MULTILINE_INFO_SEPARATOR + "1: SKIPPED"));
+
+    response = testBatch("BATCH ATOMIC", "DEPOSIT Main 100", "PAY John 50", "PAY John 100");
+    String[] lines = response.split(MULTILINE_INFO_SEPARATOR);
+    assertThat(lines.length, equalTo(4));
+    assertThat(lines[0], equalTo("FAIL: Batch rolled back, no request was applied."));
+    assertThat(lines[1], equalTo("1: ROLLED BACK"));
+    assertThat(lines[2], equalTo("2: ROLLED BACK"));
+    assertThat(lines[3], startsWith("3: FAIL: Insufficient funds in [Main]"));
+
+    checkAccountBalance("*Main", "0.00 GBP");
+    assertThat(
+        getCustomer("John").getDefaultAccount().get().getBalanceMinorUnits(),
+        equalTo(johnBalance));
+
+    response = testBatch("BATCH ATOMIC", "DEPOSIT Main 100", "PAY John 50");
+    assertThat(response, startsWith("SUCCESS: Batch executed, 2 of 2 requests succeeded."));
+    checkAccountBalance("*Main", "50.00 GBP");
+  }
+
+  @Test
+  public void canShowStatement() throws IOException {
+    setupCustomerWithAccount("StatementCustomer1", "Password1", "Main");
+    testCommand("DEPOSIT Main 100\n");
+    testCommand("PAY John 30\n");
+
+    String[] lines = testCommand("STATEMENT Main\n").split(MULTILINE_INFO_SEPARATOR);
+    assertThat(lines.length, equalTo(3));
+    assertThat(lines[0], equalTo("SUCCESS: Statement of [Main], 2 of 2 transactions."));
+    assertThat(lines[1], matchesPattern("1 \\S+ <DEPOSIT> 100.00 100.00"));
+    assertThat(lines[2], matchesPattern("2 \\S+ John -30.00 70.00"));
+
+    lines = testCommand("STATEMENT Main 1\n").split(MULTILINE_INFO_SEPARATOR);
+    assertThat(lines.length, equalTo(2));
+    assertThat(lines[0], equalTo("SUCCESS: Statement of [Main], 1 of 2 transactions."));
+    assertThat(lines[1], startsWith("2 "));
+
+    LocalDate today = LocalDate.now();
+    String response =
+        testCommand(String.format("STATEMENT Main %s %s\n", today, today.plusDays(1)));
+    assertThat(response, startsWith("SUCCESS: Statement of [Main], 2 of 2 transactions."));
+    response = testCommand(String.format("STATEMENT Main %s\n", today));
+    assertThat(response, startsWith("SUCCESS: Statement of [Main], 2 of 2 transactions."));
+    response = testCommand(String.format("STATEMENT Main %s\n", today.plusDays(1)));
+    assertThat(response, equalTo("SUCCESS: Statement of [Main], 0 of 0 transactions."));
+    response = testCommand(String.format("STATEMENT Main %s %s\n", today.minusDays(1), today));
+    assertThat(response, equalTo("SUCCESS: Statement of [Main], 0 of 0 transactions."));
+
+    assertThat(
+        testCommand("STATEMENT Nowhere\n"), equalTo("FAIL: Account [Nowhere] does not exist."));
+    assertThat(
+        testCommand("STATEMENT Main 0\n"), equalTo("FAIL: Count [0] must be between 1 and 100."));
+    assertThat(
+        testCommand("STATEMENT Main yesterday today\n"),
+        equalTo("FAIL: Time [yesterday] is invalid."));
+  }
+
+  @Test
+  public void rolledBackBatchLeavesNoTransaction() throws IOException {
+    setupCustomerWithAccount("StatementCustomer2", "Password2", "Main");
+    testCommand("DEPOSIT Main 100\n");
+
+    String response = testBatch("BATCH ATOMIC", "DEPOSIT Main 10", "PAY John 50", "PAY John 100");
+    assertThat(response, startsWith("FAIL: Batch rolled back"));
+
+    response = testCommand("STATEMENT Main\n");
+    assertThat(response, startsWith("SUCCESS: Statement of [Main], 1 of 1 transactions."));
+  }
+
+  @Test
+  public void pipelinedRequestsAreAnsweredInOrder() throws IOException {
+    client.setPipelined(true);
+    writer.write("LOGIN John John123\nDEPOSIT Nowhere 10\nSTATS\nLOGOUT\n");
+
+    display.discardLinesUntil("request [LOGIN");
+    assertThat(display.getLine(), startsWith("SUCCESS"));
+    display.discardLinesUntil("request [DEPOSIT");
+    assertThat(display.getLine(), equalTo("FAIL: Account [Nowhere] does not exist."));
+    display.discardLinesUntil("request [STATS");
+    assertThat(display.getLine(), equalTo("FAIL: Request not allowed, administrators only."));
+    display.discardLinesUntil("request [LOGOUT");
+    assertThat(display.getLine(), startsWith("SUCCESS"));
+  }
+
+  @Test
+  public void onlyAdminCanShowStats() throws IOException {
+    String response = logIn("John", "John123");
+    assertThat(response, containsString("SUCCESS"));
+    response = testCommand("STATS\n");
+    assertThat(response, equalTo("FAIL: Request not allowed, administrators only."));
+    testCommand("LOGOUT\n");
+
+    response = logIn("Admin", "Admin123");
+    assertThat(response, containsString("SUCCESS"));
+    response = testCommand("STATS\n");
+    assertThat(response, startsWith("SUCCESS"));
+    assertThat(response, matchesPattern(".*LOGIN +count=\\d+ ok=\\d+ fail=\\d+ .*p99=\\d+us.*"));
+  }
 }
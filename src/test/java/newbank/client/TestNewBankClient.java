@@ -0,0 +1,93 @@
+package newbank.client;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import newbank.client.NewBankClient.Response;
+import newbank.server.NewBankServer;
+
+public class TestNewBankClient {
+  private static NewBankServer server;
+
+  private NewBankClient client;
+
+  @BeforeAll
+  public static void beforeAll() throws IOException {
+    server = new NewBankServer(0);
+    server.setDaemon(true);
+    server.start();
+  }
+
+  @BeforeEach
+  public void setup() throws IOException {
+    NewBankServer.VERBOSE_MODE = false;
+    client = new NewBankClient("localhost", server.getPort(), 3);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    client.close();
+  }
+
+  private void setupCustomer(final String username) {
+    String password = username + "Pw1";
+    assertThat(client.register(username, password).join().isSuccess(), equalTo(true));
+    assertThat(client.login(username, password).join().getLine(), containsString("SUCCESS"));
+    assertThat(client.newAccount("Main", true).join().isSuccess(), equalTo(true));
+  }
+
+  @Test
+  public void matchesResponsesToRequests() {
+    setupCustomer("AsyncClient1");
+
+    List<CompletableFuture<Response>> deposits = new ArrayList<>();
+    List<CompletableFuture<Response>> failures = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      deposits.add(client.deposit("Main", BigDecimal.ONE));
+      failures.add(client.deposit("Missing" + i, BigDecimal.ONE));
+    }
+
+    for (int i = 0; i < 200; i++) {
+      assertThat(
+          deposits.get(i).join().getLine(), equalTo("SUCCESS: Account credited successfully."));
+      assertThat(
+          failures.get(i).join().getLine(),
+          equalTo(String.format("FAIL: Account [Missing%d] does not exist.", i)));
+    }
+    assertThat(client.showAccounts().join().getLines().get(0), containsString("200.00"));
+  }
+
+  @Test
+  public void canSendBatches() {
+    setupCustomer("AsyncClient2");
+
+    Response response =
+        client.batch(false, Arrays.asList("DEPOSIT Main 10", "DEPOSIT Missing 10")).join();
+    assertThat(response.getLine(), containsString("1 of 2 requests succeeded"));
+    assertThat(response.getLines().size(), equalTo(3));
+    assertThat(client.showAccounts().join().getLines().get(0), containsString("10.00"));
+  }
+
+  @Test
+  public void failsPendingRequestsWhenClosed() {
+    client.close();
+
+    CompletableFuture<Response> response = client.showAccounts();
+    assertThrows(CompletionException.class, response::join);
+  }
+}
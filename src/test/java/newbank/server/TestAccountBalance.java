@@ -0,0 +1,92 @@
+package newbank.server;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import newbank.server.exceptions.AccountBalanceInsufficientException;
+import newbank.server.exceptions.AccountBalanceInvalidException;
+
+public class TestAccountBalance {
+  @ParameterizedTest
+  @EnumSource(BalanceMode.class)
+  public void debitsFailOnInsufficientFunds(BalanceMode mode) throws Exception {
+    AccountBalance balance = mode.create(100);
+
+    assertThat(balance.tryDebit(101), equalTo(-1L));
+    assertThat(balance.tryDebit(60), equalTo(40L));
+    assertThat(balance.tryDebit(40), equalTo(0L));
+    assertThat(balance.get(), equalTo(0L));
+  }
+
+  @ParameterizedTest
+  @EnumSource(BalanceMode.class)
+  public void creditsFailOnOverflow(BalanceMode mode) throws Exception {
+    AccountBalance balance = mode.create(Long.MAX_VALUE - 1);
+
+    assertThat(balance.credit(1), equalTo(Long.MAX_VALUE));
+    assertThrows(AccountBalanceInvalidException.class, () -> balance.credit(1));
+    assertThat(balance.get(), equalTo(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void failedMovesLeaveBothAccountsUnchanged() throws Exception {
+    Account from = new Account("Main", 100);
+    Account to = new Account("Savings", Long.MAX_VALUE);
+
+    assertThrows(AccountBalanceInsufficientException.class, () -> from.moveMoneyToAccount(to, 101));
+    assertThrows(AccountBalanceInvalidException.class, () -> from.moveMoneyToAccount(to, 100));
+    assertThat(from.getBalanceMinorUnits(), equalTo(100L));
+    assertThat(to.getBalanceMinorUnits(), equalTo(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void atomicBalancesMoveMoneyWithoutLocks() throws Exception {
+    AccountBalance[] balances = new AccountBalance[4];
+    for (int i = 0; i < balances.length; i++) {
+      balances[i] = BalanceMode.ATOMIC.create(1000);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> moves = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        int offset = thread;
+        moves.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 100_000; i++) {
+                    AccountBalance from = balances[(i + offset) % balances.length];
+                    AccountBalance to = balances[(i + offset + 1) % balances.length];
+                    if (from.tryDebit(7) >= 0) {
+                      to.credit(7);
+                    }
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> move : moves) {
+        move.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    long total = 0;
+    for (AccountBalance balance : balances) {
+      assertThat(balance.get() >= 0, equalTo(true));
+      total += balance.get();
+    }
+    assertThat(total, equalTo(4000L));
+  }
+}
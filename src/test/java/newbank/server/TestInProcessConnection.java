@@ -0,0 +1,60 @@
+package newbank.server;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestInProcessConnection {
+  private InProcessConnection connection;
+
+  @BeforeEach
+  public void setup() {
+    NewBankServer.VERBOSE_MODE = false;
+    connection = new InProcessConnection();
+  }
+
+  @Test
+  public void canServeRequests() {
+    assertThat(connection.request("LOGIN John John123"), equalTo("SUCCESS: Log In Successful"));
+    assertThat(connection.request("SHOWMYACCOUNTS"), containsString("Checking: "));
+  }
+
+  @Test
+  public void answersBatchesOnEnd() {
+    connection.request("LOGIN John John123");
+
+    assertThat(connection.request("BATCH"), nullValue());
+    assertThat(connection.request("DEPOSIT Nowhere 10"), nullValue());
+    assertThat(
+        connection.request("END"), containsString("SUCCESS: Batch executed, 0 of 1 requests"));
+  }
+
+  @Test
+  public void cannotBeUsedOnceQuit() {
+    connection.request("QUIT");
+
+    assertThat(connection.isOpen(), equalTo(false));
+    assertThrows(IllegalStateException.class, () -> connection.request("HELP"));
+  }
+
+  @Test
+  public void handlerCanServeAScript() {
+    StringWriter responses = new StringWriter();
+    String script = "LOGIN John John123\nDEPOSIT Nowhere 10\nQUIT\nHELP\n";
+
+    new NewBankClientHandler(new StringReader(script), responses).run();
+
+    String[] lines = responses.toString().split(System.lineSeparator());
+    assertThat(lines.length, equalTo(3));
+    assertThat(lines[0], equalTo("SUCCESS: Log In Successful"));
+    assertThat(lines[1], equalTo("FAIL: Account [Nowhere] does not exist."));
+  }
+}
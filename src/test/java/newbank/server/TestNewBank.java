@@ -16,8 +16,15 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
+import org.javamoney.moneta.Money;
+
 public class TestNewBank {
   private static NewBank bank;
 
@@ -42,6 +49,11 @@ public class TestNewBank {
     );
   }
 
+  @Test
+  public void adminNameIsReserved() {
+    assertThrows(DuplicateCustomerException.class, () -> bank.addCustomer("aDMIN", "Abc123"));
+  }
+
   @ParameterizedTest
   @MethodSource("provideParamsForRegisterExceptions")
   public void throwsOnInvalidRegistration(Class<Throwable> e, String username, String password) {
@@ -51,6 +63,14 @@ public class TestNewBank {
     });
   }
   
+  @Test
+  public void findsCustomersIgnoringCase()
+      throws DuplicateCustomerException, PasswordInvalidException, UsernameInvalidException {
+    bank.addCustomer("caseCustomer", "Abc123");
+    assertThat(bank.getCustomer("CASECUSTOMER").get().getUsername(), equalTo("caseCustomer"));
+    assertThrows(DuplicateCustomerException.class, () -> bank.addCustomer("CaseCustomer", "Abc123"));
+  }
+
   @Test
   public void canLogIn()
       throws DuplicateCustomerException, PasswordInvalidException, UsernameInvalidException {
@@ -58,4 +78,99 @@ public class TestNewBank {
     assertThat(bank.checkLogInDetails("customer1", "Abc123"), nullValue());
     assertThat(bank.checkLogInDetails("customer1", "Abc123456"), not(equalTo(nullValue())));
   }
+
+  @Test
+  public void concurrentOpposingPaymentsKeepTotalBalance() throws Exception {
+    bank.addCustomer("payerA", "Abc123");
+    bank.addCustomer("payerB", "Abc123");
+    CustomerID a = new CustomerID("payerA");
+    CustomerID b = new CustomerID("payerB");
+    bank.newAccount(a, "Main", true);
+    bank.newAccount(b, "Main", true);
+    bank.depositMoney(a, "Main", 100000);
+    bank.depositMoney(b, "Main", 100000);
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<Future<?>> payments = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      CustomerID from = i % 2 == 0 ? a : b;
+      String to = i % 2 == 0 ? "payerB" : "payerA";
+      payments.add(pool.submit(() -> {
+        bank.payCustomer(from, to, 100);
+        return null;
+      }));
+    }
+    for (Future<?> payment : payments) {
+      payment.get();
+    }
+    pool.shutdown();
+
+    Money total = bank.getCustomer("payerA").get().getDefaultAccount().get().getBalance()
+        .add(bank.getCustomer("payerB").get().getDefaultAccount().get().getBalance());
+    assertThat(total, equalTo(Money.of(2000, "GBP")));
+  }
+
+  @Test
+  public void atomicBalancesArePaidAndMovedWithoutLosingMoneyOrTheirOrder() throws Exception {
+    CustomerID a = new CustomerID("atomicA");
+    CustomerID b = new CustomerID("atomicB");
+    bank.addCustomer("atomicA", "Abc123");
+    bank.addCustomer("atomicB", "Abc123");
+    Account.setBalanceMode(BalanceMode.ATOMIC);
+    try {
+      bank.newAccount(a, "Main", true);
+      bank.newAccount(a, "Savings", false);
+      bank.newAccount(b, "Main", true);
+    } finally {
+      Account.setBalanceMode(BalanceMode.LOCKED);
+    }
+    bank.depositMoney(a, "Main", 100000);
+    bank.depositMoney(b, "Main", 100000);
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<Future<?>> changes = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      int change = i;
+      changes.add(pool.submit(() -> {
+        if (change % 4 == 0) {
+          bank.payCustomer(a, "atomicB", 100);
+        } else if (change % 4 == 1) {
+          bank.payCustomer(b, "atomicA", 100);
+        } else if (change % 4 == 2) {
+          bank.moveMoney(a, "Main", "Savings", 10);
+        } else {
+          bank.depositMoney(b, "Main", 1);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> change : changes) {
+      change.get();
+    }
+    pool.shutdown();
+
+    Customer customerA = bank.getCustomer("atomicA").get();
+    long total =
+        customerA.getAccount("Main").get().getBalanceMinorUnits()
+            + customerA.getAccount("Savings").get().getBalanceMinorUnits()
+            + bank.getCustomer("atomicB").get().getDefaultAccount().get().getBalanceMinorUnits();
+    assertThat(total, equalTo(200500L));
+    assertThat(bank.readHistory(a, "Savings", TransactionHistory::size), equalTo(500));
+
+    // each recorded balance is the previous one changed by the transaction's amount
+    boolean inOrder =
+        bank.readHistory(
+            a,
+            "Main",
+            history -> {
+              for (int i = 1; i < history.size(); i++) {
+                if (history.get(i).getBalance()
+                    != history.get(i - 1).getBalance() + history.get(i).getAmount()) {
+                  return false;
+                }
+              }
+              return true;
+            });
+    assertThat(inOrder, equalTo(true));
+  }
 }
@@ -0,0 +1,71 @@
+package newbank.server;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestNioNewBankServer {
+  private static NioNewBankServer server;
+
+  private Socket socket;
+  private BufferedReader in;
+  private PrintWriter out;
+
+  @BeforeAll
+  public static void beforeAll() throws IOException {
+    server = new NioNewBankServer(0);
+    server.setDaemon(true);
+    server.start();
+  }
+
+  @BeforeEach
+  public void setup() throws IOException {
+    NewBankServer.VERBOSE_MODE = false;
+    socket = new Socket("localhost", server.getPort());
+    in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+    out = new PrintWriter(socket.getOutputStream(), true);
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    socket.close();
+  }
+
+  @Test
+  public void canServeRequests() throws IOException {
+    out.println("LOGIN John John123");
+    assertThat(in.readLine(), equalTo("SUCCESS: Log In Successful"));
+
+    out.println("SHOWMYACCOUNTS");
+    assertThat(in.readLine(), containsString("Checking: "));
+  }
+
+  @Test
+  public void answersRequestsSentTogetherInOrder() throws IOException {
+    out.print("QUIT HELP\r\nINVALID command\nLOGIN Nobody Nobody1\n");
+    out.flush();
+
+    assertThat(in.readLine(), equalTo("SUCCESS: Usage: QUIT"));
+    assertThat(in.readLine(), equalTo("FAIL: Unknown command."));
+    assertThat(in.readLine(), equalTo("FAIL: Log In Failed"));
+  }
+
+  @Test
+  public void closesConnectionOnQuit() throws IOException {
+    out.println("QUIT");
+    assertThat(in.readLine(), equalTo("SUCCESS: Good bye."));
+    assertThat(in.readLine(), nullValue());
+  }
+}
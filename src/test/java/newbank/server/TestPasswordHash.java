@@ -0,0 +1,33 @@
+package newbank.server;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class TestPasswordHash {
+  @Test
+  public void matchesOnlyTheHashedPassword() {
+    PasswordHash hash = PasswordHash.of("Secret123");
+
+    assertThat(hash.matches("Secret123"), equalTo(true));
+    assertThat(hash.matches("secret123"), equalTo(false));
+  }
+
+  @Test
+  public void encodingHoldsNoPasswordAndDecodesToTheSameHash() {
+    String encoded = PasswordHash.of("Secret123").encode();
+
+    assertThat(encoded, not(containsString("Secret123")));
+    assertThat(PasswordHash.isEncoded(encoded), equalTo(true));
+    assertThat(PasswordHash.decode(encoded).matches("Secret123"), equalTo(true));
+  }
+
+  @Test
+  public void samePasswordsAreSaltedDifferently() {
+    assertThat(
+        PasswordHash.of("Secret123").encode(), not(equalTo(PasswordHash.of("Secret123").encode())));
+  }
+}
@@ -0,0 +1,113 @@
+package newbank.server;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import newbank.server.exceptions.AccountBalanceInvalidException;
+import newbank.server.exceptions.AccountInvalidException;
+
+public class TestSequencer {
+  @Test
+  public void appliesMutationsOneAtATime() throws Exception {
+    AtomicLong durable = new AtomicLong();
+    Sequencer sequencer = new Sequencer(8, durable::set);
+    // only changed on the sequencer thread
+    long[] counter = new long[1];
+
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<Long>> results = new ArrayList<>();
+      for (int thread = 0; thread < 16; thread++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  long last = 0;
+                  for (int i = 0; i < 10_000; i++) {
+                    long entry = sequencer.apply(() -> ++counter[0]).getEntry();
+                    assertThat(entry > last, equalTo(true));
+                    // the hook has run for the mutation's batch
+                    assertThat(durable.get() >= entry, equalTo(true));
+                    last = entry;
+                  }
+                  return last;
+                }));
+      }
+      for (Future<Long> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(sequencer.apply(() -> counter[0]).getEntry(), equalTo(160_000L));
+  }
+
+  @Test
+  public void failuresAreRethrownToThePublisher() {
+    Sequencer sequencer = new Sequencer(4, entry -> {});
+
+    assertThrows(
+        AccountInvalidException.class,
+        () ->
+            sequencer
+                .apply(
+                    () -> {
+                      throw new AccountInvalidException("Sequenced", "Main");
+                    })
+                .rethrow(AccountBalanceInvalidException.class)
+                .rethrow(AccountInvalidException.class)
+                .getEntry());
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            sequencer
+                .apply(
+                    () -> {
+                      throw new AccountBalanceInvalidException();
+                    })
+                .rethrow(AccountInvalidException.class)
+                .getEntry());
+  }
+
+  @Test
+  public void errorsFailTheirMutationAndTheSequencerGoesOn() {
+    Sequencer sequencer = new Sequencer(4, entry -> {});
+
+    assertThrows(
+        AssertionError.class,
+        () ->
+            sequencer
+                .apply(
+                    () -> {
+                      throw new AssertionError("Sequenced");
+                    })
+                .getEntry());
+    assertThat(sequencer.apply(() -> 7).getEntry(), equalTo(7L));
+  }
+
+  @Test
+  public void hookFailuresFailTheirBatch() {
+    AtomicLong calls = new AtomicLong();
+    Sequencer sequencer =
+        new Sequencer(
+            4,
+            entry -> {
+              if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("Not durable");
+              }
+            });
+
+    assertThrows(IllegalStateException.class, () -> sequencer.apply(() -> 1).getEntry());
+    assertThat(sequencer.apply(() -> 2).getEntry(), equalTo(2L));
+  }
+}
@@ -0,0 +1,146 @@
+package newbank.server;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import newbank.server.journal.HistoryLog;
+import newbank.utils.Config;
+
+public class TestTransactionHistory {
+  private static final LocalDateTime START = LocalDateTime.of(2021, 3, 1, 9, 30);
+  // enough transactions to fill a few chunks
+  private static final int SIZE = Config.TRANSACTION_CHUNK_SIZE * 3 + 5;
+
+  // a transaction per second, crediting a penny
+  private static TransactionHistory history() {
+    TransactionHistory history = new TransactionHistory();
+    for (int i = 0; i < SIZE; i++) {
+      history.add(START.plusSeconds(i), "John", 1, i + 1);
+    }
+    return history;
+  }
+
+  @Test
+  public void keepsTransactionsInOrder() {
+    TransactionHistory history = history();
+
+    assertThat(history.size(), equalTo(SIZE));
+    for (int i = 0; i < SIZE; i += 997) {
+      Transaction transaction = history.get(i);
+      assertThat(transaction.getId(), equalTo(i + 1L));
+      assertThat(transaction.getTime(), equalTo(START.plusSeconds(i)));
+      assertThat(transaction.getBalance(), equalTo(i + 1L));
+    }
+
+    List<Transaction> last = history.last(3);
+    assertThat(last.size(), equalTo(3));
+    assertThat(last.get(2).getId(), equalTo((long) SIZE));
+  }
+
+  @Test
+  public void findsTransactionsByTime() {
+    TransactionHistory history = history();
+
+    assertThat(history.indexAt(START.minusDays(1)), equalTo(0));
+    assertThat(history.indexAt(START), equalTo(0));
+    assertThat(history.indexAt(START.plusSeconds(5000)), equalTo(5000));
+    assertThat(history.indexAt(START.plusSeconds(5000).plusNanos(1)), equalTo(5001));
+    assertThat(history.indexAt(START.plusDays(1)), equalTo(SIZE));
+  }
+
+  @Test
+  public void timesNeverDecrease() {
+    TransactionHistory history = new TransactionHistory();
+    history.add(START, "John", 1, 1);
+    history.add(START.minusHours(1), "John", 1, 2);
+
+    assertThat(history.get(1).getTime(), equalTo(START));
+    assertThat(history.indexAt(START), equalTo(0));
+  }
+
+  @Test
+  public void canRemoveUndoneTransactions() {
+    TransactionHistory history = history();
+    history.removeLast();
+    history.add(START.plusDays(1), TransactionHistory.DEPOSIT, 10, 20);
+
+    assertThat(history.size(), equalTo(SIZE));
+    assertThat(history.get(SIZE - 1).getCounterparty(), equalTo(TransactionHistory.DEPOSIT));
+    assertThat(history.get(SIZE - 2).getCounterparty(), equalTo("John"));
+  }
+
+  @Test
+  public void snapshotsOnlySaveTheNewTransactions(@TempDir Path directory) throws IOException {
+    TransactionHistory history = history();
+    try (HistoryLog log = new HistoryLog(directory)) {
+      history.writeTo(log, "Saver", "Main", SIZE - 5, 10, 0);
+      long first = log.force();
+      // the snapshot at 20 fails, the one at 30 saves the same transactions again
+      history.writeTo(log, "Saver", "Main", SIZE - 1, 20, 10);
+      log.truncate(first);
+      history.writeTo(log, "Saver", "Main", SIZE - 1, 30, 10);
+      history.writeTo(log, "Saver", "Main", SIZE, 40, 30);
+
+      TransactionHistory restored = new TransactionHistory();
+      restored.expectSaved(SIZE);
+      log.read(
+          log.force(),
+          block -> {
+            assertThat(block.readString(), equalTo("Saver"));
+            assertThat(block.readString(), equalTo("Main"));
+            restored.readFrom(block);
+          });
+      assertThat(restored.isComplete(), equalTo(true));
+      assertThat(restored.get(SIZE - 1).getTime(), equalTo(START.plusSeconds(SIZE - 1)));
+      assertThat(restored.get(SIZE - 1).getBalance(), equalTo((long) SIZE));
+    }
+  }
+
+  @Test
+  public void forgottenTransactionsKeepTheirIndexAndAreNotSaved(@TempDir Path directory)
+      throws IOException {
+    TransactionHistory history = history();
+    history.forget();
+    for (int i = 0; i < 3; i++) {
+      history.add(START.plusDays(1), TransactionHistory.DEPOSIT, 1, i + 1);
+    }
+
+    assertThat(history.first(), equalTo(SIZE));
+    assertThat(history.size(), equalTo(SIZE + 3));
+    assertThrows(IndexOutOfBoundsException.class, () -> history.get(SIZE - 1));
+    assertThat(history.last(10).size(), equalTo(3));
+    assertThat(history.last(10).get(0).getId(), equalTo(SIZE + 1L));
+    assertThat(history.indexAt(START), equalTo(SIZE));
+
+    try (HistoryLog log = new HistoryLog(directory)) {
+      history.writeTo(log, "Saver", "Main", SIZE + 3, 10, 0);
+
+      TransactionHistory restored = new TransactionHistory();
+      restored.expectSaved(SIZE + 3);
+      log.read(
+          log.force(),
+          block -> {
+            block.readString();
+            block.readString();
+            restored.readFrom(block);
+          });
+      assertThat(restored.isComplete(), equalTo(true));
+      assertThat(restored.first(), equalTo(SIZE));
+      assertThat(restored.get(SIZE + 2).getBalance(), equalTo(3L));
+    }
+
+    for (int i = 0; i < 3; i++) {
+      history.removeLast();
+    }
+    assertThrows(IllegalStateException.class, history::removeLast);
+  }
+}
@@ -0,0 +1,55 @@
+package newbank.server.commands;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class TestCommandSyntax {
+  private static final CommandSyntax NEWACCOUNT = CommandSyntax.parse("NEWACCOUNT <Name> [Default]");
+  private static final CommandSyntax REQUESTLOAN =
+      CommandSyntax.parse("REQUESTLOAN <amount> <days> [<rate>]");
+
+  @Test
+  public void parsesArityAndOptionalLiterals() {
+    assertThat(NEWACCOUNT.getMaxTokens(), equalTo(3));
+    assertThat(NEWACCOUNT.getRequiredTokens(), equalTo(2));
+    assertThat(NEWACCOUNT.getUsage(), equalTo("NEWACCOUNT <Name> [Default]"));
+
+    CommandSyntax logout = CommandSyntax.parse("LOGOUT");
+    assertThat(logout.getMaxTokens(), equalTo(1));
+    assertThat(logout.getRequiredTokens(), equalTo(1));
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "NEWACCOUNT, true",
+    "NEWACCOUNT Main, false",
+    "NEWACCOUNT Main DEFAULT, false",
+    "NEWACCOUNT Main [default], true",
+    "NEWACCOUNT Main Other, true",
+    "NEWACCOUNT Main DEFAULT extra, true"
+  })
+  public void validatesRequests(final String request, final boolean incorrect) {
+    RequestTokens tokens = new RequestTokens();
+    tokens.tokenize(request);
+    assertThat(NEWACCOUNT.isIncorrectUsage(tokens), equalTo(incorrect));
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "REQUESTLOAN 100, true",
+    "REQUESTLOAN 100 30, false",
+    "REQUESTLOAN 100 30 5.5, false",
+    "REQUESTLOAN 100 30 [<rate>], false",
+    "REQUESTLOAN 100 30 5.5 extra, true"
+  })
+  public void acceptsAnyValueForOptionalArguments(final String request, final boolean incorrect) {
+    RequestTokens tokens = new RequestTokens();
+    tokens.tokenize(request);
+    assertThat(REQUESTLOAN.getRequiredTokens(), equalTo(3));
+    assertThat(REQUESTLOAN.isIncorrectUsage(tokens), equalTo(incorrect));
+  }
+}
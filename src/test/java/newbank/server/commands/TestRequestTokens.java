@@ -0,0 +1,54 @@
+package newbank.server.commands;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class TestRequestTokens {
+  private final RequestTokens tokens = new RequestTokens();
+
+  @Test
+  public void splitsOnWhitespace() {
+    tokens.tokenize("  pay\tJohn   12.50 ");
+    assertThat(tokens.size(), equalTo(3));
+    assertThat(tokens.get(0), equalTo("pay"));
+    assertThat(tokens.get(1), equalTo("John"));
+    assertThat(tokens.get(2), equalTo("12.50"));
+    assertThat(tokens.equalsIgnoreCase(0, "PAY"), equalTo(true));
+    assertThat(tokens.equalsIgnoreCase(0, "PA"), equalTo(false));
+    assertThat(tokens.equalsIgnoreCase(3, "PAY"), equalTo(false));
+
+    tokens.tokenize("   ");
+    assertThat(tokens.size(), equalTo(0));
+  }
+
+  @Test
+  public void reusesSlotsForLongerRequests() {
+    tokens.tokenize("a b c d e f g h i j k");
+    assertThat(tokens.size(), equalTo(11));
+    assertThat(tokens.get(10), equalTo("k"));
+
+    tokens.tokenize("LOGOUT");
+    assertThat(tokens.size(), equalTo(1));
+    assertThrows(ArrayIndexOutOfBoundsException.class, () -> tokens.get(1));
+  }
+
+  @ParameterizedTest
+  @CsvSource({"10, 1000", "10.5, 1050", "10.25, 1025", "0.01, 1", "007, 700"})
+  public void parsesPlainAmounts(final String amount, final long minorUnits) {
+    tokens.tokenize("DEPOSIT Main " + amount);
+    assertThat(tokens.parseMinorUnits(2), equalTo(minorUnits));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"abc", "-10", "1e3", ".5", "5.", "1.234", "1.2.3", "1234567890123456"})
+  public void rejectsOtherAmounts(final String amount) {
+    tokens.tokenize("DEPOSIT Main " + amount);
+    assertThrows(NumberFormatException.class, () -> tokens.parseMinorUnits(2));
+  }
+}
@@ -0,0 +1,215 @@
+package newbank.server.journal;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestFileJournal {
+  @TempDir Path directory;
+
+  private static JournalRecord deposit(final String username, final long amount) {
+    return new JournalRecord(
+        LocalDateTime.now(),
+        JournalRecord.Type.DEPOSIT,
+        username,
+        "Main",
+        Long.toString(amount));
+  }
+
+  private static List<JournalRecord> readAll(final Path file) throws IOException {
+    List<JournalRecord> records = new ArrayList<>();
+    try (JournalReader reader = new JournalReader(file)) {
+      JournalRecord record;
+      while ((record = reader.next()) != null) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  @Test
+  public void concurrentAppendsAreAllDurable() throws Exception {
+    Path file = JournalFiles.segment(directory, 0);
+    FileJournal journal = new FileJournal(directory, 0, 0, 0);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      String username = "User" + t;
+      threads.add(
+          new Thread(
+              () -> {
+                for (int i = 0; i < 100; i++) {
+                  journal.awaitDurable(journal.append(deposit(username, i)));
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    journal.close();
+
+    List<JournalRecord> records = readAll(file);
+    assertThat(records.size(), equalTo(800));
+
+    // each session's records are in the order it appended them
+    Set<String> seen = new HashSet<>();
+    for (JournalRecord record : records) {
+      String username = record.getArgument(0);
+      long amount = record.getLongArgument(2);
+      assertThat(seen.add(username + amount), equalTo(true));
+      if (amount > 0) {
+        assertThat(seen.contains(username + (amount - 1)), equalTo(true));
+      }
+    }
+  }
+
+  @Test
+  public void partlyWrittenLastRecordIsDiscarded() throws Exception {
+    Path file = JournalFiles.segment(directory, 0);
+    FileJournal journal = new FileJournal(directory, 0, 0, 0);
+    journal.awaitDurable(journal.append(deposit("Bhagy", 100)));
+    journal.close();
+
+    byte[] torn = deposit("Bhagy", 200).encode();
+    Files.write(file, new byte[] {torn[0], torn[1], torn[2]}, StandardOpenOption.APPEND);
+
+    long validLength;
+    try (JournalReader reader = new JournalReader(file)) {
+      assertThat(reader.next().getLongArgument(2), equalTo(100L));
+      assertThat(reader.next(), nullValue());
+      validLength = reader.getValidLength();
+    }
+
+    journal = new FileJournal(directory, 0, validLength, 1);
+    journal.awaitDurable(journal.append(deposit("Bhagy", 300)));
+    journal.close();
+
+    List<JournalRecord> records = readAll(file);
+    assertThat(records.size(), equalTo(2));
+    assertThat(records.get(1).getLongArgument(2), equalTo(300L));
+  }
+
+  @Test
+  public void corruptedRecordIsRejected() throws Exception {
+    Path file = JournalFiles.segment(directory, 0);
+    String first = new String(deposit("Bhagy", 100).encode(), StandardCharsets.UTF_8);
+    String second = new String(deposit("Bhagy", 200).encode(), StandardCharsets.UTF_8);
+    Files.write(
+        file, (first.replace("100", "900") + second).getBytes(StandardCharsets.UTF_8));
+
+    try (JournalReader reader = new JournalReader(file)) {
+      assertThrows(IOException.class, reader::next);
+    }
+  }
+
+  @Test
+  public void newSegmentStartsAtTheNextPosition() throws Exception {
+    FileJournal journal = new FileJournal(directory, 0, 0, 0);
+    journal.append(deposit("Bhagy", 100));
+    journal.append(deposit("Bhagy", 200));
+    assertThat(journal.startSegment(), equalTo(2L));
+    journal.awaitDurable(journal.append(deposit("Bhagy", 300)));
+    journal.close();
+
+    assertThat(JournalFiles.segments(directory), equalTo(Arrays.asList(0L, 2L)));
+    assertThat(readAll(JournalFiles.segment(directory, 0)).size(), equalTo(2));
+    assertThat(
+        readAll(JournalFiles.segment(directory, 2)).get(0).getLongArgument(2), equalTo(300L));
+  }
+
+  @Test
+  public void snapshotIsReadBack() throws Exception {
+    try (SnapshotWriter out = new SnapshotWriter(directory, 42)) {
+      out.writeInt(2);
+      out.writeName("Main");
+      out.writeString("Bhagy123");
+      out.writeName("Main");
+      out.writeLong(-5);
+      out.commit();
+    }
+
+    try (SnapshotReader in = new SnapshotReader(JournalFiles.snapshot(directory, 42))) {
+      assertThat(in.getPosition(), equalTo(42L));
+      assertThat(in.readInt(), equalTo(2));
+      assertThat(in.readName(), equalTo("Main"));
+      assertThat(in.readString(), equalTo("Bhagy123"));
+      assertThat(in.readName(), equalTo("Main"));
+      assertThat(in.readLong(), equalTo(-5L));
+    }
+  }
+
+  @Test
+  public void snapshotIsReadAcrossWindows() throws Exception {
+    LocalDateTime time = LocalDateTime.of(2021, 3, 1, 12, 30, 15, 123_000_000);
+    SnapshotWriter section = SnapshotWriter.section();
+    section.writeString("Loans");
+
+    Path file;
+    try (SnapshotWriter out = new SnapshotWriter(directory, 9)) {
+      for (int i = 0; i < 1000; i++) {
+        out.writeName(i % 2 == 0 ? "Main" : "Savings");
+        out.writeLong(i * 1_000_000_007L);
+        out.writeBoolean(i % 3 == 0);
+        out.writeDateTime(time);
+      }
+      out.writeSection(section.toByteArray());
+      file = out.commit();
+    }
+
+    // windows smaller than a long, so that values are read across two windows
+    try (SnapshotReader in = new SnapshotReader(file, 7)) {
+      for (int i = 0; i < 1000; i++) {
+        assertThat(in.readName(), equalTo(i % 2 == 0 ? "Main" : "Savings"));
+        assertThat(in.readLong(), equalTo(i * 1_000_000_007L));
+        assertThat(in.readBoolean(), equalTo(i % 3 == 0));
+        assertThat(in.readDateTime(), equalTo(time));
+      }
+      assertThat(in.readString(), equalTo("Loans"));
+      assertThrows(IOException.class, in::readInt);
+    }
+  }
+
+  @Test
+  public void damagedSnapshotIsRejected() throws Exception {
+    Path file;
+    try (SnapshotWriter out = new SnapshotWriter(directory, 7)) {
+      out.writeString("Christina");
+      file = out.commit();
+    }
+
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(file, bytes);
+
+    assertThrows(IOException.class, () -> new SnapshotReader(file));
+  }
+
+  @Test
+  public void uncommittedSnapshotIsDiscarded() throws Exception {
+    try (SnapshotWriter out = new SnapshotWriter(directory, 3)) {
+      out.writeString("John");
+    }
+
+    assertThat(JournalFiles.snapshots(directory).isEmpty(), equalTo(true));
+    assertThat(directory.toFile().list().length, equalTo(0));
+  }
+}
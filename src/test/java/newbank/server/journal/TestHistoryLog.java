@@ -0,0 +1,72 @@
+package newbank.server.journal;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestHistoryLog {
+  @TempDir Path directory;
+
+  private static byte[] block(final String name, final long value) throws IOException {
+    SnapshotWriter block = SnapshotWriter.section();
+    block.writeString(name);
+    block.writeLong(value);
+    return block.toByteArray();
+  }
+
+  private static List<String> readAll(final HistoryLog log, final long length)
+      throws IOException {
+    List<String> blocks = new ArrayList<>();
+    log.read(length, block -> blocks.add(block.readString() + block.readLong()));
+    return blocks;
+  }
+
+  @Test
+  public void blocksAreReadUpToTheRecordedLength() throws IOException {
+    long recorded;
+    try (HistoryLog log = new HistoryLog(directory)) {
+      log.append(block("first", 1));
+      log.append(block("second", 2));
+      recorded = log.force();
+      // appended by a snapshot which did not complete
+      log.append(block("third", 3));
+    }
+
+    try (HistoryLog log = new HistoryLog(directory)) {
+      assertThat(readAll(log, recorded), equalTo(Arrays.asList("first1", "second2")));
+      log.truncate(recorded);
+      log.append(block("fourth", 4));
+      assertThat(readAll(log, log.force()), equalTo(Arrays.asList("first1", "second2", "fourth4")));
+    }
+  }
+
+  @Test
+  public void corruptedBlocksAreRejected() throws IOException {
+    long length;
+    try (HistoryLog log = new HistoryLog(directory)) {
+      log.append(block("first", 1));
+      length = log.force();
+    }
+    try (FileChannel channel =
+        FileChannel.open(JournalFiles.history(directory), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {'X'}), 6);
+    }
+
+    try (HistoryLog log = new HistoryLog(directory)) {
+      assertThrows(IOException.class, () -> readAll(log, length));
+      assertThrows(IOException.class, () -> readAll(log, length + 1));
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package newbank.server.microloans;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.stream.StreamSupport;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+
+import newbank.server.Customer;
+
+public class TestAccrualEngine {
+  private final Loans loans = new Loans();
+  private final AccrualEngine engine = new AccrualEngine();
+
+  @Test
+  public void compoundsEachPeriodOnce() {
+    Customer lender = new Customer("AccrualLender", "Lender123");
+    Customer borrower = new Customer("AccrualBorrower", "Borrower123");
+    LocalDateTime now = LocalDateTime.now();
+
+    // 36.5% a year is 0.1% a day
+    MicroLoan loan =
+        new MicroLoan(
+            lender, borrower, Money.of(1000, "GBP"), new BigDecimal("0.365"), 30, now.minusDays(2));
+    MicroLoan closed =
+        new MicroLoan(
+            lender, borrower, Money.of(1000, "GBP"), new BigDecimal("0.365"), 30, now.minusDays(2));
+    closed.getPlan().close();
+    loans.addLoan(loan);
+    loans.addLoan(closed);
+
+    assertThat(engine.accrue(now), greaterThanOrEqualTo(1));
+    // 100000 + 100 = 100100, then 100100 + 100.1 with the tenth carried over
+    assertThat(loan.getOutstandingMinorUnits(), equalTo(100200L));
+    assertThat(loan.getLastAccrualDate(), equalTo(now.toLocalDate().atStartOfDay()));
+    assertThat(closed.getOutstandingMinorUnits(), equalTo(100000L));
+
+    engine.accrue(now);
+    assertThat(loan.getOutstandingMinorUnits(), equalTo(100200L));
+
+    engine.accrue(now.plusDays(1));
+    assertThat(loan.getOutstandingMinorUnits(), equalTo(100300L));
+  }
+
+  @Test
+  public void closedLoansAreNotAccruedAnymore() {
+    MicroLoan loan =
+        new MicroLoan(
+            new Customer("ClosingLender", "Lender123"),
+            new Customer("ClosingBorrower", "Borrower123"),
+            Money.of(1000, "GBP"),
+            new BigDecimal("0.365"),
+            30,
+            LocalDateTime.now().minusDays(2));
+    loans.addLoan(loan);
+    assertThat(isAccrued(loan), equalTo(true));
+
+    loan.getPlan().close();
+    assertThat(isAccrued(loan), equalTo(false));
+  }
+
+  @Test
+  public void carriesFractionsOfMinorUnits() {
+    // 0.01% a day of a pound is a hundredth of a penny
+    MicroLoan loan =
+        new MicroLoan(
+            new Customer("FractionLender", "Lender123"),
+            new Customer("FractionBorrower", "Borrower123"),
+            Money.of(1, "GBP"),
+            new BigDecimal("0.0365"),
+            365,
+            LocalDateTime.now().minusDays(100));
+
+    assertThat(loan.accrueInterest(LocalDateTime.now()), equalTo(true));
+    assertThat(loan.getOutstandingMinorUnits(), equalTo(101L));
+    assertThat(loan.getAccruedFraction(), equalTo(0L));
+  }
+
+  private static boolean isAccrued(MicroLoan loan) {
+    return StreamSupport.stream(AllLoans.getInstance().currentLoans(), false)
+        .anyMatch(current -> current == loan);
+  }
+}
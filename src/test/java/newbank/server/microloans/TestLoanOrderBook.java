@@ -0,0 +1,111 @@
+package newbank.server.microloans;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+
+import newbank.server.Customer;
+
+public class TestLoanOrderBook {
+  private final LoanOrderBook book = new LoanOrderBook();
+  private final LocalDateTime now = LocalDateTime.now();
+
+  private LoanOffer offer(String lender, String rate, int maxTerm, int minutesAgo) {
+    LoanOffer offer =
+        new LoanOffer(
+            Money.of(100, "GBP"),
+            new Customer(lender, lender + "123"),
+            new BigDecimal(rate),
+            maxTerm,
+            now.minusMinutes(minutesAgo));
+    book.add(offer);
+    return offer;
+  }
+
+  private LoanRequest request(String borrower, String rate, int term, int minutesAgo) {
+    LoanRequest request =
+        new LoanRequest(
+            Money.of(100, "GBP"),
+            new Customer(borrower, borrower + "123"),
+            term,
+            now.minusMinutes(minutesAgo));
+    request.setAccrualRate(new BigDecimal(rate));
+    book.add(request);
+    return request;
+  }
+
+  @Test
+  public void offersComeByLowestRateThenAge() {
+    offer("Dear", "0.009", 30, 5);
+    LoanOffer old = offer("Old", "0.005", 30, 10);
+    offer("Recent", "0.005", 30, 1);
+
+    LoanRequest request = new LoanRequest(Money.of(100, "GBP"), new Customer("B", "B123"), 30);
+    assertThat(book.bestOfferFor(request, now), sameInstance(old));
+  }
+
+  @Test
+  public void requestsComeByHighestRateThenAge() {
+    request("Cheap", "0.005", 30, 10);
+    request("Recent", "0.01", 30, 1);
+    LoanRequest old = request("Old", "0.01", 30, 5);
+
+    LoanOffer offer =
+        new LoanOffer(Money.of(100, "GBP"), new Customer("L", "L123"), BigDecimal.ZERO, 30);
+    assertThat(book.bestRequestFor(offer, now), sameInstance(old));
+  }
+
+  @Test
+  public void ordersMatchOnlyIfTheyCross() {
+    LoanOffer offer = offer("Lender", "0.01", 30, 1);
+
+    // a longer term than the offer covers, even within the same bucket
+    LoanRequest tooLong = request("TooLong", "0.01", 31, 1);
+    assertThat(book.bestOfferFor(tooLong, now), nullValue());
+    LoanRequest tooCheap = request("TooCheap", "0.005", 30, 1);
+    assertThat(book.bestOfferFor(tooCheap, now), nullValue());
+    assertThat(book.bestRequestFor(offer, now), nullValue());
+
+    LoanRequest shorter = request("Shorter", "0.01", 7, 1);
+    assertThat(book.bestOfferFor(shorter, now), sameInstance(offer));
+    assertThat(book.bestRequestFor(offer, now), sameInstance(shorter));
+  }
+
+  @Test
+  public void ownOrdersAreSkippedForTheNextBestOnes() {
+    LoanOffer own = offer("Both", "0.001", 30, 5);
+    LoanOffer other = offer("Other", "0.005", 30, 1);
+    LoanRequest request =
+        new LoanRequest(Money.of(100, "GBP"), own.getLender(), 30, now.minusMinutes(1));
+    request.setAccrualRate(new BigDecimal("0.01"));
+    book.add(request);
+    LoanRequest otherRequest = request("Borrower", "0.005", 7, 1);
+
+    assertThat(book.bestOfferFor(request, now), sameInstance(other));
+    assertThat(book.bestRequestFor(own, now), sameInstance(otherRequest));
+  }
+
+  @Test
+  public void ordersWhichAreNotCurrentAreSkipped() {
+    LoanOffer filled = offer("Filled", "0.001", 30, 1);
+    LoanOffer expired = offer("Expired", "0.002", 30, 60 * 24 * 8);
+    LoanOffer current = offer("Current", "0.003", 30, 1);
+    LoanRequest request = request("Borrower", "0.01", 30, 1);
+
+    filled.fund(request, 40, now);
+    assertThat(filled.isCurrent(now), equalTo(true));
+    filled.fund(request, 9960, now);
+    assertThat(filled.isCurrent(now), equalTo(false));
+    assertThat(expired.isCurrent(now), equalTo(false));
+    assertThat(request.getProposedMinorUnits(), equalTo(0L));
+
+    assertThat(book.bestOfferFor(request, now), sameInstance(current));
+  }
+}
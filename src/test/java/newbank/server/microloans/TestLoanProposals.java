@@ -0,0 +1,111 @@
+package newbank.server.microloans;
+
+import static newbank.utils.Config.ACCRUAL_RATE;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+
+import newbank.server.Customer;
+
+public class TestLoanProposals {
+  private final LoanProposals proposals = new LoanProposals();
+
+  @Test
+  public void acceptedRequestsAreNotCurrent() {
+    Customer borrower = new Customer("Acceptor", "Acceptor123");
+    LoanRequest request = new LoanRequest(Money.of(100, "GBP"), borrower, 30);
+    proposals.addProposal(request);
+
+    assertThat(proposals.getCurrentRequest("Acceptor").isPresent(), equalTo(true));
+    assertThat(proposals.getRequests(borrower).count(), equalTo(1L));
+
+    request.accept();
+    assertThat(proposals.getCurrentRequest("Acceptor").isPresent(), equalTo(false));
+    assertThat(proposals.getRequests(borrower).count(), equalTo(0L));
+  }
+
+  @Test
+  public void loanHistoryFollowsTheCurrentRequest() {
+    Customer borrower = new Customer("Follower", "Follower123");
+    LoanRequest first = new LoanRequest(Money.of(100, "GBP"), borrower, 30);
+    LoanRequest second = new LoanRequest(Money.of(200, "GBP"), borrower, 30);
+
+    proposals.addProposal(first);
+    assertThat(borrower.getLoanHistory().hasCurrentLoanRequest(), equalTo(true));
+
+    // the first request leaving does not clear the one replacing it
+    proposals.addProposal(second);
+    first.withdraw();
+    assertThat(borrower.getLoanHistory().hasCurrentLoanRequest(), equalTo(true));
+
+    second.accept();
+    assertThat(borrower.getLoanHistory().hasCurrentLoanRequest(), equalTo(false));
+  }
+
+  @Test
+  public void concurrentPartialFillsAreNotLost() throws Exception {
+    Customer lender = new Customer("Filler", "Filler123");
+    LoanOffer offer = new LoanOffer(Money.of(10, "GBP"), lender, ACCRUAL_RATE, 30);
+    proposals.addProposal(offer);
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<Future<?>> fills = new ArrayList<>();
+    for (int thread = 0; thread < 8; thread++) {
+      fills.add(
+          pool.submit(
+              () -> {
+                for (int i = 0; i < 125; i++) {
+                  offer.fill(1);
+                }
+              }));
+    }
+    for (Future<?> fill : fills) {
+      fill.get();
+    }
+    pool.shutdown();
+
+    assertThat(offer.getProposedMinorUnits(), equalTo(0L));
+    assertThat(offer.isCurrent(), equalTo(false));
+  }
+
+  @Test
+  public void expiredRequestsAreEvicted() throws InterruptedException {
+    Customer borrower = new Customer("Expirer", "Expirer123");
+    proposals.addProposal(
+        new LoanRequest(Money.of(100, "GBP"), borrower, 30, LocalDateTime.now().minusDays(30)));
+
+    for (int i = 0; i < 50 && proposals.getRequests(borrower).count() > 0; i++) {
+      Thread.sleep(100);
+    }
+    assertThat(proposals.getRequests(borrower).count(), equalTo(0L));
+  }
+
+  @Test
+  public void expiredRequestsAreKeptWhileExpiryIsSuspended() throws InterruptedException {
+    Customer borrower = new Customer("Replayer", "Replayer123");
+    LocalDateTime created = LocalDateTime.now().minusDays(30);
+
+    proposals.suspendExpiry();
+    try {
+      proposals.addProposal(new LoanRequest(Money.of(100, "GBP"), borrower, 30, created));
+      Thread.sleep(50);
+
+      // still found as of a date before it expired, as when replaying the journal
+      assertThat(
+          proposals.getCurrentRequest("Replayer", created.plusDays(1)).isPresent(), equalTo(true));
+      assertThat(proposals.getCurrentRequest("Replayer").isPresent(), equalTo(false));
+    } finally {
+      proposals.resumeExpiry();
+    }
+    assertThat(proposals.getRequests(borrower).count(), equalTo(0L));
+  }
+}
@@ -0,0 +1,109 @@
+package newbank.server.microloans;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+
+import newbank.server.Customer;
+
+public class TestLoans {
+  private final Loans loans = new Loans();
+
+  @Test
+  public void findsTheLoansOfEachCustomer() {
+    Customer alice = new Customer("Alice", "Alice123");
+    Customer bob = new Customer("Bob", "Bob123");
+    Customer carol = new Customer("Carol", "Carol123");
+
+    MicroLoan first = new MicroLoan(alice, bob, Money.of(100, "GBP"), BigDecimal.ONE, 30);
+    MicroLoan second = new MicroLoan(alice, carol, Money.of(200, "GBP"), BigDecimal.ONE, 30);
+    MicroLoan third = new MicroLoan(carol, bob, Money.of(300, "GBP"), BigDecimal.ONE, 30);
+    loans.addLoan(first);
+    loans.addLoan(second);
+    loans.addLoan(third);
+
+    assertThat(loans.getCredits(alice).collect(Collectors.toList()), equalTo(list(first, second)));
+    assertThat(loans.getDebts(alice).count(), equalTo(0L));
+    assertThat(loans.getCredits(bob).count(), equalTo(0L));
+    assertThat(loans.getDebts(bob).collect(Collectors.toList()), equalTo(list(first, third)));
+    assertThat(loans.getCredits(carol).collect(Collectors.toList()), equalTo(list(third)));
+    assertThat(loans.getDebts(carol).collect(Collectors.toList()), equalTo(list(second)));
+  }
+
+  @Test
+  public void loansDefaultOnceTheirDeadlinePasses() throws InterruptedException {
+    Customer lender = new Customer("Lender", "Lender123");
+    Customer borrower = new Customer("Defaulter", "Defaulter123");
+
+    MicroLoan loan =
+        new MicroLoan(
+            lender,
+            borrower,
+            Money.of(100, "GBP"),
+            BigDecimal.ONE,
+            30,
+            LocalDateTime.now().minusDays(31));
+    loans.addLoan(loan);
+
+    for (int i = 0; i < 50 && !loans.hasDefaulted(borrower); i++) {
+      Thread.sleep(100);
+    }
+    assertThat(loan.hasDefaulted(), equalTo(true));
+    assertThat(loan.isDueSoon(), equalTo(true));
+    assertThat(loans.hasDefaulted(borrower), equalTo(true));
+    assertThat(loans.hasDefaulted(lender), equalTo(false));
+
+    loan.getPlan().close();
+    assertThat(loan.hasDefaulted(), equalTo(false));
+    assertThat(loans.hasDefaulted(borrower), equalTo(false));
+  }
+
+  @Test
+  public void loanHistoryCountsTheCurrentDebts() {
+    Customer lender = new Customer("Counter", "Counter123");
+    Customer borrower = new Customer("Counted", "Counted123");
+    MicroLoan first = new MicroLoan(lender, borrower, Money.of(100, "GBP"), BigDecimal.ONE, 30);
+    MicroLoan second = new MicroLoan(lender, borrower, Money.of(100, "GBP"), BigDecimal.ONE, 30);
+
+    loans.addLoan(first);
+    loans.addLoan(second);
+    assertThat(borrower.getLoanHistory().currentDebtCount(), equalTo(2));
+    assertThat(lender.getLoanHistory().currentDebtCount(), equalTo(0));
+
+    first.getPlan().close();
+    first.getPlan().close();
+    assertThat(borrower.getLoanHistory().currentDebtCount(), equalTo(1));
+  }
+
+  @Test
+  public void loanHistoryIndexesTheDebtsByDeadline() {
+    Customer lender = new Customer("Indexer", "Indexer123");
+    Customer borrower = new Customer("Indexed", "Indexed123");
+    LocalDateTime now = LocalDateTime.now();
+    MicroLoan soon =
+        new MicroLoan(lender, borrower, Money.of(100, "GBP"), BigDecimal.ONE, 30, now.minusDays(28));
+    MicroLoan later = new MicroLoan(lender, borrower, Money.of(100, "GBP"), BigDecimal.ONE, 30, now);
+
+    loans.addLoan(soon);
+    loans.addLoan(later);
+    assertThat(borrower.getLoanHistory().hasDebtDueSoon(), equalTo(true));
+    assertThat(borrower.getLoanHistory().hasDebtDueBy(now.plusDays(1)), equalTo(false));
+    assertThat(lender.getLoanHistory().hasDebtDueSoon(), equalTo(false));
+
+    soon.getPlan().close();
+    assertThat(borrower.getLoanHistory().hasDebtDueSoon(), equalTo(false));
+    assertThat(borrower.getLoanHistory().hasDebtDueBy(now.plusDays(30)), equalTo(true));
+  }
+
+  private static List<MicroLoan> list(MicroLoan... loans) {
+    return Arrays.asList(loans);
+  }
+}
@@ -0,0 +1,47 @@
+package newbank.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.jupiter.api.Test;
+
+public class TestLatencyHistogram {
+  @Test
+  public void countsSmallValuesExactly() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 10; i++) {
+      histogram.record(i);
+    }
+
+    assertThat(histogram.getCount(), equalTo(10L));
+    assertThat(histogram.getValueAtPercentile(50), equalTo(5L));
+    assertThat(histogram.getValueAtPercentile(100), equalTo(10L));
+    assertThat(histogram.getMax(), equalTo(10L));
+  }
+
+  @Test
+  public void boundsTheRelativeErrorOfLargeValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 1_000_000; i++) {
+      histogram.record(i * 1000);
+    }
+
+    assertThat(
+        histogram.getValueAtPercentile(50),
+        allOf(greaterThanOrEqualTo(500_000_000L), lessThanOrEqualTo(532_000_000L)));
+    assertThat(
+        histogram.getValueAtPercentile(99.9),
+        allOf(greaterThanOrEqualTo(999_000_000L), lessThanOrEqualTo(1_000_000_000L)));
+    assertThat(histogram.getMax(), equalTo(1_000_000_000L));
+  }
+
+  @Test
+  public void reportsZeroWhenEmpty() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.getCount(), equalTo(0L));
+    assertThat(histogram.getValueAtPercentile(99), equalTo(0L));
+  }
+}
@@ -0,0 +1,69 @@
+package newbank.utils;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class TestTimingWheel {
+  private static final TimingWheel wheel = new TimingWheel(1, "test-timer");
+
+  @Test
+  public void runsTasksInDeadlineOrderAndNeverEarly() throws InterruptedException {
+    List<Integer> order = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(3);
+    long now = System.currentTimeMillis();
+
+    // the last deadline is past a turn of the finest wheel
+    long[] deadlines = {now + 600, now + 20, now + 300};
+    long[] ranAt = new long[deadlines.length];
+    for (int i = 0; i < deadlines.length; i++) {
+      int task = i;
+      wheel.schedule(
+          deadlines[i],
+          () -> {
+            ranAt[task] = System.currentTimeMillis();
+            order.add(task);
+            done.countDown();
+          });
+    }
+
+    assertThat(done.await(5, TimeUnit.SECONDS), equalTo(true));
+    assertThat(order, equalTo(Arrays.asList(1, 2, 0)));
+    for (int i = 0; i < deadlines.length; i++) {
+      assertThat(ranAt[i], greaterThanOrEqualTo(deadlines[i]));
+    }
+  }
+
+  @Test
+  public void runsPastDeadlinesOnTheNextTick() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    TimingWheel.Timeout timeout = wheel.schedule(0, done::countDown);
+
+    assertThat(done.await(5, TimeUnit.SECONDS), equalTo(true));
+    assertThat(timeout.isExpired(), equalTo(true));
+    assertThat(timeout.cancel(), equalTo(false));
+  }
+
+  @Test
+  public void doesNotRunCancelledTasks() throws InterruptedException {
+    CountDownLatch cancelled = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(1);
+    long now = System.currentTimeMillis();
+
+    TimingWheel.Timeout timeout = wheel.schedule(now + 50, cancelled::countDown);
+    wheel.schedule(now + 100, done::countDown);
+    assertThat(timeout.cancel(), equalTo(true));
+
+    assertThat(done.await(5, TimeUnit.SECONDS), equalTo(true));
+    assertThat(cancelled.getCount(), equalTo(1L));
+    assertThat(timeout.isCancelled(), equalTo(true));
+  }
+}